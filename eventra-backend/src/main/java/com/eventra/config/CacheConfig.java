@@ -1,5 +1,14 @@
 package com.eventra.config;
 
+import com.eventra.infrastructure.CacheAccessStats;
+import com.eventra.infrastructure.CacheKeySampler;
+import com.eventra.infrastructure.IdempotencyService;
+import com.eventra.infrastructure.InstrumentedCacheManager;
+import com.eventra.infrastructure.MeteredRedisSerializer;
+import com.eventra.infrastructure.StampedePolicy;
+import com.eventra.infrastructure.StampedeProtectedCacheManager;
+import com.eventra.infrastructure.TwoLevelCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -7,6 +16,9 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -24,19 +36,49 @@ import java.util.Map;
  *   <tr><td>sponsor-detail</td><td>5 min</td><td>Individual sponsor profile</td></tr>
  *   <tr><td>match-results</td><td>15 min</td><td>AI match/recommendation results</td></tr>
  *   <tr><td>organizer-detail</td><td>5 min</td><td>Individual organizer profile</td></tr>
- *   <tr><td>platform-stats</td><td>30 min</td><td>Dashboard aggregate stats</td></tr>
+ *   <tr><td>platform-stats</td><td>30 min (+10 min stale)</td><td>Dashboard aggregate stats</td></tr>
+ *   <tr><td>revenue-stats</td><td>5 min (+5 min stale)</td><td>Admin revenue aggregation</td></tr>
  *   <tr><td>user-sessions</td><td>24 hr</td><td>Optional session cache for JWT validation</td></tr>
+ *   <tr><td>chat-participants</td><td>1 hr</td><td>Chat participant name and role by user id</td></tr>
  * </table>
  *
  * <h3>Eviction strategy:</h3>
  * <p>Cache entries are evicted on write operations via {@code @CacheEvict} in service layer.
  * TTL provides a safety net for stale data. No explicit cache warming needed;
  * entries are created lazily on first read (@Cacheable).</p>
+ *
+ * <h3>Near cache (L1):</h3>
+ * <p>Caches listed under {@code cache.near.caches} (sponsor-detail, organizer-detail,
+ * chat-participants) also keep a per-JVM Caffeine copy, so repeated reads skip the
+ * Redis round trip and deserialization. Evictions reach the other nodes over Redis pub/sub; see
+ * {@link TwoLevelCacheManager}.</p>
+ *
+ * <h3>Stampede protection:</h3>
+ * <p>Caches in {@link #STAMPEDE_POLICIES} hold aggregates that take seconds to compute.
+ * On expiry they keep serving the old value while a single caller across the cluster
+ * recomputes it, and hot keys are refreshed shortly before they expire. Their methods
+ * must use {@code @Cacheable(sync = true)}; see {@link StampedeProtectedCacheManager}.</p>
+ *
+ * <h3>Metrics:</h3>
+ * <p>Every cache reports hits, misses, lookup and load latency, puts and evictions as
+ * seen by callers ({@link InstrumentedCacheManager}), and the encoded size of values
+ * moving to and from Redis ({@link MeteredRedisSerializer}). Caches without their own
+ * configuration share the {@code other} size metrics. Sampled hot keys are served by
+ * {@code GET /api/admin/caches/top-keys}.</p>
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    private static final String KEY_PREFIX = "eventra:";
+
+    /** Fresh window, extra stale window, early refresh beta, recompute lock lease and wait */
+    static final Map<String, StampedePolicy> STAMPEDE_POLICIES = Map.of(
+            "revenue-stats", new StampedePolicy(Duration.ofMinutes(5), Duration.ofMinutes(5), 1.0,
+                    Duration.ofSeconds(30), Duration.ofSeconds(10)),
+            "platform-stats", new StampedePolicy(Duration.ofMinutes(30), Duration.ofMinutes(10), 1.0,
+                    Duration.ofSeconds(30), Duration.ofSeconds(10)));
+
     /**
      * Custom CacheManager with per-cache TTL configuration.
      * Falls back to a default TTL of 10 minutes for unnamed caches.
@@ -44,17 +86,25 @@ public class CacheConfig {
     @Bean
     public CacheManager cacheManager(
             RedisConnectionFactory connectionFactory,
-            RedisSerializer<Object> redisJsonSerializer) {
+            RedisSerializer<Object> cacheValueSerializer,
+            NearCacheProperties nearCacheProperties,
+            StringRedisTemplate stringRedisTemplate,
+            RedisMessageListenerContainer redisMessageListenerContainer,
+            IdempotencyService idempotencyService,
+            MeterRegistry meterRegistry,
+            CacheAccessStats cacheAccessStats,
+            CacheKeySampler cacheKeySampler) {
 
         // Default configuration: 10 min TTL, no null values
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))
                 .disableCachingNullValues()
-                .prefixCacheNameWith("eventra:")
+                .prefixCacheNameWith(KEY_PREFIX)
                 .serializeKeysWith(
                         RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(redisJsonSerializer));
+                        RedisSerializationContext.SerializationPair.fromSerializer(
+                                new MeteredRedisSerializer(cacheValueSerializer, "other", meterRegistry)));
 
         // Per-cache TTL overrides
         Map<String, RedisCacheConfiguration> cacheConfigs = new HashMap<>();
@@ -62,16 +112,39 @@ public class CacheConfig {
         cacheConfigs.put("sponsor-detail", defaultConfig.entryTtl(Duration.ofMinutes(5)));
         cacheConfigs.put("match-results", defaultConfig.entryTtl(Duration.ofMinutes(15)));
         cacheConfigs.put("organizer-detail", defaultConfig.entryTtl(Duration.ofMinutes(5)));
-        cacheConfigs.put("platform-stats", defaultConfig.entryTtl(Duration.ofMinutes(30)));
         cacheConfigs.put("user-sessions", defaultConfig.entryTtl(Duration.ofHours(24)));
         cacheConfigs.put("notifications-count", defaultConfig.entryTtl(Duration.ofSeconds(30)));
-        cacheConfigs.put("revenue-stats", defaultConfig.entryTtl(Duration.ofMinutes(5)));
         cacheConfigs.put("payment-detail", defaultConfig.entryTtl(Duration.ofMinutes(2)));
+        cacheConfigs.put("chat-participants", defaultConfig.entryTtl(Duration.ofHours(1)));
+        // Stampede-protected caches keep entries through the stale window
+        STAMPEDE_POLICIES.forEach((name, policy) -> cacheConfigs.put(name, defaultConfig.entryTtl(policy.entryTtl())));
+        // Value sizes per cache
+        cacheConfigs.replaceAll((name, config) -> config.serializeValuesWith(
+                RedisSerializationContext.SerializationPair.fromSerializer(
+                        new MeteredRedisSerializer(cacheValueSerializer, name, meterRegistry))));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigs)
                 .transactionAware()
                 .build();
+        // Not a bean itself, so load the per-cache configurations explicitly
+        redisCacheManager.afterPropertiesSet();
+
+        CacheManager cacheManager = redisCacheManager;
+        if (nearCacheProperties.isEnabled()) {
+            TwoLevelCacheManager twoLevelCacheManager =
+                    new TwoLevelCacheManager(redisCacheManager, nearCacheProperties, stringRedisTemplate, cacheAccessStats);
+            redisMessageListenerContainer.addMessageListener(twoLevelCacheManager,
+                    new ChannelTopic(nearCacheProperties.getInvalidationChannel()));
+            cacheManager = twoLevelCacheManager;
+        }
+        cacheManager = new StampedeProtectedCacheManager(cacheManager, STAMPEDE_POLICIES, idempotencyService, meterRegistry);
+        return new InstrumentedCacheManager(cacheManager, meterRegistry, cacheKeySampler);
+    }
+
+    /** Redis key under which the cache manager stores {@code key} of {@code cacheName} */
+    public static String redisKey(String cacheName, Object key) {
+        return KEY_PREFIX + cacheName + "::" + key;
     }
 }
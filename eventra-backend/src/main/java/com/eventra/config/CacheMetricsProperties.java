@@ -0,0 +1,21 @@
+package com.eventra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache instrumentation settings.
+ * Maps to cache.metrics.* properties in application.properties.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cache.metrics")
+public class CacheMetricsProperties {
+
+    /** Fraction of cache reads whose key is sampled for the top-keys report (0 disables) */
+    private double keySampleRate = 0.01;
+
+    /** Distinct sampled keys kept per cache; the least-read half is dropped when full */
+    private int maxSampledKeys = 1_000;
+}
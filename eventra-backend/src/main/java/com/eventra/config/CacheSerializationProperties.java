@@ -0,0 +1,32 @@
+package com.eventra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Encoding of Redis cache values.
+ * Maps to cache.serialization.* properties in application.properties.
+ *
+ * <p>Either format can read entries written by the other, so switching is safe on a
+ * running cluster: old entries keep being served until their TTL runs out.</p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cache.serialization")
+public class CacheSerializationProperties {
+
+    public enum Format {
+        /** Human-readable, default-typed Jackson JSON (the original encoding) */
+        JSON,
+        /** Binary Smile encoding of the same Jackson model, with optional LZ4 */
+        SMILE
+    }
+
+    /** Format used for new writes */
+    private Format format = Format.SMILE;
+
+    /** Smile payloads at least this large are LZ4-compressed; 0 disables compression */
+    private DataSize compressionThreshold = DataSize.ofKilobytes(1);
+}
@@ -0,0 +1,45 @@
+package com.eventra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Startup cache warmup and refresh-ahead settings.
+ * Maps to cache.warmup.* properties in application.properties.
+ *
+ * <p>The flush and refresh-ahead intervals are read directly by
+ * {@code @Scheduled} ({@code cache.warmup.stats-flush-interval},
+ * {@code cache.warmup.refresh-ahead-interval}) and are listed here for reference.</p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cache.warmup")
+public class CacheWarmupProperties {
+
+    /** Set false to start with cold caches and skip refresh-ahead */
+    private boolean enabled = true;
+
+    /** Most-requested sponsor and organizer profiles preloaded per cache */
+    private int topProfiles = 200;
+
+    /** Most-requested first listing pages preloaded */
+    private int topListings = 20;
+
+    /** Parallel loads during warmup; keeps the burst on Mongo bounded */
+    private int concurrency = 4;
+
+    /** Warmup gives up after this long and lets readiness proceed */
+    private Duration timeout = Duration.ofSeconds(30);
+
+    /** How often buffered access counts are pushed to Redis */
+    private Duration statsFlushInterval = Duration.ofSeconds(30);
+
+    /** How often hot profile entries are checked for refresh-ahead */
+    private Duration refreshAheadInterval = Duration.ofSeconds(60);
+
+    /** Hot entries whose remaining Redis TTL is below this are reloaded */
+    private Duration refreshAheadWindow = Duration.ofSeconds(60);
+}
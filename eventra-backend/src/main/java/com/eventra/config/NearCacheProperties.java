@@ -0,0 +1,47 @@
+package com.eventra.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-JVM L1 (Caffeine) settings for the two-level cache.
+ * Maps to cache.near.* properties in application.properties.
+ *
+ * <p>Only caches listed under {@code cache.near.caches} get an L1; all others
+ * stay Redis-only. Keep each L1 TTL well below the cache's Redis TTL — it bounds
+ * how long a node can serve a value after a missed invalidation message.</p>
+ *
+ * <pre>
+ * cache.near.caches.sponsor-detail.maximum-size=10000
+ * cache.near.caches.sponsor-detail.ttl=60s
+ * </pre>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cache.near")
+public class NearCacheProperties {
+
+    /** Set false to fall back to the plain Redis cache manager */
+    private boolean enabled = true;
+
+    /** Pub/sub channel carrying evictions to the other nodes */
+    private String invalidationChannel = "eventra:cache:invalidate";
+
+    /** L1 settings per cache name */
+    private Map<String, Spec> caches = new HashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Spec {
+        private long maximumSize = 1_000;
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+}
@@ -4,6 +4,12 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Externalized rate limiting configuration.
  * Maps to rate-limit.* properties in application.properties.
@@ -14,6 +20,34 @@ import org.springframework.context.annotation.Configuration;
  *   <li><b>admin</b> — Admin users: 500 req/min</li>
  *   <li><b>anonymous</b> — Unauthenticated IP-based: 30 req/min</li>
  * </ul>
+ *
+ * <h3>Algorithm:</h3>
+ * <p>{@code rate-limit.algorithm} selects the Redis-side algorithm for all tiers:
+ * {@code sliding-log} (default), {@code gcra} or {@code sliding-window-counter}.</p>
+ *
+ * <h3>Sync mode (per tier):</h3>
+ * <p>{@code rate-limit.<tier>.sync-mode=async} takes Redis off the request path for that
+ * tier. With N instances and flush interval T, worst-case admissions per window are
+ * {@code capacity + (N - 1) * min(capacity, perInstanceRate * T)}, never more than
+ * {@code N * capacity}.</p>
+ *
+ * <h3>Route costs:</h3>
+ * <pre>
+ * rate-limit.routes[0].pattern=/api/ai/**
+ * rate-limit.routes[0].cost=5
+ * rate-limit.routes[0].buckets=ai
+ * rate-limit.buckets.ai.capacity=20
+ * </pre>
+ *
+ * <h3>Hierarchical limits:</h3>
+ * <p>A route's buckets may have different {@link Scope}s, so one request is checked
+ * against its caller, its account and a platform-wide ceiling in one evaluation:</p>
+ * <pre>
+ * rate-limit.routes[1].pattern=/api/payments/order
+ * rate-limit.routes[1].buckets=payment-order-account,payment-order-global
+ * rate-limit.buckets.payment-order-account.scope=account
+ * rate-limit.buckets.payment-order-global.scope=global
+ * </pre>
  */
 @Data
 @Configuration
@@ -24,6 +58,116 @@ public class RateLimitProperties {
     private BucketSpec admin = new BucketSpec(500, 500, 60);
     private BucketSpec anonymous = new BucketSpec(30, 30, 60);
 
+    /** Redis-side algorithm used by the global (tier 2) check */
+    private Algorithm algorithm = Algorithm.SLIDING_LOG;
+
+    /** Bounds for the per-JVM local bucket cache */
+    private LocalCache localCache = new LocalCache();
+
+    /** Batching settings for tiers in {@link SyncMode#ASYNC} mode */
+    private Async async = new Async();
+
+    /** STOMP inbound frame limits ({@code rate-limit.websocket.*}) */
+    private Websocket websocket = new Websocket();
+
+    /**
+     * Per-route cost rules, first match wins. Unmatched routes cost 1 token
+     * from the tier bucket only.
+     */
+    private List<Route> routes = new ArrayList<>();
+
+    /** Dedicated buckets referenced by {@link Route#getBuckets()}, e.g. {@code rate-limit.buckets.ai.*} */
+    private Map<String, BucketSpec> buckets = new HashMap<>();
+
+    /** Binds {@code rate-limit.default.*} — "default" is a keyword, so the field can't carry the name. */
+    public BucketSpec getDefault() {
+        return defaultSpec;
+    }
+
+    public void setDefault(BucketSpec spec) {
+        this.defaultSpec = spec;
+    }
+
+    public enum Algorithm {
+        /** Sorted set with one member per request — exact, O(capacity) memory per key */
+        SLIDING_LOG,
+        /** Generic cell rate algorithm — one timestamp per key */
+        GCRA,
+        /** Weighted previous + current fixed-window counters — two integers per key */
+        SLIDING_WINDOW_COUNTER
+    }
+
+    /** Level of a dedicated bucket in a user → account → global chain */
+    public enum Scope {
+        /** One bucket per rate limit key (user or IP) */
+        CALLER,
+        /** One bucket per company/organizer account; skipped for anonymous callers */
+        ACCOUNT,
+        /** One bucket for the whole platform */
+        GLOBAL
+    }
+
+    public enum RejectMode {
+        /** Silently discard the frame */
+        DROP,
+        /** Reply with a STOMP ERROR frame */
+        ERROR
+    }
+
+    public enum SyncMode {
+        /** Run the Redis script on every admitted request */
+        SYNC,
+        /** Admit locally; push deltas and pull global counts in periodic batches */
+        ASYNC
+    }
+
+    @Data
+    public static class Route {
+        /** Path pattern, e.g. {@code /api/ai/**} */
+        private String pattern;
+        /** HTTP method to match; null matches any method */
+        private String method;
+        /** Tokens charged per request */
+        private int cost = 1;
+        /**
+         * Dedicated buckets charged in addition to the tier bucket, narrowest level
+         * first (e.g. {@code payment-order-account,payment-order-global})
+         */
+        private List<String> buckets = new ArrayList<>();
+    }
+
+    @Data
+    public static class Async {
+        /**
+         * How often pending deltas are flushed. Also the visibility lag between
+         * instances, and therefore the main term of the over-admission bound.
+         */
+        private Duration flushInterval = Duration.ofMillis(250);
+    }
+
+    /**
+     * Bucket names refer to {@code rate-limit.buckets}; an unconfigured bucket is not enforced.
+     */
+    @Data
+    public static class Websocket {
+        /** Per-user bucket for /app/chat.send, shared by all of the user's sessions */
+        private String sendUserBucket = "ws-send-user";
+        /** Per-session bucket for /app/chat.send */
+        private String sendSessionBucket = "ws-send-session";
+        /** Per-session bucket for /app/chat.typing, enforced on this JVM only */
+        private String typingBucket = "ws-typing";
+        /** What to do with a rejected chat message */
+        private RejectMode sendRejectMode = RejectMode.ERROR;
+    }
+
+    @Data
+    public static class LocalCache {
+        /** Maximum number of local buckets held per JVM (W-TinyLFU eviction beyond this) */
+        private long maximumSize = 100_000;
+        /** Drop buckets not touched for this long; should exceed the longest refill window */
+        private Duration expireAfterAccess = Duration.ofMinutes(5);
+    }
+
     @Data
     public static class BucketSpec {
         /** Maximum tokens (burst capacity) */
@@ -32,6 +176,10 @@ public class RateLimitProperties {
         private int refillTokens;
         /** Refill interval in seconds */
         private int refillDuration;
+        /** Whether admission waits for Redis (sync) or reconciles in batches (async) */
+        private SyncMode syncMode = SyncMode.SYNC;
+        /** Whose traffic a dedicated bucket counts; ignored for tier buckets */
+        private Scope scope = Scope.CALLER;
 
         public BucketSpec() {}
 
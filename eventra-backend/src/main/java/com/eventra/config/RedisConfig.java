@@ -1,17 +1,21 @@
 package com.eventra.config;
 
+import com.eventra.infrastructure.CacheValueSerializer;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -21,7 +25,9 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
  *
  * <p>Uses Lettuce (Spring Boot default) as the Redis client.
  * Configures JSON serialization for cache values so they are
- * human-readable in Redis and portable across JVM versions.</p>
+ * human-readable in Redis and portable across JVM versions. Cache
+ * values default to the compact Smile encoding instead; see
+ * {@link #cacheValueSerializer}.</p>
  *
  * <h3>Production considerations:</h3>
  * <ul>
@@ -40,7 +46,29 @@ public class RedisConfig {
      */
     @Bean
     public RedisSerializer<Object> redisJsonSerializer() {
-        ObjectMapper mapper = new ObjectMapper();
+        return new GenericJackson2JsonRedisSerializer(configureTyped(new ObjectMapper()));
+    }
+
+    /**
+     * CacheManager value serializer: Smile (binary JSON) with LZ4 above
+     * {@code cache.serialization.compression-threshold}. Reads JSON entries too,
+     * and {@code cache.serialization.format=JSON} switches writes back.
+     */
+    @Bean
+    public RedisSerializer<Object> cacheValueSerializer(CacheSerializationProperties properties) {
+        SmileFactory smileFactory = SmileFactory.builder()
+                // Back-reference repeated short values such as type ids and enum names
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new CacheValueSerializer(
+                configureTyped(new ObjectMapper(smileFactory)),
+                redisJsonSerializer(),
+                properties.getFormat() == CacheSerializationProperties.Format.SMILE,
+                (int) properties.getCompressionThreshold().toBytes());
+    }
+
+    /** Shared by both cache encodings so a type that round-trips in one does in the other */
+    private static ObjectMapper configureTyped(ObjectMapper mapper) {
         mapper.registerModule(new JavaTimeModule());
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
@@ -49,7 +77,7 @@ public class RedisConfig {
                 ObjectMapper.DefaultTyping.NON_FINAL,
                 JsonTypeInfo.As.PROPERTY
         );
-        return new GenericJackson2JsonRedisSerializer(mapper);
+        return mapper;
     }
 
     /**
@@ -84,4 +112,15 @@ public class RedisConfig {
     public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
         return new StringRedisTemplate(connectionFactory);
     }
+
+    /**
+     * Shared pub/sub listener container (one subscriber connection per JVM).
+     * Components register their own channels or patterns on it.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
 }
@@ -1,6 +1,7 @@
 package com.eventra.config;
 
 import com.eventra.entity.Conversation;
+import com.eventra.filter.WebSocketRateLimitInterceptor;
 import com.eventra.repository.ConversationRepository;
 import com.eventra.security.JwtTokenProvider;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +32,8 @@ import java.util.regex.Pattern;
  * 1. CONNECT  — JWT validation, principal injection
  * 2. SUBSCRIBE — Conversation access control (prevent cross-conversation eavesdropping)
  * 3. SEND     — Anti-spoofing: validate sender matches principal on /app/chat.* destinations
+ *
+ * followed by {@link WebSocketRateLimitInterceptor} for per-session/per-user chat frame limits.
  */
 @Configuration
 @EnableWebSocketMessageBroker
@@ -47,6 +50,9 @@ public class WebSocketAuthConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private ConversationRepository conversationRepository;
 
+    @Autowired
+    private WebSocketRateLimitInterceptor webSocketRateLimitInterceptor;
+
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         registration.interceptors(new ChannelInterceptor() {
@@ -76,7 +82,7 @@ public class WebSocketAuthConfig implements WebSocketMessageBrokerConfigurer {
 
                 return message;
             }
-        });
+        }, webSocketRateLimitInterceptor);
     }
 
     // ── CONNECT: JWT validation ──────────────────────────────────
@@ -0,0 +1,48 @@
+package com.eventra.controller;
+
+import com.eventra.infrastructure.CacheKeySampler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Admin endpoints for cache diagnostics.
+ *
+ * <p>Hit ratios, latencies and value sizes are exported as Micrometer metrics
+ * ({@code eventra.cache.*}); this controller serves what does not fit in metrics:
+ * the keys read most often on this instance, from sampled reads.</p>
+ *
+ * <h3>Access:</h3>
+ * Restricted to ADMIN role via SecurityConfig. Not under /actuator, which is public,
+ * because keys contain ids and search filters.
+ */
+@RestController
+@RequestMapping("/api/admin/caches")
+@RequiredArgsConstructor
+public class AdminCacheController {
+
+    private static final int MAX_LIMIT = 200;
+
+    private final CacheKeySampler cacheKeySampler;
+
+    /**
+     * Most-read keys per cache on this instance since the last reset.
+     *
+     * @param cache a single cache name, or all caches when omitted
+     */
+    @GetMapping("/top-keys")
+    public ResponseEntity<CacheKeySampler.TopKeysReport> getTopKeys(
+            @RequestParam(required = false) String cache,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(cacheKeySampler.top(cache, Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+
+    /**
+     * Drop sampled keys and start a new window, e.g. after changing a TTL.
+     */
+    @DeleteMapping("/top-keys")
+    public ResponseEntity<Void> resetTopKeys() {
+        cacheKeySampler.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
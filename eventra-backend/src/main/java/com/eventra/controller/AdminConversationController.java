@@ -0,0 +1,78 @@
+package com.eventra.controller;
+
+import com.eventra.dto.ConversationMessageDTO;
+import com.eventra.service.ConversationService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Admin endpoints for conversation review (compliance, disputes).
+ *
+ * <h3>Access:</h3>
+ * Restricted to ADMIN role via SecurityConfig.
+ */
+@RestController
+@RequestMapping("/api/admin/conversations")
+@Slf4j
+public class AdminConversationController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ConversationService conversationService;
+    private final ObjectWriter messageWriter;
+
+    public AdminConversationController(ConversationService conversationService, ObjectMapper objectMapper) {
+        this.conversationService = conversationService;
+        // One value per line, no separator of Jackson's own; the servlet buffer decides
+        // when to flush, and the response stream is never closed here
+        this.messageWriter = objectMapper.writerFor(ConversationMessageDTO.class)
+                .withRootValueSeparator("")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * GET /api/admin/conversations/{id}/transcript — Full transcript as NDJSON.
+     *
+     * <p>One message per line, oldest first, streamed straight from a Mongo cursor to the
+     * response; nothing is buffered beyond one cursor batch. A missing conversation is a
+     * 404 before any bytes are written. An error mid-stream aborts the connection, so a
+     * transcript without its final newline is incomplete.</p>
+     */
+    @GetMapping("/{id}/transcript")
+    public ResponseEntity<StreamingResponseBody> exportTranscript(
+            @PathVariable String id,
+            Authentication authentication) {
+        Stream<ConversationMessageDTO> messages = conversationService.streamTranscript(id);
+        log.info("Transcript export of conversation {} by {}", id, authentication.getName());
+
+        StreamingResponseBody body = out -> {
+            try (messages; JsonGenerator generator = messageWriter.createGenerator(out)) {
+                for (Iterator<ConversationMessageDTO> it = messages.iterator(); it.hasNext(); ) {
+                    messageWriter.writeValue(generator, it.next());
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("conversation-" + id + ".ndjson")
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
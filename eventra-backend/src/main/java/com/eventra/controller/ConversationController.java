@@ -4,10 +4,12 @@ import com.eventra.dto.*;
 import com.eventra.service.ConversationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
 import java.util.Map;
@@ -56,14 +58,31 @@ public class ConversationController {
     }
 
     /**
-     * GET /api/conversations/{id}/messages — Get all messages in a conversation.
+     * GET /api/conversations/{id}/messages — One page of messages, oldest first.
+     *
+     * <p>Without cursors returns the latest {@code limit} messages. Further pages are
+     * linked from the {@code Link} header (RFC 8288): {@code rel="prev"} loads older
+     * history and is absent at the start of the conversation; {@code rel="next"}
+     * returns messages sent after this page.</p>
      */
     @GetMapping("/{id}/messages")
     public ResponseEntity<List<ConversationMessageDTO>> getMessages(
             Authentication auth,
-            @PathVariable String id) {
+            @PathVariable String id,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit) {
         String userId = auth.getName();
-        return ResponseEntity.ok(conversationService.getMessages(id, userId));
+        ConversationMessagePage page = conversationService.getMessages(id, userId, before, after, limit);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getOlderCursor() != null) {
+            headers.add(HttpHeaders.LINK, pageLink(id, "before", page.getOlderCursor(), limit, "prev"));
+        }
+        if (page.getNewerCursor() != null) {
+            headers.add(HttpHeaders.LINK, pageLink(id, "after", page.getNewerCursor(), limit, "next"));
+        }
+        return ResponseEntity.ok().headers(headers).body(page.getMessages());
     }
 
     /**
@@ -101,4 +120,14 @@ public class ConversationController {
         int count = conversationService.getTotalUnreadCount(userId);
         return ResponseEntity.ok(Map.of("count", count));
     }
+
+    private static String pageLink(String conversationId, String param, String cursor, int limit, String rel) {
+        String uri = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/conversations/{id}/messages")
+                .queryParam(param, cursor)
+                .queryParam("limit", limit)
+                .buildAndExpand(conversationId)
+                .toUriString();
+        return "<" + uri + ">; rel=\"" + rel + "\"";
+    }
 }
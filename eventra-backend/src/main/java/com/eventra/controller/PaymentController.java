@@ -38,12 +38,23 @@ public class PaymentController {
     /**
      * Create a Razorpay order for a sponsorship payment.
      * Returns order details needed for the Razorpay checkout widget.
+     *
+     * <p>Retries with the same {@code Idempotency-Key} header are answered by
+     * {@link com.eventra.filter.IdempotencyFilter} with the original response.
+     * The header also serves as the payment's idempotency key when the body has none;
+     * keys are scoped to the paying company, and reusing one for a different sponsorship
+     * request is answered with 409.</p>
      */
     @PostMapping("/order")
     public ResponseEntity<PaymentOrderResponse> createOrder(
             @Valid @RequestBody CreatePaymentOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Authentication authentication) {
 
+        if ((request.getIdempotencyKey() == null || request.getIdempotencyKey().isBlank())
+                && idempotencyKey != null && !idempotencyKey.isBlank()) {
+            request.setIdempotencyKey(idempotencyKey.trim());
+        }
         String userId = authentication.getName();
         PaymentOrderResponse response = paymentService.createOrder(userId, request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
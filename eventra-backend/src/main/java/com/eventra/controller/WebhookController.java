@@ -1,6 +1,5 @@
 package com.eventra.controller;
 
-import com.eventra.infrastructure.IdempotencyService;
 import com.eventra.service.PaymentService;
 import com.eventra.service.RazorpayGatewayService;
 import lombok.RequiredArgsConstructor;
@@ -34,7 +33,6 @@ public class WebhookController {
 
     private final PaymentService paymentService;
     private final RazorpayGatewayService razorpayGateway;
-    private final IdempotencyService idempotencyService;
 
     /**
      * Razorpay webhook endpoint.
@@ -77,8 +75,8 @@ public class WebhookController {
         String eventType = event.optString("event", "unknown");
         String eventId = event.optString("id", ""); // Razorpay event ID
 
-        // 3. Idempotency check — prevent double-processing
-        if (!eventId.isBlank() && !idempotencyService.markWebhookProcessed("event:" + eventId)) {
+        // 3. Idempotency check — prevent double-processing (event ID + payment/refund ID, one Redis call)
+        if (!paymentService.claimWebhookEvent(eventType, event)) {
             log.info("Duplicate webhook event — already processed: eventId={}, type={}", eventId, eventType);
             return ResponseEntity.ok("Already processed");
         }
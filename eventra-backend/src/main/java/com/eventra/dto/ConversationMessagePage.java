@@ -0,0 +1,23 @@
+package com.eventra.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * One keyset page of a conversation's messages, oldest first.
+ *
+ * <p>Cursors are opaque. Pass {@code olderCursor} as {@code before} to load the
+ * previous page; it is null once the start of the conversation is reached. Pass
+ * {@code newerCursor} as {@code after} to catch up on messages sent since; it is
+ * set on every non-empty page, because new messages can arrive at any time.</p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationMessagePage {
+    private List<ConversationMessageDTO> messages;
+    private String olderCursor;
+    private String newerCursor;
+}
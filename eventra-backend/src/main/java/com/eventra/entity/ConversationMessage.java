@@ -16,7 +16,7 @@ import java.time.LocalDateTime;
 
 @Document(collection = "conversation_messages")
 @CompoundIndexes({
-    @CompoundIndex(name = "idx_cmsg_conv_created", def = "{'conversationId': 1, 'createdAt': 1}"),
+    @CompoundIndex(name = "idx_cmsg_conv_created_id", def = "{'conversationId': 1, 'createdAt': 1, '_id': 1}"),
     @CompoundIndex(name = "idx_cmsg_conv_sender_status", def = "{'conversationId': 1, 'senderId': 1, 'status': 1}")
 })
 @Data
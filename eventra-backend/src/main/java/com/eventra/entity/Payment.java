@@ -73,7 +73,10 @@ public class Payment {
 
     // ─── Idempotency ────────────────────────────────
 
-    /** Client-generated idempotency key (UUID v4). Prevents duplicate order creation. */
+    /**
+     * Prevents duplicate order creation: "{companyId}:{client key}" when the client sent
+     * one, otherwise a server-generated UUID.
+     */
     @Indexed(unique = true, sparse = true)
     private String idempotencyKey;
 
@@ -0,0 +1,171 @@
+package com.eventra.filter;
+
+import com.eventra.config.PaymentProperties;
+import com.eventra.infrastructure.DistributedLock;
+import com.eventra.infrastructure.IdempotencyService;
+import com.eventra.infrastructure.IdempotencyService.StoredResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Replays the stored response for a repeated {@code Idempotency-Key} header.
+ *
+ * <h3>Flow (per opted-in route):</h3>
+ * <pre>
+ * GET stored response ──hit──→ replay status + body byte-for-byte (one Redis round trip)
+ *        │ miss
+ *        ▼
+ * tryLock(key, wait 10s) ──timeout──→ 409 (first request still running)
+ *        │ acquired (immediately, or when the first request finished)
+ *        ▼
+ * GET again ──hit──→ replay
+ *        │ miss
+ *        ▼
+ * execute → 2xx response stored for payment.idempotency-key-ttl-hours → release lock (wakes waiters)
+ * </pre>
+ *
+ * <p>Keys are scoped by principal, method and path, so one caller can never
+ * receive another caller's response. Only 2xx responses are stored; a failed
+ * request may be retried with the same key. Requests without the header pass
+ * through and rely on the service-level checks.</p>
+ *
+ * <p>Like all idempotency checks this fails closed: if Redis is unreachable the
+ * request errors instead of risking a second execution.</p>
+ *
+ * <p>Runs after {@link RateLimitFilter}, so replayed duplicates still count
+ * against the caller's quota.</p>
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 20)
+@Slf4j
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /** Routes whose responses are stored and replayed, as "METHOD path" */
+    private static final Set<String> IDEMPOTENT_ROUTES = Set.of("POST /api/payments/order");
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Duration LOCK_LEASE = Duration.ofSeconds(30);
+    /** Covers a slow Razorpay order call on the first request */
+    private static final Duration IN_FLIGHT_WAIT = Duration.ofSeconds(10);
+
+    private final IdempotencyService idempotencyService;
+    private final PaymentProperties paymentProperties;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        return idempotencyKey == null || idempotencyKey.isBlank()
+                || !IDEMPOTENT_ROUTES.contains(request.getMethod() + " " + request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        String key = principal() + ":" + request.getMethod() + ":" + request.getRequestURI() + ":" + idempotencyKey;
+
+        // Fast path: a completed duplicate costs one GET
+        Optional<StoredResponse> stored = idempotencyService.findResponse(key);
+        if (stored.isPresent()) {
+            replay(key, stored.get(), response);
+            return;
+        }
+
+        Optional<DistributedLock> lock = idempotencyService.tryLock("response:" + key, LOCK_LEASE, IN_FLIGHT_WAIT);
+        if (lock.isEmpty()) {
+            log.warn("Idempotent request still in flight after {}s: key={}", IN_FLIGHT_WAIT.toSeconds(), key);
+            writeError(response, HttpServletResponse.SC_CONFLICT,
+                    "A request with this Idempotency-Key is still being processed. Retry shortly.");
+            return;
+        }
+
+        try (DistributedLock ignored = lock.get()) {
+            // The first request may have completed while this one waited
+            stored = idempotencyService.findResponse(key);
+            if (stored.isPresent()) {
+                replay(key, stored.get(), response);
+                return;
+            }
+
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            try {
+                filterChain.doFilter(request, wrapper);
+                if (wrapper.getStatus() >= 200 && wrapper.getStatus() < 300) {
+                    store(key, wrapper);
+                }
+            } finally {
+                wrapper.copyBodyToResponse();
+            }
+        }
+    }
+
+    private void store(String key, ContentCachingResponseWrapper wrapper) {
+        StoredResponse response = new StoredResponse(
+                wrapper.getStatus(), wrapper.getContentType(), wrapper.getContentAsByteArray());
+        try {
+            idempotencyService.storeResponse(key, response,
+                    Duration.ofHours(paymentProperties.getIdempotencyKeyTtlHours()));
+        } catch (Exception e) {
+            // The request already succeeded; a later duplicate falls back to the service-level check
+            log.error("Failed to store idempotent response: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    private void replay(String key, StoredResponse stored, HttpServletResponse response) throws IOException {
+        log.info("Replaying stored response for duplicate request: key={}", key);
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        objectMapper.writeValue(response.getWriter(), Map.of(
+                "timestamp", LocalDateTime.now().toString(),
+                "status", status,
+                "message", message
+        ));
+    }
+
+    private static String principal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.isAuthenticated() ? auth.getName() : "anonymous";
+    }
+}
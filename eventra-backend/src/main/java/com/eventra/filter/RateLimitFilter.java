@@ -1,7 +1,12 @@
 package com.eventra.filter;
 
+import com.eventra.config.RateLimitProperties;
+import com.eventra.entity.Role;
 import com.eventra.infrastructure.DistributedRateLimiter;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitContext;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitDecision;
 import com.eventra.infrastructure.DistributedRateLimiter.RateLimitTier;
+import com.eventra.infrastructure.DistributedRateLimiter.RouteCost;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -9,7 +14,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.Ordered;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
 import org.springframework.core.annotation.Order;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -28,24 +33,33 @@ import java.util.Map;
  *
  * <h3>Throttling strategy:</h3>
  * <ul>
- *   <li><b>Authenticated users</b>: Throttled by User ID (100 req/min default)</li>
- *   <li><b>Admin users</b>: Throttled by User ID (500 req/min)</li>
- *   <li><b>Anonymous requests</b>: Throttled by IP address (30 req/min)</li>
+ *   <li><b>Authenticated users</b>: Throttled by User ID ({@code rate-limit.default.*})</li>
+ *   <li><b>Admin users</b>: Throttled by User ID ({@code rate-limit.admin.*})</li>
+ *   <li><b>Anonymous requests</b>: Throttled by IP address ({@code rate-limit.anonymous.*})</li>
  * </ul>
+ * <p>Capacities and windows are configured in {@link RateLimitProperties}.</p>
  *
  * <h3>Response headers (always set):</h3>
  * <ul>
  *   <li>{@code X-RateLimit-Limit}: Maximum requests per window</li>
  *   <li>{@code X-RateLimit-Remaining}: Remaining requests in current window</li>
- *   <li>{@code X-RateLimit-Reset}: Seconds until the window resets</li>
+ *   <li>{@code X-RateLimit-Reset}: Seconds until the next token frees up</li>
  *   <li>{@code Retry-After}: Seconds to wait (only on 429)</li>
  * </ul>
  *
+ * <p>All header values come from the same Lua execution that consumes the
+ * token, so each request costs exactly one Redis round trip.</p>
+ *
+ * <h3>Route costs:</h3>
+ * <p>Routes listed in {@code rate-limit.routes} consume {@code cost} tokens and may
+ * also charge a dedicated bucket (e.g. {@code ai}). The headers then describe the
+ * most constrained bucket of the request.</p>
+ *
  * <h3>Excluded paths:</h3>
  * <p>Health checks, actuator endpoints, and WebSocket handshake are excluded.</p>
  */
 @Component
-@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 10)
 @Slf4j
 @RequiredArgsConstructor
 public class RateLimitFilter extends OncePerRequestFilter {
@@ -68,25 +82,25 @@ public class RateLimitFilter extends OncePerRequestFilter {
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
 
-        String key = resolveKey(request);
-        RateLimitTier tier = resolveTier();
+        // Resolve identity, tier and spec once for the evaluation and the log line
+        RateLimitContext context = resolveContext(request);
 
-        // Set rate limit headers
-        int capacity = resolveCapacity(tier);
-        long remaining = rateLimiter.getRemainingTokens(key, tier);
+        // Expensive routes may cost several tokens and/or charge a dedicated bucket
+        RouteCost route = rateLimiter.resolveRoute(request.getMethod(), request.getRequestURI());
 
-        response.setIntHeader("X-RateLimit-Limit", capacity);
-        response.setHeader("X-RateLimit-Remaining", String.valueOf(Math.max(0, remaining)));
-        response.setIntHeader("X-RateLimit-Reset", resolveResetSeconds(tier));
+        // Single Redis round trip: consume the tokens and get the resulting quota
+        RateLimitDecision decision = rateLimiter.evaluate(context, route);
+        int resetSeconds = decision.resetSeconds();
 
-        // Try to consume a token
-        if (!rateLimiter.tryConsume(key, tier)) {
-            log.warn("Rate limit exceeded for key={}, tier={}, ip={}",
-                    key, tier, getClientIp(request));
+        response.setIntHeader("X-RateLimit-Limit", decision.limit());
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setIntHeader("X-RateLimit-Reset", resetSeconds);
 
-            int retryAfter = resolveResetSeconds(tier);
-            response.setIntHeader("Retry-After", retryAfter);
-            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE); // 429
+        if (!decision.allowed()) {
+            log.warn("Rate limit exceeded for key={}, tier={}, bucket={}, ip={}",
+                    context.key(), context.tier(), decision.bucket(), getClientIp(request));
+
+            response.setIntHeader("Retry-After", resetSeconds);
             response.setStatus(429);
             response.setContentType("application/json");
 
@@ -94,10 +108,9 @@ public class RateLimitFilter extends OncePerRequestFilter {
                     "timestamp", LocalDateTime.now().toString(),
                     "status", 429,
                     "error", "Too Many Requests",
-                    "message", String.format(
-                            "Rate limit exceeded: %d requests per minute. Retry after %d seconds.",
-                            capacity, retryAfter),
-                    "retryAfter", retryAfter
+                    "message", rejectionMessage(rateLimiter.bucketSpec(context, decision.bucket()), resetSeconds),
+                    "retryAfter", resetSeconds,
+                    "limitedBy", decision.bucket()
             );
 
             objectMapper.writeValue(response.getWriter(), body);
@@ -108,32 +121,50 @@ public class RateLimitFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Resolve rate limit key:
-     * - Authenticated: "user:{userId}"
-     * - Anonymous: "ip:{clientIp}"
+     * Resolve the rate limit context from a single read of the SecurityContext:
+     * - Authenticated: key "user:{userId}", tier ADMIN for ROLE_ADMIN, else DEFAULT
+     * - Anonymous: key "ip:{clientIp}", tier ANONYMOUS
      */
-    private String resolveKey(HttpServletRequest request) {
+    private RateLimitContext resolveContext(HttpServletRequest request) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
-            return "user:" + auth.getPrincipal().toString();
+        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
+            return rateLimiter.resolveContext("ip:" + getClientIp(request), RateLimitTier.ANONYMOUS);
         }
-        return "ip:" + getClientIp(request);
+
+        // Role comes from the token (JwtAuthenticationFilter); lets the account lookup skip Mongo
+        Role role = null;
+        for (GrantedAuthority authority : auth.getAuthorities()) {
+            role = switch (authority.getAuthority()) {
+                case "ROLE_ADMIN" -> Role.ADMIN;
+                case "ROLE_COMPANY" -> Role.COMPANY;
+                case "ROLE_ORGANIZER" -> Role.ORGANIZER;
+                default -> null;
+            };
+            if (role != null) {
+                break;
+            }
+        }
+        RateLimitTier tier = role == Role.ADMIN ? RateLimitTier.ADMIN : RateLimitTier.DEFAULT;
+        return rateLimiter.resolveContext("user:" + auth.getPrincipal(), tier, role);
     }
 
     /**
-     * Resolve rate limit tier based on authenticated user's role.
+     * Client-facing 429 message in terms of the bucket that rejected the request,
+     * e.g. "5 requests per 10 seconds" for a dedicated route bucket.
      */
-    private RateLimitTier resolveTier() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
-            return RateLimitTier.ANONYMOUS;
+    static String rejectionMessage(RateLimitProperties.BucketSpec spec, int resetSeconds) {
+        if (spec == null) {
+            return String.format("Rate limit exceeded. Retry after %d seconds.", resetSeconds);
         }
-
-        boolean isAdmin = auth.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .anyMatch(role -> role.equals("ROLE_ADMIN"));
-
-        return isAdmin ? RateLimitTier.ADMIN : RateLimitTier.DEFAULT;
+        int window = spec.getRefillDuration();
+        String per = switch (window) {
+            case 1 -> "second";
+            case 60 -> "minute";
+            case 3600 -> "hour";
+            default -> window % 60 == 0 ? (window / 60) + " minutes" : window + " seconds";
+        };
+        return String.format("Rate limit exceeded: %d requests per %s. Retry after %d seconds.",
+                spec.getCapacity(), per, resetSeconds);
     }
 
     /**
@@ -152,16 +183,4 @@ public class RateLimitFilter extends OncePerRequestFilter {
         }
         return request.getRemoteAddr();
     }
-
-    private int resolveCapacity(RateLimitTier tier) {
-        return switch (tier) {
-            case ADMIN -> 500;
-            case ANONYMOUS -> 30;
-            default -> 100;
-        };
-    }
-
-    private int resolveResetSeconds(RateLimitTier tier) {
-        return 60; // All tiers use 1-minute windows
-    }
 }
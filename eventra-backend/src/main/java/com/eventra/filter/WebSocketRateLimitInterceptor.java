@@ -0,0 +1,133 @@
+package com.eventra.filter;
+
+import com.eventra.config.RateLimitProperties;
+import com.eventra.infrastructure.DistributedRateLimiter;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitDecision;
+import com.eventra.infrastructure.DistributedRateLimiter.ScopedBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * STOMP inbound rate limiter for client-to-server chat frames.
+ *
+ * <p>{@link RateLimitFilter} skips {@code /ws}, so without this a single socket can
+ * push unlimited {@code SEND} frames, each costing several Mongo writes.</p>
+ *
+ * <h3>Limits ({@code rate-limit.websocket.*} → {@code rate-limit.buckets.*}):</h3>
+ * <ul>
+ *   <li><b>/app/chat.send</b> — per-session and per-user buckets, charged together in
+ *       one Redis call via {@link DistributedRateLimiter#evaluateBuckets}. Excess frames
+ *       are answered with a STOMP ERROR frame or dropped ({@code send-reject-mode}).</li>
+ *   <li><b>/app/chat.typing</b> — per-session bucket checked on this JVM only; excess
+ *       indicators are dropped silently (they are idempotent and ephemeral).</li>
+ * </ul>
+ *
+ * <h3>Metrics:</h3>
+ * <ul>
+ *   <li>{@code eventra.ws.ratelimit.rejected{destination, bucket, action}}</li>
+ * </ul>
+ * <p>Rejections are logged at debug only: a flooding client hits the limit on every
+ * frame, and the counter already records each one.</p>
+ *
+ * <p>Registered in {@link com.eventra.config.WebSocketAuthConfig} after the auth
+ * interceptor, so unauthenticated SENDs are refused before any bucket is touched.</p>
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class WebSocketRateLimitInterceptor implements ChannelInterceptor {
+
+    static final String CHAT_SEND = "/app/chat.send";
+    static final String CHAT_TYPING = "/app/chat.typing";
+
+    private final DistributedRateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // A flooding client is rejected on every frame; register each tag combination once
+    private final ConcurrentMap<String, Counter> rejectionCounters = new ConcurrentHashMap<>();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor =
+                MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+
+        if (accessor == null || accessor.getCommand() != StompCommand.SEND) return message;
+
+        String destination = accessor.getDestination();
+        if (destination == null) return message;
+
+        RateLimitProperties.Websocket config = properties.getWebsocket();
+        String owner = resolveOwner(accessor);
+        String sessionId = accessor.getSessionId();
+
+        if (CHAT_TYPING.equals(destination)) {
+            if (!rateLimiter.tryConsumeLocal(owner, new ScopedBucket(config.getTypingBucket(), sessionId))) {
+                reject(destination, config.getTypingBucket(), RateLimitProperties.RejectMode.DROP);
+                return null;
+            }
+            return message;
+        }
+
+        if (CHAT_SEND.equals(destination)) {
+            RateLimitDecision decision = rateLimiter.evaluateBuckets(owner, List.of(
+                    new ScopedBucket(config.getSendSessionBucket(), sessionId),
+                    ScopedBucket.of(config.getSendUserBucket())));
+            if (!decision.allowed()) {
+                log.debug("WebSocket rate limit exceeded for owner={}, session={}, bucket={}",
+                        owner, sessionId, decision.bucket());
+                reject(destination, decision.bucket(), config.getSendRejectMode());
+                if (config.getSendRejectMode() == RateLimitProperties.RejectMode.ERROR) {
+                    // StompSubProtocolHandler turns this into an ERROR frame for the client
+                    throw new MessageDeliveryException(message, String.format(
+                            "Rate limit exceeded: %d messages. Retry after %d seconds.",
+                            decision.limit(), decision.resetSeconds()));
+                }
+                return null;
+            }
+        }
+
+        return message;
+    }
+
+    /**
+     * Bucket owner: "ws:user:{userId}", or "ws:session:{sessionId}" if no principal is attached.
+     */
+    private String resolveOwner(StompHeaderAccessor accessor) {
+        Principal principal = accessor.getUser();
+        if (principal != null) {
+            return "ws:user:" + principal.getName();
+        }
+        return "ws:session:" + accessor.getSessionId();
+    }
+
+    private void reject(String destination, String bucket, RateLimitProperties.RejectMode mode) {
+        String bucketTag = bucket != null ? bucket : "unknown";
+        String key = destination + '|' + bucketTag + '|' + mode;
+        Counter counter = rejectionCounters.get(key);
+        if (counter == null) {
+            counter = rejectionCounters.computeIfAbsent(key, k -> Counter.builder("eventra.ws.ratelimit.rejected")
+                    .description("STOMP frames rejected by the WebSocket rate limiter")
+                    .tag("destination", destination)
+                    .tag("bucket", bucketTag)
+                    .tag("action", mode.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        counter.increment();
+    }
+}
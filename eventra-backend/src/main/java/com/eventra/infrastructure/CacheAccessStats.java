@@ -0,0 +1,133 @@
+package com.eventra.infrastructure;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Approximate per-key read counts for selected caches, shared across nodes.
+ *
+ * <h3>How it works:</h3>
+ * <pre>
+ * read:  record("sponsor-detail", "c42")  → local LongAdder, no I/O
+ * flush: every stats-flush-interval, one pipeline of
+ *        ZINCRBY eventra:cache:access:{cache}:{yyyyMMdd} n key   (+ EXPIRE 2d, trim to top 5000)
+ * top:   today's and yesterday's sets merged → most-read keys first
+ * </pre>
+ *
+ * <p>Daily sets let old favourites age out within two days. Counts are best-effort:
+ * increments racing a flush, or beyond the per-flush key bound, are dropped, and a
+ * failed flush is not retried.</p>
+ */
+@Component
+@Slf4j
+public class CacheAccessStats {
+
+    private static final String ACCESS_PREFIX = "eventra:cache:access:";
+    private static final Duration RETENTION = Duration.ofDays(2);
+    /** Keys kept per cache per day; the long tail is trimmed on flush */
+    private static final int MAX_TRACKED_KEYS = 5_000;
+    /** Distinct keys buffered per cache between flushes */
+    private static final int MAX_PENDING_KEYS = 10_000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> pending = new ConcurrentHashMap<>();
+
+    public CacheAccessStats(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /** Count one read of {@code key} in {@code cacheName}. No network I/O. */
+    public void record(String cacheName, String key) {
+        ConcurrentMap<String, LongAdder> counts = pending.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>());
+        LongAdder count = counts.get(key);
+        if (count == null) {
+            if (counts.size() >= MAX_PENDING_KEYS) {
+                return;
+            }
+            count = counts.computeIfAbsent(key, k -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /** Push buffered counts for every cache in one pipelined round trip */
+    @Scheduled(fixedDelayString = "${cache.warmup.stats-flush-interval:30s}")
+    public void flush() {
+        Map<String, Map<String, Long>> batch = new HashMap<>();
+        for (String cacheName : List.copyOf(pending.keySet())) {
+            ConcurrentMap<String, LongAdder> counts = pending.remove(cacheName);
+            if (counts != null && !counts.isEmpty()) {
+                Map<String, Long> drained = new HashMap<>();
+                counts.forEach((key, count) -> drained.put(key, count.sum()));
+                batch.put(cacheName, drained);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                batch.forEach((cacheName, counts) -> {
+                    byte[] statsKey = statsKey(cacheName, today).getBytes(StandardCharsets.UTF_8);
+                    counts.forEach((key, count) -> connection.zSetCommands()
+                            .zIncrBy(statsKey, count, key.getBytes(StandardCharsets.UTF_8)));
+                    connection.keyCommands().expire(statsKey, RETENTION.toSeconds());
+                    connection.zSetCommands().zRemRange(statsKey, 0, -(MAX_TRACKED_KEYS + 1));
+                });
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Cache access stats flush failed, dropping {} caches' counts: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Most-read keys of a cache over today and yesterday, most-read first.
+     *
+     * @throws org.springframework.dao.DataAccessException if Redis is unreachable
+     */
+    public List<String> top(String cacheName, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Map<String, Double> merged = new HashMap<>();
+        for (LocalDate day : List.of(today, today.minusDays(1))) {
+            Set<ZSetOperations.TypedTuple<String>> entries =
+                    redisTemplate.opsForZSet().reverseRangeWithScores(statsKey(cacheName, day), 0, limit - 1);
+            if (entries != null) {
+                for (ZSetOperations.TypedTuple<String> entry : entries) {
+                    if (entry.getValue() != null && entry.getScore() != null) {
+                        merged.merge(entry.getValue(), entry.getScore(), Double::sum);
+                    }
+                }
+            }
+        }
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(merged.entrySet());
+        ranked.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        return ranked.stream().limit(limit).map(Map.Entry::getKey).toList();
+    }
+
+    private static String statsKey(String cacheName, LocalDate day) {
+        return ACCESS_PREFIX + cacheName + ":" + day.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+}
@@ -0,0 +1,75 @@
+package com.eventra.infrastructure;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Generation counters for tag-based cache invalidation.
+ *
+ * <h3>How it works:</h3>
+ * <pre>
+ * read:  key = query + "|g" + stamp("sponsors", [industry:Tech])    → "...|g7"
+ * write: bump("sponsors", [all, industry:Tech, location:Pune])       → INCR each tag
+ * next read stamps "...|g8" → miss → recompute; the "g7" entry is never read again
+ * </pre>
+ *
+ * <p>Invalidating a tag is one {@code INCR} instead of a {@code SCAN}+{@code DEL} over the
+ * cache namespace, and entries under untouched tags stay warm. Orphaned entries
+ * expire through the cache TTL.</p>
+ *
+ * <p>Counters live at {@code eventra:cache:gen:{namespace}:{tag}} without a TTL; a
+ * missing counter reads as generation 0.</p>
+ */
+@Component
+@Slf4j
+public class CacheGenerations {
+
+    private static final String GENERATION_PREFIX = "eventra:cache:gen:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public CacheGenerations(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Current generations of the given tags in one {@code MGET}, joined for use in a
+     * cache key (e.g. {@code "7.0"}). Changes whenever any of the tags is bumped.
+     */
+    public String stamp(String namespace, List<String> tags) {
+        List<String> generations = redisTemplate.opsForValue().multiGet(
+                tags.stream().map(tag -> generationKey(namespace, tag)).toList());
+        if (generations == null) {
+            return "0";
+        }
+        return generations.stream()
+                .map(generation -> generation != null ? generation : "0")
+                .collect(Collectors.joining("."));
+    }
+
+    /**
+     * Invalidate every entry stamped with any of the tags, in one pipelined round trip.
+     */
+    public void bump(String namespace, Collection<String> tags) {
+        Collection<String> distinct = new LinkedHashSet<>(tags);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String tag : distinct) {
+                connection.stringCommands().incr(generationKey(namespace, tag).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        log.debug("Cache generations bumped: namespace={}, tags={}", namespace, distinct);
+    }
+
+    private static String generationKey(String namespace, String tag) {
+        return GENERATION_PREFIX + namespace + ":" + tag;
+    }
+}
@@ -0,0 +1,91 @@
+package com.eventra.infrastructure;
+
+import com.eventra.config.CacheMetricsProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sampled per-key read counts for the cache top-keys report.
+ *
+ * <p>Each read is sampled with probability {@code cache.metrics.key-sample-rate}, so the
+ * hot path costs one random draw for most reads. Counts are per JVM and since the last
+ * {@link #reset()}; estimates are sampled counts divided by the rate. When a cache
+ * exceeds {@code max-sampled-keys} distinct keys, the least-read half is dropped, so
+ * keys that stay hot survive while one-off keys cycle out.</p>
+ */
+@Component
+public class CacheKeySampler {
+
+    private final double sampleRate;
+    private final int maxKeys;
+    private final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> samples = new ConcurrentHashMap<>();
+    private volatile Instant since = Instant.now();
+
+    public CacheKeySampler(CacheMetricsProperties properties) {
+        this.sampleRate = properties.getKeySampleRate();
+        this.maxKeys = Math.max(2, properties.getMaxSampledKeys());
+    }
+
+    /** Possibly count one read of {@code key} in {@code cacheName} */
+    public void sample(String cacheName, Object key) {
+        if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        ConcurrentMap<String, LongAdder> counts = samples.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>());
+        counts.computeIfAbsent(String.valueOf(key), k -> new LongAdder()).increment();
+        if (counts.size() > maxKeys) {
+            prune(counts);
+        }
+    }
+
+    /** Most-sampled keys per cache (all caches when {@code cacheName} is null), most-read first */
+    public TopKeysReport top(String cacheName, int limit) {
+        Map<String, List<KeyCount>> byCache = new TreeMap<>();
+        samples.forEach((name, counts) -> {
+            if (cacheName == null || cacheName.equals(name)) {
+                byCache.put(name, counts.entrySet().stream()
+                        .map(e -> new KeyCount(e.getKey(), e.getValue().sum(),
+                                Math.round(e.getValue().sum() / sampleRate)))
+                        .sorted(Comparator.comparingLong(KeyCount::sampled).reversed())
+                        .limit(limit)
+                        .toList());
+            }
+        });
+        return new TopKeysReport(since, sampleRate, byCache);
+    }
+
+    /** Drop all samples and start a new window */
+    public void reset() {
+        samples.clear();
+        since = Instant.now();
+    }
+
+    private synchronized void prune(ConcurrentMap<String, LongAdder> counts) {
+        if (counts.size() <= maxKeys) {
+            return; // another thread pruned first
+        }
+        List<Map.Entry<String, LongAdder>> ranked = new ArrayList<>(counts.entrySet());
+        ranked.sort(Comparator.comparingLong(e -> e.getValue().sum()));
+        ranked.subList(0, ranked.size() / 2).forEach(e -> counts.remove(e.getKey(), e.getValue()));
+    }
+
+    /**
+     * @param sampled   reads of this key that were sampled
+     * @param estimated {@code sampled / sampleRate}
+     */
+    public record KeyCount(String key, long sampled, long estimated) {
+    }
+
+    public record TopKeysReport(Instant since, double sampleRate, Map<String, List<KeyCount>> caches) {
+    }
+}
@@ -0,0 +1,143 @@
+package com.eventra.infrastructure;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Versioned binary encoding for Redis cache values.
+ *
+ * <h3>Layout:</h3>
+ * <pre>
+ * [0xE5][version=1][codec=0] smile bytes
+ * [0xE5][version=1][codec=1] [original length: int32] lz4 block
+ * anything else              legacy JSON, decoded by the JSON serializer
+ * </pre>
+ *
+ * <p>The Smile mapper carries the same configuration as the JSON one (default typing,
+ * field visibility, JavaTime), so every type that caches as JSON caches as Smile.
+ * Smile back-references repeated property names and short strings such as type ids,
+ * which is most of the JSON overhead on lists of DTOs.</p>
+ *
+ * <p>Entries with an unknown version (written by a newer node) read as a cache miss
+ * rather than an error, so mixed-version clusters recompute instead of failing.</p>
+ */
+@Slf4j
+public class CacheValueSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xE5;
+    static final byte VERSION = 1;
+    static final byte CODEC_PLAIN = 0;
+    static final byte CODEC_LZ4 = 1;
+    private static final int HEADER_LENGTH = 3;
+    private static final int LZ4_LENGTH_PREFIX = Integer.BYTES;
+
+    private final ObjectMapper smileMapper;
+    private final RedisSerializer<Object> jsonSerializer;
+    private final boolean writeSmile;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    /**
+     * @param writeSmile           false keeps writing JSON while still reading Smile entries
+     * @param compressionThreshold minimum Smile payload size to try LZ4 on; 0 disables it
+     */
+    public CacheValueSerializer(ObjectMapper smileMapper, RedisSerializer<Object> jsonSerializer,
+                                boolean writeSmile, int compressionThreshold) {
+        this.smileMapper = smileMapper;
+        this.jsonSerializer = jsonSerializer;
+        this.writeSmile = writeSmile;
+        this.compressionThreshold = compressionThreshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (!writeSmile) {
+            return jsonSerializer.serialize(value);
+        }
+        byte[] smile;
+        try {
+            smile = smileMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write Smile: " + e.getMessage(), e);
+        }
+        if (compressionThreshold > 0 && smile.length >= compressionThreshold) {
+            byte[] compressed = compress(smile);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        byte[] out = new byte[HEADER_LENGTH + smile.length];
+        writeHeader(out, CODEC_PLAIN);
+        System.arraycopy(smile, 0, out, HEADER_LENGTH, smile.length);
+        return out;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH || bytes[1] != VERSION) {
+            log.debug("Unknown cache value encoding, treating as miss: version={}", bytes.length > 1 ? bytes[1] : -1);
+            return null;
+        }
+        try {
+            return switch (bytes[2]) {
+                case CODEC_PLAIN -> smileMapper.readValue(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, Object.class);
+                case CODEC_LZ4 -> smileMapper.readValue(decompress(bytes), Object.class);
+                default -> {
+                    log.debug("Unknown cache value codec, treating as miss: codec={}", bytes[2]);
+                    yield null;
+                }
+            };
+        } catch (IOException | LZ4Exception e) {
+            throw new SerializationException("Could not read Smile: " + e.getMessage(), e);
+        }
+    }
+
+    /** @return the framed LZ4 block, or null when it would not be smaller */
+    private byte[] compress(byte[] smile) {
+        int offset = HEADER_LENGTH + LZ4_LENGTH_PREFIX;
+        byte[] out = new byte[offset + compressor.maxCompressedLength(smile.length)];
+        int compressedLength = compressor.compress(smile, 0, smile.length, out, offset);
+        if (offset + compressedLength >= HEADER_LENGTH + smile.length) {
+            return null;
+        }
+        writeHeader(out, CODEC_LZ4);
+        ByteBuffer.wrap(out, HEADER_LENGTH, LZ4_LENGTH_PREFIX).putInt(smile.length);
+        return Arrays.copyOf(out, offset + compressedLength);
+    }
+
+    private byte[] decompress(byte[] bytes) {
+        int originalLength = ByteBuffer.wrap(bytes, HEADER_LENGTH, LZ4_LENGTH_PREFIX).getInt();
+        byte[] smile = new byte[originalLength];
+        decompressor.decompress(bytes, HEADER_LENGTH + LZ4_LENGTH_PREFIX, smile, 0, originalLength);
+        return smile;
+    }
+
+    private static void writeHeader(byte[] out, byte codec) {
+        out[0] = MAGIC;
+        out[1] = VERSION;
+        out[2] = codec;
+    }
+}
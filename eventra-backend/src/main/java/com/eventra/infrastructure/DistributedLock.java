@@ -0,0 +1,96 @@
+package com.eventra.infrastructure;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handle for a lock acquired through {@link IdempotencyService#tryLock}.
+ *
+ * <p>While open, a watchdog renews the lease every third of its duration, so a
+ * critical section may outlive the initial lease (e.g. a slow Razorpay call).
+ * Use with try-with-resources; {@link #close()} stops renewal and releases the
+ * lock only if this handle still owns it.</p>
+ *
+ * <h3>Fencing:</h3>
+ * <p>{@link #fencingToken()} increases monotonically per lock key. A resource that
+ * remembers the highest token it has seen can reject writes from a holder whose
+ * lease already expired (GC pause, network partition). Call {@link #assertHeld()}
+ * before irreversible steps to fail fast when the watchdog has lost the lease.</p>
+ */
+public class DistributedLock implements AutoCloseable {
+
+    private final IdempotencyService owner;
+    private final String key;
+    private final String ownerId;
+    private final long fencingToken;
+    private final AtomicBoolean held = new AtomicBoolean(true);
+    private volatile ScheduledFuture<?> renewal;
+    private volatile long leaseExpiresAt;
+
+    DistributedLock(IdempotencyService owner, String key, String ownerId, long fencingToken, long leaseExpiresAt) {
+        this.owner = owner;
+        this.key = key;
+        this.ownerId = ownerId;
+        this.fencingToken = fencingToken;
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    /** Lock identifier as passed to {@link IdempotencyService#tryLock} */
+    public String key() {
+        return key;
+    }
+
+    /** Monotonic per-key token issued at acquisition */
+    public long fencingToken() {
+        return fencingToken;
+    }
+
+    /**
+     * False once released, once the watchdog found the lease taken over, or once the
+     * last confirmed lease has run out (e.g. renewals failing while Redis is unreachable)
+     */
+    public boolean isHeld() {
+        return held.get() && System.currentTimeMillis() < leaseExpiresAt;
+    }
+
+    /**
+     * @throws IllegalStateException if the lease is known to be lost
+     */
+    public void assertHeld() {
+        if (!isHeld()) {
+            throw new IllegalStateException("Lock lease lost: key=" + key + ", fencingToken=" + fencingToken);
+        }
+    }
+
+    @Override
+    public void close() {
+        stopRenewal();
+        if (held.getAndSet(false)) {
+            owner.release(this);
+        }
+    }
+
+    String ownerId() {
+        return ownerId;
+    }
+
+    void leaseExtended(long expiresAt) {
+        this.leaseExpiresAt = expiresAt;
+    }
+
+    void startRenewal(ScheduledFuture<?> renewal) {
+        this.renewal = renewal;
+    }
+
+    void markLost() {
+        held.set(false);
+        stopRenewal();
+    }
+
+    private void stopRenewal() {
+        ScheduledFuture<?> task = renewal;
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+}
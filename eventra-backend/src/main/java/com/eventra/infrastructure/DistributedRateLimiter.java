@@ -1,13 +1,26 @@
 package com.eventra.infrastructure;
 
 import com.eventra.config.RateLimitProperties;
-import lombok.RequiredArgsConstructor;
+import com.eventra.entity.Role;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.server.PathContainer;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -24,63 +37,305 @@ import java.util.concurrent.atomic.AtomicLong;
  * </pre>
  *
  * <h3>Local bucket (Tier 1):</h3>
- * <p>Self-contained token bucket implementation using greedy refill.
+ * <p>Self-contained token bucket implementation (single-long GCRA, one CAS per admit).
  * Provides sub-microsecond rejection for obvious over-limit clients
- * without hitting Redis. Each JVM instance maintains its own local state.</p>
+ * without hitting Redis. Each JVM instance maintains its own local state,
+ * held in a size-bounded, idle-expiring Caffeine cache
+ * ({@code rate-limit.local-cache.*}). An evicted bucket is simply recreated
+ * full; Redis remains the source of truth.</p>
  *
  * <h3>Redis sliding window (Tier 2):</h3>
  * <p>Atomic Lua script using sorted sets for precise cross-instance rate tracking.
- * Entries auto-expire via PEXPIRE. This is the same algorithm used by
+ * Entries auto-expire via PEXPIRE. The script is preloaded at startup and
+ * invoked by SHA through {@link RedisScriptExecutor}. This is the same algorithm used by
  * Stripe, GitHub, and Cloudflare for production rate limiting.</p>
  *
+ * <h3>Algorithms ({@code rate-limit.algorithm}):</h3>
+ * <ul>
+ *   <li><b>sliding-log</b> — sorted set, one member per request; exact but O(capacity) memory per key</li>
+ *   <li><b>gcra</b> — single timestamp per key; token bucket semantics, O(1) memory</li>
+ *   <li><b>sliding-window-counter</b> — two integer counters per key; weighted approximation</li>
+ * </ul>
+ * <p>All three return the same {allowed, remaining, reset-at} triple.</p>
+ *
+ * <h3>Sync modes ({@code rate-limit.<tier>.sync-mode}):</h3>
+ * <ul>
+ *   <li><b>sync</b> — every admitted request runs the Redis script (exact, one round trip)</li>
+ *   <li><b>async</b> — admit from local state, batch deltas to Redis every
+ *       {@code rate-limit.async.flush-interval}; see {@link RateLimitSynchronizer}
+ *       for the over-admission bound</li>
+ * </ul>
+ *
+ * <h3>Route costs ({@code rate-limit.routes}):</h3>
+ * <p>Expensive routes can charge more than one token and/or a dedicated bucket
+ * ({@code rate-limit.buckets.<name>}) on top of the tier bucket. All buckets of a
+ * request are checked and charged atomically in the same script execution.</p>
+ *
+ * <h3>Hierarchical limits:</h3>
+ * <p>Dedicated buckets carry a {@link RateLimitProperties.Scope}: per caller, per
+ * company/organizer account ({@link RateLimitAccountResolver}) or platform-wide.
+ * A route can chain all three (user → account → global); the chain is checked in
+ * the same script execution and the rejecting level is reported in
+ * {@link RateLimitDecision#bucket()} and {@code eventra.ratelimit.rejected{bucket,scope}}.</p>
+ *
+ * <h3>Redis topology: Redis Cluster is not supported</h3>
+ * <p>One evaluation may touch a caller key, an account key and a platform-wide key,
+ * and no single hash tag can put a global key in every caller's slot. The limiter
+ * therefore runs against standalone or Sentinel Redis (as deployed); account and
+ * global keys carry no hash tag.</p>
+ *
  * <h3>Failure mode: fail-open</h3>
  * <p>If Redis is unavailable, requests are allowed through. This prevents
  * a Redis outage from taking down the entire API.</p>
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class DistributedRateLimiter {
 
-    private final StringRedisTemplate redisTemplate;
+    private final RedisScriptExecutor scriptExecutor;
+    private final RateLimitSynchronizer synchronizer;
     private final RateLimitProperties properties;
+    private final RateLimitAccountResolver accountResolver;
+    private final MeterRegistry meterRegistry;
+
+    // Preloaded once, invoked by SHA (EVALSHA) on every request
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> slidingWindowScript;
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> gcraScript;
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> windowCounterScript;
 
-    // Local fast-path buckets (lightweight first-level defense per JVM)
-    private final ConcurrentHashMap<String, LocalTokenBucket> localBuckets = new ConcurrentHashMap<>();
+    // Local fast-path buckets (lightweight first-level defense per JVM).
+    // Size-bounded (W-TinyLFU) and idle-expiring so rotating anonymous IPs cannot grow the heap.
+    private final Cache<String, LocalTokenBucket> localBuckets;
+
+    // Route cost rules compiled once from rate-limit.routes (first match wins)
+    private final List<CompiledRoute> routes;
+
+    // Rejections peak while the node is flooded; register each (bucket, scope) counter once
+    private final ConcurrentMap<String, Counter> rejectionCounters = new ConcurrentHashMap<>();
 
     private static final String RATE_LIMIT_KEY_PREFIX = "eventra:ratelimit:";
 
-    /**
-     * Atomic Lua script implementing sliding window counter via Redis sorted sets.
+    /*
+     * All scripts evaluate a list of buckets atomically: every bucket must have
+     * room for {@code cost} tokens or nothing is consumed. This is how a route's
+     * dedicated bucket (e.g. "ai") is enforced in the same call as the tier bucket.
+     * Keys of one evaluation may span caller, account and global levels, which no
+     * hash tag can co-locate; Redis Cluster is unsupported (see the class doc).
      *
-     * KEYS[1] = rate limit key
-     * ARGV[1] = max tokens (capacity)
-     * ARGV[2] = window size in milliseconds
-     * ARGV[3] = current timestamp in milliseconds
-     * ARGV[4] = unique request ID
+     * Returns: {allowed (1/0), remaining tokens, reset-at epoch millis, bucket index}
+     *   bucket index = 1-based index of the first rejecting bucket, or of the most
+     *   constrained bucket when allowed.
+     */
+
+    /**
+     * Sliding log via Redis sorted sets — one member per consumed token.
      *
-     * Returns: remaining tokens (negative = rate limited)
+     * KEYS[i]       = sorted set per bucket
+     * ARGV[1]       = current timestamp in milliseconds
+     * ARGV[2]       = cost (tokens to consume)
+     * ARGV[3]       = unique request ID
+     * ARGV[2+2i]    = capacity of bucket i
+     * ARGV[3+2i]    = window size in milliseconds of bucket i
      */
     private static final String SLIDING_WINDOW_SCRIPT =
             """
-            local key = KEYS[1]
-            local capacity = tonumber(ARGV[1])
-            local windowMs = tonumber(ARGV[2])
-            local now = tonumber(ARGV[3])
-            local requestId = ARGV[4]
-            local windowStart = now - windowMs
-            redis.call('ZREMRANGEBYSCORE', key, '-inf', windowStart)
-            local currentCount = redis.call('ZCARD', key)
-            if currentCount < capacity then
-                redis.call('ZADD', key, now, requestId)
-                redis.call('PEXPIRE', key, windowMs)
-                return capacity - currentCount - 1
-            else
-                redis.call('PEXPIRE', key, windowMs)
-                return -1
+            local now = tonumber(ARGV[1])
+            local cost = tonumber(ARGV[2])
+            local requestId = ARGV[3]
+            local counts = {}
+            local rejected = 0
+            local retryAt = 0
+            for i = 1, #KEYS do
+                local capacity = tonumber(ARGV[2 + i * 2])
+                local windowMs = tonumber(ARGV[3 + i * 2])
+                redis.call('ZREMRANGEBYSCORE', KEYS[i], '-inf', now - windowMs)
+                local count = redis.call('ZCARD', KEYS[i])
+                counts[i] = count
+                if count + cost > capacity then
+                    if rejected == 0 then
+                        rejected = i
+                    end
+                    local freeAt = now + windowMs
+                    local excess = count + cost - capacity
+                    if excess <= count then
+                        local entry = redis.call('ZRANGE', KEYS[i], excess - 1, excess - 1, 'WITHSCORES')
+                        if entry[2] then
+                            freeAt = tonumber(entry[2]) + windowMs
+                        end
+                    end
+                    if freeAt > retryAt then
+                        retryAt = freeAt
+                    end
+                end
+            end
+            if rejected > 0 then
+                return {0, 0, retryAt, rejected}
+            end
+            local remaining = -1
+            local resetAt = 0
+            local bucket = 1
+            for i = 1, #KEYS do
+                local capacity = tonumber(ARGV[2 + i * 2])
+                local windowMs = tonumber(ARGV[3 + i * 2])
+                for j = 1, cost do
+                    redis.call('ZADD', KEYS[i], now, requestId .. ':' .. j)
+                end
+                redis.call('PEXPIRE', KEYS[i], windowMs)
+                local left = capacity - counts[i] - cost
+                if remaining < 0 or left < remaining then
+                    remaining = left
+                    bucket = i
+                    local oldest = redis.call('ZRANGE', KEYS[i], 0, 0, 'WITHSCORES')
+                    resetAt = tonumber(oldest[2]) + windowMs
+                end
+            end
+            return {1, remaining, resetAt, bucket}
+            """;
+
+    /**
+     * GCRA (generic cell rate algorithm) — token bucket semantics with a single
+     * "theoretical arrival time" (TAT) string per key, so memory is O(1) per key
+     * regardless of capacity.
+     *
+     * KEYS[i]       = TAT key per bucket
+     * ARGV[1]       = current timestamp in milliseconds
+     * ARGV[2]       = cost (tokens to consume)
+     * ARGV[1+2i]    = capacity (burst) of bucket i
+     * ARGV[2+2i]    = emission interval in milliseconds of bucket i (one token every N ms)
+     */
+    private static final String GCRA_SCRIPT =
+            """
+            local now = tonumber(ARGV[1])
+            local cost = tonumber(ARGV[2])
+            local newTats = {}
+            local rejected = 0
+            local retryAt = 0
+            local remaining = -1
+            local resetAt = 0
+            local bucket = 1
+            for i = 1, #KEYS do
+                local capacity = tonumber(ARGV[1 + i * 2])
+                local emissionMs = tonumber(ARGV[2 + i * 2])
+                local burstMs = emissionMs * capacity
+                local tat = tonumber(redis.call('GET', KEYS[i]) or now)
+                if tat < now then
+                    tat = now
+                end
+                local newTat = tat + emissionMs * cost
+                local allowAt = newTat - burstMs
+                if allowAt > now then
+                    if rejected == 0 then
+                        rejected = i
+                    end
+                    if allowAt > retryAt then
+                        retryAt = allowAt
+                    end
+                else
+                    newTats[i] = newTat
+                    local left = math.floor((now + burstMs - newTat) / emissionMs)
+                    if remaining < 0 or left < remaining then
+                        remaining = left
+                        bucket = i
+                        resetAt = newTat - burstMs + (left + 1) * emissionMs
+                    end
+                end
+            end
+            if rejected > 0 then
+                return {0, 0, retryAt, rejected}
+            end
+            for i = 1, #KEYS do
+                redis.call('SET', KEYS[i], newTats[i], 'PX', newTats[i] - now)
             end
+            return {1, remaining, resetAt, bucket}
             """;
 
+    /**
+     * Two-bucket sliding window counter — approximates a sliding window by
+     * weighting the previous fixed window's count by its remaining overlap.
+     * Two integer counters per key instead of one sorted-set member per request.
+     *
+     * KEYS[2i-1]    = current window counter of bucket i
+     * KEYS[2i]      = previous window counter of bucket i
+     * ARGV[1]       = current timestamp in milliseconds
+     * ARGV[2]       = cost (tokens to consume)
+     * ARGV[3i]      = capacity of bucket i
+     * ARGV[3i+1]    = window size in milliseconds of bucket i
+     * ARGV[3i+2]    = current window start in milliseconds of bucket i
+     */
+    private static final String WINDOW_COUNTER_SCRIPT =
+            """
+            local now = tonumber(ARGV[1])
+            local cost = tonumber(ARGV[2])
+            local estimates = {}
+            local rejected = 0
+            local retryAt = 0
+            for i = 1, #KEYS / 2 do
+                local capacity = tonumber(ARGV[i * 3])
+                local windowMs = tonumber(ARGV[i * 3 + 1])
+                local windowStart = tonumber(ARGV[i * 3 + 2])
+                local current = tonumber(redis.call('GET', KEYS[i * 2 - 1]) or '0')
+                local previous = tonumber(redis.call('GET', KEYS[i * 2]) or '0')
+                local weight = (windowMs - (now - windowStart)) / windowMs
+                local estimated = math.floor(previous * weight) + current
+                estimates[i] = estimated
+                if estimated + cost > capacity then
+                    if rejected == 0 then
+                        rejected = i
+                    end
+                    local freeAt = windowStart + windowMs
+                    local room = capacity - current - cost + 1
+                    if room > 0 and previous > 0 then
+                        freeAt = windowStart + math.ceil(windowMs * (1 - room / previous)) + 1
+                    end
+                    if freeAt > retryAt then
+                        retryAt = freeAt
+                    end
+                end
+            end
+            if rejected > 0 then
+                return {0, 0, retryAt, rejected}
+            end
+            local remaining = -1
+            local resetAt = 0
+            local bucket = 1
+            for i = 1, #KEYS / 2 do
+                local capacity = tonumber(ARGV[i * 3])
+                local windowMs = tonumber(ARGV[i * 3 + 1])
+                local windowStart = tonumber(ARGV[i * 3 + 2])
+                local current = redis.call('INCRBY', KEYS[i * 2 - 1], cost)
+                if current == cost then
+                    redis.call('PEXPIRE', KEYS[i * 2 - 1], windowMs * 2)
+                end
+                local left = capacity - estimates[i] - cost
+                if remaining < 0 or left < remaining then
+                    remaining = left
+                    bucket = i
+                    resetAt = windowStart + windowMs
+                end
+            end
+            return {1, remaining, resetAt, bucket}
+            """;
+
+    public DistributedRateLimiter(RedisScriptExecutor scriptExecutor,
+                                  RateLimitSynchronizer synchronizer,
+                                  RateLimitAccountResolver accountResolver,
+                                  RateLimitProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.scriptExecutor = scriptExecutor;
+        this.synchronizer = synchronizer;
+        this.accountResolver = accountResolver;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.localBuckets = buildLocalBucketCache(properties.getLocalCache(), meterRegistry);
+        this.routes = compileRoutes(properties.getRoutes());
+        this.slidingWindowScript = scriptExecutor.register("ratelimit-sliding-window", SLIDING_WINDOW_SCRIPT, List.class);
+        this.gcraScript = scriptExecutor.register("ratelimit-gcra", GCRA_SCRIPT, List.class);
+        this.windowCounterScript = scriptExecutor.register("ratelimit-window-counter", WINDOW_COUNTER_SCRIPT, List.class);
+    }
+
     /**
      * Check if a request is allowed under the rate limit.
      *
@@ -89,60 +344,355 @@ public class DistributedRateLimiter {
      * @return true if the request is allowed
      */
     public boolean tryConsume(String key, RateLimitTier tier) {
-        RateLimitProperties.BucketSpec spec = resolveSpec(tier);
-        String redisKey = RATE_LIMIT_KEY_PREFIX + tier.name().toLowerCase() + ":" + key;
+        return evaluate(key, tier).allowed();
+    }
+
+    /**
+     * Consume one token from the tier bucket. See {@link #evaluate(String, RateLimitTier, RouteCost)}.
+     */
+    public RateLimitDecision evaluate(String key, RateLimitTier tier) {
+        return evaluate(key, tier, RouteCost.DEFAULT);
+    }
+
+    /**
+     * Resolve the cost rule for a request from {@code rate-limit.routes}.
+     *
+     * @param method HTTP method
+     * @param path   request URI (without context path)
+     * @return the first matching rule, or {@link RouteCost#DEFAULT} (cost 1, tier bucket only)
+     */
+    public RouteCost resolveRoute(String method, String path) {
+        if (routes.isEmpty()) {
+            return RouteCost.DEFAULT;
+        }
+        PathContainer container = PathContainer.parsePath(path);
+        for (CompiledRoute route : routes) {
+            if ((route.method() == null || route.method().equalsIgnoreCase(method))
+                    && route.pattern().matches(container)) {
+                return route.cost();
+            }
+        }
+        return RouteCost.DEFAULT;
+    }
+
+    /**
+     * Consume {@code route.cost()} tokens and report the resulting quota in a single Redis round trip.
+     *
+     * <p>If the route names a dedicated bucket, it is charged in the same script
+     * execution as the tier bucket — both must have room or neither is charged.
+     * The returned decision carries everything needed for the
+     * {@code X-RateLimit-*} response headers, so callers must not issue a
+     * separate "remaining tokens" query before or after consuming.</p>
+     *
+     * @param key      Unique identifier (user ID or IP address)
+     * @param tier     Rate limit tier (DEFAULT, ADMIN, ANONYMOUS)
+     * @param route    cost rule from {@link #resolveRoute}
+     * @return the admission decision with limit, remaining tokens and reset time
+     */
+    public RateLimitDecision evaluate(String key, RateLimitTier tier, RouteCost route) {
+        return evaluate(resolveContext(key, tier), route);
+    }
+
+    /**
+     * Resolve the spec and key material for a caller once, so a request that is
+     * evaluated (and reported on) several times does not redo it.
+     *
+     * @param key  Unique identifier (user ID or IP address)
+     * @param tier Rate limit tier (DEFAULT, ADMIN, ANONYMOUS)
+     */
+    public RateLimitContext resolveContext(String key, RateLimitTier tier) {
+        return resolveContext(key, tier, null);
+    }
+
+    /**
+     * Same as {@link #resolveContext(String, RateLimitTier)}, with the caller's role
+     * from the token so account-scoped buckets can be resolved without guessing.
+     *
+     * @param role authenticated user's role, or null if unknown or anonymous
+     */
+    public RateLimitContext resolveContext(String key, RateLimitTier tier, Role role) {
+        String tierKey = tier.label() + ":" + key;
+        String hashTag = "{" + tierKey + "}";
+        return new RateLimitContext(key, tier, resolveSpec(tier), role, tierKey, hashTag, redisKey(hashTag));
+    }
+
+    /**
+     * Spec of the bucket a decision reports: the caller's tier bucket or a dedicated
+     * bucket from {@code rate-limit.buckets}.
+     *
+     * @param bucket {@link RateLimitDecision#bucket()}
+     * @return the spec, or null if the name matches neither
+     */
+    public RateLimitProperties.BucketSpec bucketSpec(RateLimitContext context, String bucket) {
+        if (bucket == null || bucket.equals(context.tier().label())) {
+            return context.spec();
+        }
+        return properties.getBuckets().get(bucket);
+    }
+
+    /**
+     * Same as {@link #evaluate(String, RateLimitTier, RouteCost)} for a pre-resolved context.
+     */
+    public RateLimitDecision evaluate(RateLimitContext context, RouteCost route) {
+        RateLimitProperties.BucketSpec spec = context.spec();
+        String tierKey = context.tierKey();
+        String tierLabel = context.tier().label();
+        long now = System.currentTimeMillis();
+        int cost = route.cost();
 
         // Tier 1: Fast path — check local bucket (sub-microsecond, no network hop)
-        LocalTokenBucket localBucket = localBuckets.computeIfAbsent(
-                redisKey, k -> new LocalTokenBucket(spec.getCapacity(), spec.getRefillTokens(), spec.getRefillDuration()));
-        if (!localBucket.tryConsume()) {
-            log.debug("Rate limit hit (local fast-path) for key={}", key);
-            return false;
+        LocalTokenBucket localBucket = localBuckets.get(
+                tierKey, k -> new LocalTokenBucket(spec.getCapacity(), spec.getRefillTokens(), spec.getRefillDuration()));
+        if (!localBucket.tryConsume(cost)) {
+            log.debug("Rate limit hit (local fast-path) for key={}", context.key());
+            countRejection(tierLabel, RateLimitProperties.Scope.CALLER);
+            long nextTokenMs = (localBucket.nanosUntilNextToken(cost) + 999_999) / 1_000_000;
+            return RateLimitDecision.rejected(spec.getCapacity(), now + Math.max(1, nextTokenMs), tierLabel);
+        }
+
+        List<BucketRef> buckets = new ArrayList<>(1 + route.buckets().size());
+        RateLimitDecision asyncDecision = null;
+        if (spec.getSyncMode() == RateLimitProperties.SyncMode.ASYNC) {
+            // Async tiers: admit locally, reconcile with Redis in the background
+            asyncDecision = synchronizer.tryAcquire(tierKey, spec.getCapacity(), spec.getRefillDuration() * 1000L, now, cost);
+            if (!asyncDecision.allowed()) {
+                countRejection(tierLabel, RateLimitProperties.Scope.CALLER);
+                return asyncDecision;
+            }
+        } else {
+            byte[] tierRedisKey = context.redisKey() != null ? context.redisKey() : redisKey(context.hashTag());
+            buckets.add(new BucketRef(tierLabel, context.hashTag(), tierRedisKey, spec, RateLimitProperties.Scope.CALLER));
+        }
+
+        // Dedicated buckets, narrowest level first: caller → account → global
+        String account = null;
+        for (String name : route.buckets()) {
+            RateLimitProperties.BucketSpec dedicated = properties.getBuckets().get(name);
+            if (dedicated == null) {
+                continue;
+            }
+            switch (dedicated.getScope()) {
+                case GLOBAL -> buckets.add(bucketRef(name, "global:" + name, dedicated));
+                case ACCOUNT -> {
+                    if (account == null) {
+                        account = accountResolver.resolve(context);
+                    }
+                    if (account != null) {
+                        buckets.add(bucketRef(name, "account:" + account + ":" + name, dedicated));
+                    }
+                }
+                default -> buckets.add(bucketRef(name, context.hashTag() + ":" + name, dedicated));
+            }
+        }
+        if (buckets.isEmpty()) {
+            return asyncDecision;
         }
 
         // Tier 2: Slow path — check Redis for global cross-instance consistency
-        try {
-            long windowMs = spec.getRefillDuration() * 1000L;
-            long now = System.currentTimeMillis();
-            String requestId = now + "-" + Thread.currentThread().threadId() + "-" + (int) (Math.random() * 100000);
-
-            Long remaining = redisTemplate.execute(
-                    org.springframework.data.redis.core.script.RedisScript.of(SLIDING_WINDOW_SCRIPT, Long.class),
-                    List.of(redisKey),
-                    String.valueOf(spec.getCapacity()),
-                    String.valueOf(windowMs),
-                    String.valueOf(now),
-                    requestId
-            );
-
-            if (remaining == null || remaining < 0) {
-                log.debug("Rate limit hit (Redis) for key={}, tier={}", key, tier);
-                return false;
+        RateLimitDecision decision = decide(buckets, cost, now);
+        if (decision.allowed() && asyncDecision != null && asyncDecision.remaining() < decision.remaining()) {
+            return asyncDecision;
+        }
+        return decision;
+    }
+
+    /**
+     * Consume one token from each named bucket of {@code rate-limit.buckets},
+     * all-or-nothing in a single Redis call. Used for traffic that does not pass
+     * through {@link com.eventra.filter.RateLimitFilter}, such as STOMP frames.
+     *
+     * <p>Buckets without a configured spec are skipped; if none is configured the
+     * request is allowed without touching Redis.</p>
+     *
+     * @param owner   identity shared by all buckets (the braced key base), e.g. "ws:user:42"
+     * @param buckets buckets to charge, each optionally narrowed by a scope such as a session id
+     * @return the admission decision for the most constrained bucket
+     */
+    public RateLimitDecision evaluateBuckets(String owner, List<ScopedBucket> buckets) {
+        long now = System.currentTimeMillis();
+        List<BucketRef> refs = new ArrayList<>(buckets.size());
+        for (ScopedBucket bucket : buckets) {
+            RateLimitProperties.BucketSpec spec = properties.getBuckets().get(bucket.name());
+            if (spec == null) {
+                continue;
             }
+            String keyBase = bucket.keyBase(owner);
+            LocalTokenBucket localBucket = localBuckets.get(
+                    keyBase, k -> new LocalTokenBucket(spec.getCapacity(), spec.getRefillTokens(), spec.getRefillDuration()));
+            if (!localBucket.tryConsume()) {
+                log.debug("Rate limit hit (local fast-path) for owner={}, bucket={}", owner, bucket.name());
+                long nextTokenMs = (localBucket.nanosUntilNextToken() + 999_999) / 1_000_000;
+                return RateLimitDecision.rejected(spec.getCapacity(), now + Math.max(1, nextTokenMs), bucket.name());
+            }
+            refs.add(new BucketRef(bucket.name(), keyBase, redisKey(keyBase), spec, RateLimitProperties.Scope.CALLER));
+        }
+        if (refs.isEmpty()) {
+            return RateLimitDecision.unlimited(now);
+        }
+        return decide(refs, 1, now);
+    }
 
+    /**
+     * Check a named bucket on this JVM only — no Redis round trip. For
+     * high-frequency, low-value traffic (typing indicators) where an exact global
+     * count is not worth a network hop per frame.
+     *
+     * @return true if allowed, or if the bucket is not configured
+     */
+    public boolean tryConsumeLocal(String owner, ScopedBucket bucket) {
+        RateLimitProperties.BucketSpec spec = properties.getBuckets().get(bucket.name());
+        if (spec == null) {
             return true;
+        }
+        return localBuckets.get(bucket.keyBase(owner),
+                        k -> new LocalTokenBucket(spec.getCapacity(), spec.getRefillTokens(), spec.getRefillDuration()))
+                .tryConsume();
+    }
+
+    /**
+     * Run the buckets through Redis and map the script reply to a decision.
+     * Fails open with the first bucket's full quota if Redis is unavailable.
+     */
+    private RateLimitDecision decide(List<BucketRef> buckets, int cost, long now) {
+        BucketRef first = buckets.get(0);
+        try {
+            List<Long> result = evaluateInRedis(buckets, cost, now);
+
+            if (result == null || result.size() < 4) {
+                log.debug("Rate limit hit (Redis) for key={}", first.keyBase());
+                return RateLimitDecision.rejected(first.spec().getCapacity(),
+                        now + first.spec().getRefillDuration() * 1000L, first.label());
+            }
+
+            boolean allowed = result.get(0) == 1L;
+            BucketRef limiting = buckets.get((int) Math.max(0, Math.min(buckets.size(), result.get(3)) - 1));
+            if (!allowed) {
+                log.debug("Rate limit hit (Redis) for key={}, bucket={}", limiting.keyBase(), limiting.label());
+                countRejection(limiting.label(), limiting.scope());
+            }
+            return new RateLimitDecision(allowed, limiting.spec().getCapacity(),
+                    Math.max(0, result.get(1)), result.get(2), limiting.label());
         } catch (Exception e) {
             // Fail-open: Redis unavailable → allow request to prevent total API outage
             log.warn("Redis rate limit check failed, failing open: {}", e.getMessage());
-            return true;
+            return new RateLimitDecision(true, first.spec().getCapacity(), first.spec().getCapacity(),
+                    now + first.spec().getRefillDuration() * 1000L, first.label());
         }
     }
 
+    private void countRejection(String bucket, RateLimitProperties.Scope scope) {
+        String key = bucket + '|' + scope;
+        Counter counter = rejectionCounters.get(key);
+        if (counter == null) {
+            counter = rejectionCounters.computeIfAbsent(key, k -> Counter.builder("eventra.ratelimit.rejected")
+                    .description("Requests rejected by rate limiting, by bucket and level")
+                    .tag("bucket", bucket)
+                    .tag("scope", scope.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        counter.increment();
+    }
+
     /**
-     * Get remaining tokens for a key (for X-RateLimit-Remaining header).
+     * Run the configured algorithm's script over all buckets. Each algorithm uses
+     * its own key namespace so switching {@code rate-limit.algorithm} never hits
+     * WRONGTYPE on keys written by the previous algorithm.
      */
-    public long getRemainingTokens(String key, RateLimitTier tier) {
-        RateLimitProperties.BucketSpec spec = resolveSpec(tier);
-        String redisKey = RATE_LIMIT_KEY_PREFIX + tier.name().toLowerCase() + ":" + key;
+    @SuppressWarnings("unchecked")
+    private List<Long> evaluateInRedis(List<BucketRef> buckets, int cost, long now) {
+        List<byte[]> keys = new ArrayList<>(buckets.size() * 2);
+        List<String> args = new ArrayList<>(3 + buckets.size() * 3);
+        args.add(String.valueOf(now));
+        args.add(String.valueOf(cost));
 
-        try {
-            long windowMs = spec.getRefillDuration() * 1000L;
-            long windowStart = System.currentTimeMillis() - windowMs;
-            Long count = redisTemplate.opsForZSet().count(redisKey, windowStart, Double.MAX_VALUE);
-            return Math.max(0, spec.getCapacity() - (count != null ? count : 0));
-        } catch (Exception e) {
-            return spec.getCapacity();
+        return switch (properties.getAlgorithm()) {
+            case GCRA -> {
+                for (BucketRef bucket : buckets) {
+                    long windowMs = bucket.spec().getRefillDuration() * 1000L;
+                    long emissionMs = Math.max(1, windowMs / Math.max(1, bucket.spec().getRefillTokens()));
+                    keys.add(bucket.redisKey());
+                    args.add(String.valueOf(bucket.spec().getCapacity()));
+                    args.add(String.valueOf(emissionMs));
+                }
+                yield scriptExecutor.executeEncoded(gcraScript, keys, args.toArray(String[]::new));
+            }
+            case SLIDING_WINDOW_COUNTER -> {
+                for (BucketRef bucket : buckets) {
+                    long windowMs = bucket.spec().getRefillDuration() * 1000L;
+                    long windowStart = now - (now % windowMs);
+                    keys.add(withSuffix(bucket.redisKey(), windowStart));
+                    keys.add(withSuffix(bucket.redisKey(), windowStart - windowMs));
+                    args.add(String.valueOf(bucket.spec().getCapacity()));
+                    args.add(String.valueOf(windowMs));
+                    args.add(String.valueOf(windowStart));
+                }
+                yield scriptExecutor.executeEncoded(windowCounterScript, keys, args.toArray(String[]::new));
+            }
+            default -> {
+                args.add(now + "-" + Thread.currentThread().threadId() + "-" + (int) (Math.random() * 100000));
+                for (BucketRef bucket : buckets) {
+                    keys.add(bucket.redisKey());
+                    args.add(String.valueOf(bucket.spec().getCapacity()));
+                    args.add(String.valueOf(bucket.spec().getRefillDuration() * 1000L));
+                }
+                yield scriptExecutor.executeEncoded(slidingWindowScript, keys, args.toArray(String[]::new));
+            }
+        };
+    }
+
+    /**
+     * UTF-8 Redis key of a bucket under the configured algorithm's namespace. For the
+     * sliding window counter this is the prefix the window start is appended to.
+     */
+    private byte[] redisKey(String keyBase) {
+        String key = switch (properties.getAlgorithm()) {
+            case GCRA -> RATE_LIMIT_KEY_PREFIX + "gcra:" + keyBase;
+            case SLIDING_WINDOW_COUNTER -> RATE_LIMIT_KEY_PREFIX + "swc:" + keyBase + ":";
+            default -> RATE_LIMIT_KEY_PREFIX + keyBase;
+        };
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private BucketRef bucketRef(String name, String keyBase, RateLimitProperties.BucketSpec spec) {
+        return new BucketRef(name, keyBase, redisKey(keyBase), spec, spec.getScope());
+    }
+
+    private static byte[] withSuffix(byte[] prefix, long windowStart) {
+        byte[] suffix = Long.toString(windowStart).getBytes(StandardCharsets.US_ASCII);
+        byte[] key = Arrays.copyOf(prefix, prefix.length + suffix.length);
+        System.arraycopy(suffix, 0, key, prefix.length, suffix.length);
+        return key;
+    }
+
+    private static List<CompiledRoute> compileRoutes(List<RateLimitProperties.Route> configured) {
+        List<CompiledRoute> compiled = new ArrayList<>(configured.size());
+        for (RateLimitProperties.Route route : configured) {
+            compiled.add(new CompiledRoute(
+                    PathPatternParser.defaultInstance.parse(route.getPattern()),
+                    route.getMethod(),
+                    new RouteCost(Math.max(1, route.getCost()), List.copyOf(route.getBuckets()))));
         }
+        return List.copyOf(compiled);
+    }
+
+    /**
+     * Build the tier-1 bucket cache and bind its stats to Micrometer:
+     * {@code cache.size}, {@code cache.gets{result=hit|miss}}, {@code cache.evictions}
+     * (tagged {@code cache=ratelimit-local-buckets}) plus a hit-ratio gauge.
+     */
+    private static Cache<String, LocalTokenBucket> buildLocalBucketCache(
+            RateLimitProperties.LocalCache config, MeterRegistry meterRegistry) {
+        Cache<String, LocalTokenBucket> cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterAccess(config.getExpireAfterAccess())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "ratelimit-local-buckets");
+        Gauge.builder("eventra.ratelimit.local.hit_ratio", cache, c -> c.stats().hitRate())
+                .description("Hit ratio of the per-JVM rate limit bucket cache")
+                .register(meterRegistry);
+        return cache;
     }
 
     private RateLimitProperties.BucketSpec resolveSpec(RateLimitTier tier) {
@@ -157,58 +707,166 @@ public class DistributedRateLimiter {
      * Rate limit tiers mapping to user roles.
      */
     public enum RateLimitTier {
-        DEFAULT,    // Authenticated users (ORGANIZER, COMPANY): 100 req/min
-        ADMIN,      // Admin users: 500 req/min
-        ANONYMOUS   // Unauthenticated: IP-based, 30 req/min
+        DEFAULT("default"),      // Authenticated users (ORGANIZER, COMPANY): rate-limit.default.*
+        ADMIN("admin"),          // Admin users: rate-limit.admin.*
+        ANONYMOUS("anonymous");  // Unauthenticated, IP-based: rate-limit.anonymous.*
+
+        private final String label;
+
+        RateLimitTier(String label) {
+            this.label = label;
+        }
+
+        /** Lower-case name used in Redis keys and bucket labels */
+        public String label() {
+            return label;
+        }
+    }
+
+    /**
+     * Per-request rate limit identity, resolved once by the caller and reused for
+     * evaluation and response headers.
+     *
+     * @param key     "user:{id}" or "ip:{address}"
+     * @param tier    resolved tier
+     * @param spec    the tier's bucket spec from {@link RateLimitProperties}
+     * @param role    role claim of an authenticated caller, or null
+     * @param tierKey  "{tier}:{key}" — local bucket and async window key
+     * @param hashTag  "{tier:key}" — Redis key base of caller-scoped buckets
+     * @param redisKey the tier bucket's full Redis key for the configured algorithm, UTF-8
+     *                 encoded once per request (shared, never mutated); null when the
+     *                 context was built without a limiter, then encoded per evaluation
+     */
+    public record RateLimitContext(String key, RateLimitTier tier, RateLimitProperties.BucketSpec spec,
+                                   Role role, String tierKey, String hashTag, byte[] redisKey) {
+
+        public RateLimitContext(String key, RateLimitTier tier, RateLimitProperties.BucketSpec spec) {
+            this(key, tier, spec, null);
+        }
+
+        public RateLimitContext(String key, RateLimitTier tier, RateLimitProperties.BucketSpec spec, Role role) {
+            this(key, tier, spec, role, tier.label() + ":" + key, "{" + tier.label() + ":" + key + "}", null);
+        }
+    }
+
+    /**
+     * Outcome of a single rate limit evaluation.
+     *
+     * @param allowed       whether the request may proceed
+     * @param limit         capacity of the bucket reported in {@code bucket}
+     * @param remaining     tokens left in that bucket (never negative)
+     * @param resetAtMillis epoch millis at which the next token becomes available
+     * @param bucket        bucket that rejected, or the most constrained one when allowed
+     *                      (tier name, or a dedicated bucket name such as "ai")
+     */
+    public record RateLimitDecision(boolean allowed, int limit, long remaining, long resetAtMillis, String bucket) {
+
+        static RateLimitDecision rejected(int limit, long resetAtMillis, String bucket) {
+            return new RateLimitDecision(false, limit, 0, resetAtMillis, bucket);
+        }
+
+        static RateLimitDecision unlimited(long now) {
+            return new RateLimitDecision(true, Integer.MAX_VALUE, Integer.MAX_VALUE, now, null);
+        }
+
+        /** Seconds until reset, rounded up (suitable for Retry-After / X-RateLimit-Reset). */
+        public int resetSeconds() {
+            long deltaMs = resetAtMillis - System.currentTimeMillis();
+            return (int) Math.max(1, (deltaMs + 999) / 1000);
+        }
     }
 
+    /**
+     * Cost rule for a route.
+     *
+     * @param cost    tokens charged per request
+     * @param buckets dedicated buckets (keys in {@code rate-limit.buckets}) charged in addition
+     *                to the tier bucket, narrowest level first
+     */
+    public record RouteCost(int cost, List<String> buckets) {
+        public static final RouteCost DEFAULT = new RouteCost(1, List.of());
+    }
+
+    /**
+     * A named bucket from {@code rate-limit.buckets}, optionally narrowed to a scope
+     * (e.g. one WebSocket session) under its owner.
+     */
+    public record ScopedBucket(String name, String scope) {
+
+        public static ScopedBucket of(String name) {
+            return new ScopedBucket(name, null);
+        }
+
+        String keyBase(String owner) {
+            return "{" + owner + "}:" + name + (scope != null ? ":" + scope : "");
+        }
+    }
+
+    /** One bucket of an evaluation; {@code keyBase} is its Redis key without the prefix. */
+    private record BucketRef(String label, String keyBase, byte[] redisKey, RateLimitProperties.BucketSpec spec,
+                             RateLimitProperties.Scope scope) {}
+
+    private record CompiledRoute(PathPattern pattern, String method, RouteCost cost) {}
+
     // ═══════════════════════════════════════════════════════
     // Self-contained Token Bucket (local fast-path, no deps)
     // ═══════════════════════════════════════════════════════
 
     /**
-     * Lock-free token bucket implementation using greedy refill.
-     * Used as a per-JVM fast-path to avoid unnecessary Redis round-trips.
+     * Lock-free, allocation-free token bucket used as a per-JVM fast-path
+     * to avoid unnecessary Redis round-trips.
      *
-     * <p>Algorithm: tokens are refilled continuously based on elapsed time.
-     * Uses atomic operations for thread safety without locks.</p>
+     * <p>Algorithm: GCRA on a single {@code long}. The state is the bucket's
+     * "theoretical arrival time" (TAT) in {@link System#nanoTime()} units, which
+     * encodes both the token count and the refill timestamp:
+     * {@code tokens = (now + burst - tat) / emissionInterval}. Refill and consume
+     * therefore happen in one CAS, so concurrent callers can never drive the
+     * bucket negative or admit more than {@code capacity} in a burst, and
+     * fractional refill progress is never lost. Rejections are a plain volatile
+     * read with no CAS.</p>
      */
     static class LocalTokenBucket {
-        private final long capacity;
-        private final long refillTokens;
-        private final long refillIntervalNanos;
-        private final AtomicLong availableTokens;
-        private final AtomicLong lastRefillTimestamp;
+        private final long emissionIntervalNanos;
+        private final long burstNanos;
+        private final AtomicLong theoreticalArrival;
 
         LocalTokenBucket(int capacity, int refillTokens, int refillDurationSeconds) {
-            this.capacity = capacity;
-            this.refillTokens = refillTokens;
-            this.refillIntervalNanos = refillDurationSeconds * 1_000_000_000L;
-            this.availableTokens = new AtomicLong(capacity);
-            this.lastRefillTimestamp = new AtomicLong(System.nanoTime());
+            this.emissionIntervalNanos = Math.max(1,
+                    refillDurationSeconds * 1_000_000_000L / Math.max(1, refillTokens));
+            this.burstNanos = emissionIntervalNanos * capacity;
+            this.theoreticalArrival = new AtomicLong(System.nanoTime());
         }
 
         boolean tryConsume() {
-            refill();
-            long current = availableTokens.get();
-            if (current <= 0) {
-                return false;
-            }
-            return availableTokens.decrementAndGet() >= 0;
+            return tryConsume(1);
         }
 
-        private void refill() {
-            long now = System.nanoTime();
-            long lastRefill = lastRefillTimestamp.get();
-            long elapsed = now - lastRefill;
+        boolean tryConsume(int tokens) {
+            long increment = emissionIntervalNanos * tokens;
+            while (true) {
+                long now = System.nanoTime();
+                long tat = theoreticalArrival.get();
+                long base = tat - now < 0 ? now : tat;
+                long newTat = base + increment;
+                if (newTat - now > burstNanos) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(tat, newTat)) {
+                    return true;
+                }
+            }
+        }
 
-            if (elapsed <= 0) return;
+        /** Nanoseconds until the next {@link #tryConsume()} could succeed (0 if a token is available). */
+        long nanosUntilNextToken() {
+            return nanosUntilNextToken(1);
+        }
 
-            long tokensToAdd = (elapsed * refillTokens) / refillIntervalNanos;
-            if (tokensToAdd > 0 && lastRefillTimestamp.compareAndSet(lastRefill, now)) {
-                long newTokens = Math.min(capacity, availableTokens.get() + tokensToAdd);
-                availableTokens.set(newTokens);
-            }
+        /** Nanoseconds until {@code tokens} could be consumed at once. */
+        long nanosUntilNextToken(int tokens) {
+            long now = System.nanoTime();
+            long wait = theoreticalArrival.get() + emissionIntervalNanos * tokens - burstNanos - now;
+            return Math.max(0, wait);
         }
     }
 }
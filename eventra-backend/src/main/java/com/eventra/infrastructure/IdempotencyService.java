@@ -1,11 +1,34 @@
 package com.eventra.infrastructure;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Redis-based idempotency guard for financial operations.
@@ -23,21 +46,171 @@ import java.time.Duration;
  *
  * <h3>TTL strategy:</h3>
  * <ul>
- *   <li>Order creation: 48h (covers payment window)</li>
+ *   <li>Order creation: 48h (covers payment window), {@code payment.idempotency-key-ttl-hours}</li>
  *   <li>Webhook processing: 7d (covers settlement period)</li>
- *   <li>Distributed locks: 300s max (auto-expire as safety net)</li>
+ *   <li>Distributed locks: lease renewed by a watchdog, 300s max hold (auto-expire as safety net)</li>
+ * </ul>
+ *
+ * <h3>Webhook dedup:</h3>
+ * <p>Razorpay retries arrive in bursts of identical deliveries. Event IDs already
+ * known to be in Redis are kept in a bounded in-process near-cache, so a repeat
+ * delivery to the same instance is rejected without a round trip. All dedup keys
+ * of one event are checked and set together in a single script call. The
+ * near-cache only ever holds keys Redis has confirmed, and its TTL is far below
+ * the Redis TTL, so it can never report a new event as a duplicate.</p>
+ *
+ * <h3>Locks:</h3>
+ * <p>{@link #tryLock} acquires, issues a fencing token and starts lease renewal in
+ * one script call; release and renewal are compare-and-act scripts, so a holder
+ * can never delete or extend a lock that has passed to someone else.</p>
+ *
+ * <p>{@link #tryLock(String, Duration, Duration)} waits for a held lock instead of
+ * failing fast; releases wake waiters over Redis pub/sub.</p>
+ *
+ * <h3>Metrics:</h3>
+ * <ul>
+ *   <li>{@code eventra.webhook.dedup{result}} — {@code new}, {@code duplicate_local} (near-cache hit)
+ *       or {@code duplicate_redis}</li>
+ *   <li>{@code eventra.lock.lost} — leases lost while still held (expired or taken over)</li>
+ *   <li>{@code eventra.lock.wait}, {@code eventra.lock.wait.attempts}, {@code eventra.lock.waiters} — see
+ *       {@link #tryLock(String, Duration, Duration)}</li>
  * </ul>
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class IdempotencyService {
 
     private final StringRedisTemplate redisTemplate;
+    private final RedisScriptExecutor scriptExecutor;
+    private final Counter lockLostCounter;
 
     private static final String IDEMPOTENCY_PREFIX = "eventra:idempotency:";
+    private static final String RESPONSE_PREFIX = "eventra:idempotency:response:";
     private static final String WEBHOOK_PREFIX = "eventra:webhook:";
     private static final String LOCK_PREFIX = "eventra:lock:";
+    private static final String FENCE_PREFIX = "eventra:lock:fence:";
+
+    private static final Duration WEBHOOK_TTL = Duration.ofDays(7);
+    /** Covers Razorpay's retry bursts; older repeats fall through to Redis */
+    private static final Duration WEBHOOK_NEAR_CACHE_TTL = Duration.ofMinutes(30);
+    private static final long WEBHOOK_NEAR_CACHE_SIZE = 10_000;
+
+    /**
+     * KEYS = webhook dedup keys, ARGV[1] = value, ARGV[2] = TTL ms.
+     * Sets every missing key and returns how many already existed.
+     */
+    private static final String WEBHOOK_DEDUP_SCRIPT =
+            """
+            local seen = 0
+            for _, key in ipairs(KEYS) do
+                if not redis.call('SET', key, ARGV[1], 'NX', 'PX', ARGV[2]) then
+                    seen = seen + 1
+                end
+            end
+            return seen
+            """;
+
+    /** Watchdog stops renewing after this, letting the lease expire */
+    private static final Duration LOCK_MAX_HOLD = Duration.ofSeconds(300);
+    /** Fencing counters outlive any possible holder by a wide margin */
+    private static final Duration FENCE_RETENTION = Duration.ofDays(7);
+
+    /** Distinguishes holders across JVMs; thread IDs alone collide between instances */
+    private static final String INSTANCE_ID = UUID.randomUUID().toString().substring(0, 8);
+
+    /** Release notifications: PUBLISH eventra:lock:released:{lockKey} */
+    private static final String RELEASED_CHANNEL_PREFIX = "eventra:lock:released:";
+
+    /**
+     * KEYS[1] = lock key, KEYS[2] = fence counter
+     * ARGV[1] = owner, ARGV[2] = lease ms, ARGV[3] = fence retention ms
+     * Returns the fencing token (&gt; 0), or the holder's remaining lease in ms
+     * negated (&lt;= 0) if the lock is held by someone else.
+     */
+    private static final String ACQUIRE_SCRIPT =
+            """
+            if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+                local token = redis.call('INCR', KEYS[2])
+                redis.call('PEXPIRE', KEYS[2], ARGV[3])
+                return token
+            end
+            return -math.max(redis.call('PTTL', KEYS[1]), 0)
+            """;
+
+    /**
+     * KEYS[1] = lock key, ARGV[1] = owner, ARGV[2] = release channel.
+     * Returns 1 if deleted; waiters on the channel are woken in the same call.
+     */
+    private static final String RELEASE_SCRIPT =
+            """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                redis.call('DEL', KEYS[1])
+                redis.call('PUBLISH', ARGV[2], '1')
+                return 1
+            end
+            return 0
+            """;
+
+    /** KEYS[1] = lock key, ARGV[1] = owner, ARGV[2] = lease ms. Returns 1 if extended. */
+    private static final String RENEW_SCRIPT =
+            """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """;
+
+    private final RedisScript<Long> webhookDedupScript;
+    private final RedisScript<Long> acquireScript;
+    private final RedisScript<Long> releaseScript;
+    private final RedisScript<Long> renewScript;
+
+    /** Webhook keys this instance has seen confirmed in Redis */
+    private final Cache<String, Boolean> seenWebhooks = Caffeine.newBuilder()
+            .maximumSize(WEBHOOK_NEAR_CACHE_SIZE)
+            .expireAfterWrite(WEBHOOK_NEAR_CACHE_TTL)
+            .build();
+    private final Counter webhookNew;
+    private final Counter webhookDuplicateLocal;
+    private final Counter webhookDuplicateRedis;
+
+    /** Local threads blocked in {@link #tryLock(String, Duration, Duration)}, per lock key */
+    private final ConcurrentHashMap<String, Queue<CountDownLatch>> waiters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary waitAttempts;
+
+    private final ScheduledExecutorService lockWatchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdempotencyService(StringRedisTemplate redisTemplate,
+                              RedisScriptExecutor scriptExecutor,
+                              RedisMessageListenerContainer listenerContainer,
+                              MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.scriptExecutor = scriptExecutor;
+        this.meterRegistry = meterRegistry;
+        this.waitAttempts = DistributionSummary.builder("eventra.lock.wait.attempts")
+                .description("Acquisition attempts per blocking tryLock; > 1 means a wakeup lost to another contender")
+                .register(meterRegistry);
+        Gauge.builder("eventra.lock.waiters", waiters, w -> w.values().stream().mapToInt(Queue::size).sum())
+                .description("Threads on this instance currently waiting for a lock")
+                .register(meterRegistry);
+        // One pattern subscription per JVM; wakeups are fanned out locally
+        listenerContainer.addMessageListener(this::onLockReleased, new PatternTopic(RELEASED_CHANNEL_PREFIX + "*"));
+        this.lockLostCounter = Counter.builder("eventra.lock.lost")
+                .description("Distributed lock leases lost while still held")
+                .register(meterRegistry);
+        this.webhookNew = webhookDedupCounter(meterRegistry, "new");
+        this.webhookDuplicateLocal = webhookDedupCounter(meterRegistry, "duplicate_local");
+        this.webhookDuplicateRedis = webhookDedupCounter(meterRegistry, "duplicate_redis");
+        this.webhookDedupScript = scriptExecutor.register("webhook-dedup", WEBHOOK_DEDUP_SCRIPT, Long.class);
+        this.acquireScript = scriptExecutor.register("lock-acquire", ACQUIRE_SCRIPT, Long.class);
+        this.releaseScript = scriptExecutor.register("lock-release", RELEASE_SCRIPT, Long.class);
+        this.renewScript = scriptExecutor.register("lock-renew", RENEW_SCRIPT, Long.class);
+    }
 
     /**
      * Check and set an idempotency key. Returns true if this is a NEW operation.
@@ -65,6 +238,27 @@ public class IdempotencyService {
         return redisTemplate.opsForValue().get(IDEMPOTENCY_PREFIX + key);
     }
 
+    /**
+     * Stored response of a completed request, if any.
+     *
+     * @param key caller-scoped idempotency key
+     */
+    public Optional<StoredResponse> findResponse(String key) {
+        return Optional.ofNullable(redisTemplate.opsForValue().get(RESPONSE_PREFIX + key))
+                .map(StoredResponse::decode);
+    }
+
+    /**
+     * Remember a completed response so duplicates can be answered without re-executing.
+     *
+     * @param key caller-scoped idempotency key
+     * @param ttl how long duplicates are replayed
+     */
+    public void storeResponse(String key, StoredResponse response, Duration ttl) {
+        redisTemplate.opsForValue().set(RESPONSE_PREFIX + key, response.encode(), ttl);
+        log.debug("Idempotent response stored: key={}, status={}", key, response.status());
+    }
+
     /**
      * Check if a webhook event has already been processed.
      *
@@ -72,10 +266,38 @@ public class IdempotencyService {
      * @return true if this event is new (not yet processed)
      */
     public boolean markWebhookProcessed(String eventId) {
-        String redisKey = WEBHOOK_PREFIX + eventId;
-        Boolean result = redisTemplate.opsForValue()
-                .setIfAbsent(redisKey, String.valueOf(System.currentTimeMillis()), Duration.ofDays(7));
-        return Boolean.TRUE.equals(result);
+        return markWebhookProcessed(List.of(eventId));
+    }
+
+    /**
+     * Mark every dedup key of one webhook event as processed in a single round trip.
+     *
+     * <p>The event is new only if none of its keys was seen before; either way all
+     * keys are set afterwards, so a later delivery matching any one of them is
+     * rejected. A near-cache hit on any key rejects without contacting Redis.</p>
+     *
+     * @param eventIds dedup keys of one event (e.g., "event:{id}", "captured:{paymentId}")
+     * @return true if this event is new (not yet processed)
+     */
+    public boolean markWebhookProcessed(Collection<String> eventIds) {
+        for (String eventId : eventIds) {
+            if (seenWebhooks.getIfPresent(eventId) != null) {
+                webhookDuplicateLocal.increment();
+                return false;
+            }
+        }
+
+        List<String> redisKeys = eventIds.stream().map(id -> WEBHOOK_PREFIX + id).toList();
+        Long seen = scriptExecutor.execute(webhookDedupScript, redisKeys,
+                String.valueOf(System.currentTimeMillis()), String.valueOf(WEBHOOK_TTL.toMillis()));
+        eventIds.forEach(id -> seenWebhooks.put(id, Boolean.TRUE));
+
+        if (seen != null && seen == 0L) {
+            webhookNew.increment();
+            return true;
+        }
+        webhookDuplicateRedis.increment();
+        return false;
     }
 
     /**
@@ -98,18 +320,192 @@ public class IdempotencyService {
     }
 
     /**
-     * Release a distributed lock (only if we own it).
+     * Release a distributed lock (only if we own it) with a single compare-and-delete.
      */
     public boolean releaseLock(String lockKey, String owner) {
-        String redisKey = LOCK_PREFIX + lockKey;
-        String currentOwner = redisTemplate.opsForValue().get(redisKey);
-        if (owner.equals(currentOwner)) {
-            redisTemplate.delete(redisKey);
+        Long deleted = scriptExecutor.execute(releaseScript, List.of(LOCK_PREFIX + lockKey),
+                owner, RELEASED_CHANNEL_PREFIX + lockKey);
+        if (deleted != null && deleted == 1L) {
             log.debug("Lock released: key={}, owner={}", lockKey, owner);
             return true;
         }
-        log.warn("Lock release failed — not owner: key={}, expectedOwner={}, actualOwner={}",
-                lockKey, owner, currentOwner);
+        log.warn("Lock release failed — not owner or expired: key={}, owner={}", lockKey, owner);
         return false;
     }
+
+    /**
+     * Acquire a renewable lock with a fencing token.
+     *
+     * <p>The lease is extended every {@code leaseTime / 3} until the handle is
+     * closed or {@link #LOCK_MAX_HOLD} elapses. If the process dies, the lock
+     * expires after at most one lease.</p>
+     *
+     * @param lockKey   lock identifier
+     * @param leaseTime lease per renewal (also the expiry if the holder dies)
+     * @return the held lock, or empty if another holder has it
+     */
+    public Optional<DistributedLock> tryLock(String lockKey, Duration leaseTime) {
+        return Optional.ofNullable(attempt(lockKey, leaseTime).lock());
+    }
+
+    /**
+     * Acquire a renewable lock, waiting up to {@code waitTime} for the current holder.
+     *
+     * <p>Waiting does not poll: the release script publishes on a per-lock channel
+     * and the waiter is woken through this instance's single pattern subscription.
+     * Each sleep is also capped at the holder's remaining lease, so a holder that
+     * dies without releasing costs at most one lease of waiting.</p>
+     *
+     * <h3>Metrics:</h3>
+     * <ul>
+     *   <li>{@code eventra.lock.wait{outcome=acquired|timeout}} — time spent waiting</li>
+     *   <li>{@code eventra.lock.wait.attempts} — attempts per call (fairness: wakeups lost to other contenders)</li>
+     *   <li>{@code eventra.lock.waiters} — threads currently waiting on this instance</li>
+     * </ul>
+     *
+     * @param lockKey   lock identifier
+     * @param leaseTime lease per renewal (also the expiry if the holder dies)
+     * @param waitTime  maximum time to wait for the lock
+     * @return the held lock, or empty if it could not be acquired in time
+     */
+    public Optional<DistributedLock> tryLock(String lockKey, Duration leaseTime, Duration waitTime) {
+        long start = System.nanoTime();
+        long deadline = start + waitTime.toNanos();
+        int attempts = 0;
+        DistributedLock acquired = null;
+        try {
+            while (acquired == null) {
+                // Register before attempting so a release between attempt and await is not missed
+                CountDownLatch wakeup = new CountDownLatch(1);
+                waiters.compute(lockKey, (k, queue) -> {
+                    Queue<CountDownLatch> q = queue != null ? queue : new ConcurrentLinkedQueue<>();
+                    q.add(wakeup);
+                    return q;
+                });
+                try {
+                    attempts++;
+                    Attempt attempt = attempt(lockKey, leaseTime);
+                    acquired = attempt.lock();
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (acquired != null || remainingNanos <= 0) {
+                        break;
+                    }
+                    long holderLeaseNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, attempt.holderTtlMs()));
+                    wakeup.await(Math.min(remainingNanos, holderLeaseNanos), TimeUnit.NANOSECONDS);
+                } finally {
+                    waiters.computeIfPresent(lockKey, (k, q) -> {
+                        q.remove(wakeup);
+                        return q.isEmpty() ? null : q;
+                    });
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        waitAttempts.record(attempts);
+        meterRegistry.timer("eventra.lock.wait", "outcome", acquired != null ? "acquired" : "timeout")
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (acquired == null) {
+            log.debug("Lock wait timed out: key={}, attempts={}", lockKey, attempts);
+        }
+        return Optional.ofNullable(acquired);
+    }
+
+    private Attempt attempt(String lockKey, Duration leaseTime) {
+        String ownerId = INSTANCE_ID + ":" + Thread.currentThread().threadId() + ":" + UUID.randomUUID();
+        long leaseMs = leaseTime.toMillis();
+        long acquiredAt = System.currentTimeMillis();
+        Long result = scriptExecutor.execute(acquireScript,
+                List.of(LOCK_PREFIX + lockKey, FENCE_PREFIX + lockKey),
+                ownerId, String.valueOf(leaseMs), String.valueOf(FENCE_RETENTION.toMillis()));
+        if (result == null || result <= 0L) {
+            log.debug("Lock already held: key={}", lockKey);
+            return new Attempt(null, result == null ? leaseMs : -result);
+        }
+
+        DistributedLock lock = new DistributedLock(this, lockKey, ownerId, result, acquiredAt + leaseMs);
+        long period = Math.max(1, leaseMs / 3);
+        long deadline = acquiredAt + LOCK_MAX_HOLD.toMillis();
+        lock.startRenewal(lockWatchdog.scheduleAtFixedRate(
+                () -> renew(lock, leaseMs, deadline), period, period, TimeUnit.MILLISECONDS));
+        log.debug("Lock acquired: key={}, fencingToken={}", lockKey, result);
+        return new Attempt(lock, 0);
+    }
+
+    void onLockReleased(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        Queue<CountDownLatch> queue = waiters.get(channel.substring(RELEASED_CHANNEL_PREFIX.length()));
+        if (queue != null) {
+            queue.forEach(CountDownLatch::countDown);
+        }
+    }
+
+    void release(DistributedLock lock) {
+        try {
+            releaseLock(lock.key(), lock.ownerId());
+        } catch (Exception e) {
+            // Called from finally blocks — never mask the caller's outcome; the lease expires on its own
+            log.warn("Lock release failed, lease will expire: key={}, error={}", lock.key(), e.getMessage());
+        }
+    }
+
+    private void renew(DistributedLock lock, long leaseMs, long deadline) {
+        if (System.currentTimeMillis() > deadline) {
+            log.warn("Lock held past max hold, no longer renewing: key={}, fencingToken={}",
+                    lock.key(), lock.fencingToken());
+            lock.markLost();
+            lockLostCounter.increment();
+            return;
+        }
+        long renewedAt = System.currentTimeMillis();
+        try {
+            Long extended = scriptExecutor.execute(renewScript,
+                    List.of(LOCK_PREFIX + lock.key()), lock.ownerId(), String.valueOf(leaseMs));
+            if (extended == null || extended == 0L) {
+                log.warn("Lock lease lost: key={}, fencingToken={}", lock.key(), lock.fencingToken());
+                lock.markLost();
+                lockLostCounter.increment();
+                return;
+            }
+            lock.leaseExtended(renewedAt + leaseMs);
+        } catch (Exception e) {
+            // Transient: the last confirmed lease may still be valid; isHeld() tracks its expiry
+            log.warn("Lock renewal failed, will retry: key={}, error={}", lock.key(), e.getMessage());
+        }
+    }
+
+    private static Counter webhookDedupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("eventra.webhook.dedup")
+                .description("Webhook deliveries by dedup outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Response replayed verbatim for a repeated idempotency key.
+     * Encoded as {@code status \n contentType \n base64(body)} so the body survives byte-for-byte.
+     */
+    public record StoredResponse(int status, String contentType, byte[] body) {
+
+        String encode() {
+            return status + "\n" + (contentType != null ? contentType : "") + "\n"
+                    + Base64.getEncoder().encodeToString(body);
+        }
+
+        static StoredResponse decode(String encoded) {
+            String[] parts = encoded.split("\n", 3);
+            return new StoredResponse(Integer.parseInt(parts[0]),
+                    parts[1].isEmpty() ? null : parts[1],
+                    Base64.getDecoder().decode(parts[2]));
+        }
+    }
+
+    /** Result of one acquisition attempt; {@code holderTtlMs} is set when the lock is taken */
+    private record Attempt(DistributedLock lock, long holderTtlMs) {}
+
+    @PreDestroy
+    void shutdownWatchdog() {
+        lockWatchdog.shutdownNow();
+    }
 }
@@ -0,0 +1,207 @@
+package com.eventra.infrastructure;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Spring {@link Cache} that records caller-facing metrics around another cache.
+ *
+ * <h3>Meters (all tagged {@code cache}):</h3>
+ * <ul>
+ *   <li>{@code eventra.cache.gets} — timer per {@code key_class} and {@code result=hit|miss};
+ *       its count is the hit/miss count, its time the lookup latency</li>
+ *   <li>{@code eventra.cache.load} — time to compute a missing value, as a histogram</li>
+ *   <li>{@code eventra.cache.puts}, {@code eventra.cache.evictions} (per {@code op=evict|clear})</li>
+ * </ul>
+ *
+ * <p>Load time: with {@code @Cacheable(sync = true)} the loader is timed directly, and the
+ * read only counts as a miss if the loader ran on the caller's thread (a value served
+ * stale or by a coalesced load is a hit). Without {@code sync}, Spring calls
+ * {@code get} then {@code put} on the same thread, so the time from a miss to the put of
+ * the same key is the load time.</p>
+ *
+ * <p>Key class groups keys without exploding tag cardinality: for composite keys such as
+ * {@code page|filter|industry=...} it is the first two segments ({@code page:filter});
+ * plain ids are {@code id}. Every read is also offered to the {@link CacheKeySampler}.</p>
+ */
+public class InstrumentedCache implements Cache {
+
+    static final String ID_KEY_CLASS = "id";
+    private static final Pattern KEY_CLASS_SEGMENT = Pattern.compile("[a-z][a-z0-9_-]{0,31}");
+    /** Misses awaiting their put per thread; misses never followed by a put are dropped past this */
+    private static final int MAX_PENDING_LOADS = 32;
+
+    private final Cache delegate;
+    private final MeterRegistry meterRegistry;
+    private final CacheKeySampler keySampler;
+    private final Timer loadTimer;
+    private final Counter puts;
+    private final Counter evictions;
+    private final Counter clears;
+    private final ConcurrentMap<String, Timer> getTimers = new ConcurrentHashMap<>();
+    private final ThreadLocal<Map<Object, Long>> pendingLoads = ThreadLocal.withInitial(HashMap::new);
+
+    InstrumentedCache(Cache delegate, MeterRegistry meterRegistry, CacheKeySampler keySampler) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.keySampler = keySampler;
+        String name = delegate.getName();
+        this.loadTimer = Timer.builder("eventra.cache.load")
+                .description("Time to compute a value missing from the cache")
+                .tag("cache", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.puts = Counter.builder("eventra.cache.puts").tag("cache", name).register(meterRegistry);
+        this.evictions = Counter.builder("eventra.cache.evictions")
+                .tag("cache", name).tag("op", "evict").register(meterRegistry);
+        this.clears = Counter.builder("eventra.cache.evictions")
+                .tag("cache", name).tag("op", "clear").register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        long start = System.nanoTime();
+        ValueWrapper wrapper = delegate.get(key);
+        recordGet(key, wrapper != null, start);
+        return wrapper;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        long start = System.nanoTime();
+        T value = delegate.get(key, type);
+        recordGet(key, value != null, start);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        long start = System.nanoTime();
+        Thread caller = Thread.currentThread();
+        long[] loadNanos = {-1};
+        T value = delegate.get(key, () -> {
+            if (Thread.currentThread() != caller) {
+                return valueLoader.call(); // background refresh, not this caller's miss
+            }
+            long loadStart = System.nanoTime();
+            try {
+                return valueLoader.call();
+            } finally {
+                loadNanos[0] = System.nanoTime() - loadStart;
+            }
+        });
+        boolean loaded = loadNanos[0] >= 0;
+        if (loaded) {
+            loadTimer.record(loadNanos[0], TimeUnit.NANOSECONDS);
+        }
+        recordGet(key, !loaded, start);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        recordPut(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            recordPut(key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        evictions.increment();
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        if (evicted) {
+            evictions.increment();
+        }
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        clears.increment();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = delegate.invalidate();
+        clears.increment();
+        return invalidated;
+    }
+
+    private void recordGet(Object key, boolean hit, long start) {
+        long now = System.nanoTime();
+        String keyClass = keyClass(key);
+        getTimers.computeIfAbsent(keyClass + (hit ? "|hit" : "|miss"), k -> Timer.builder("eventra.cache.gets")
+                        .tag("cache", getName())
+                        .tag("key_class", keyClass)
+                        .tag("result", hit ? "hit" : "miss")
+                        .register(meterRegistry))
+                .record(now - start, TimeUnit.NANOSECONDS);
+        if (!hit) {
+            Map<Object, Long> pending = pendingLoads.get();
+            if (pending.size() >= MAX_PENDING_LOADS) {
+                pending.clear();
+            }
+            pending.put(key, now);
+        }
+        keySampler.sample(getName(), key);
+    }
+
+    private void recordPut(Object key) {
+        puts.increment();
+        Map<Object, Long> pending = pendingLoads.get();
+        Long missedAt = pending.isEmpty() ? null : pending.remove(key);
+        if (missedAt != null) {
+            loadTimer.record(System.nanoTime() - missedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Bounded-cardinality class of a key, see the class comment */
+    static String keyClass(Object key) {
+        String rendered = String.valueOf(key);
+        int first = rendered.indexOf('|');
+        if (first < 0) {
+            return ID_KEY_CLASS;
+        }
+        int second = rendered.indexOf('|', first + 1);
+        String kind = rendered.substring(0, first);
+        String sub = rendered.substring(first + 1, second < 0 ? rendered.length() : second);
+        if (!KEY_CLASS_SEGMENT.matcher(kind).matches()) {
+            return "other";
+        }
+        return KEY_CLASS_SEGMENT.matcher(sub).matches() ? kind + ":" + sub : kind;
+    }
+}
@@ -0,0 +1,57 @@
+package com.eventra.infrastructure;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link CacheManager} that wraps every cache in an {@link InstrumentedCache}.
+ *
+ * <p>Applied outermost, so metrics reflect what callers see: a near-cache hit or a
+ * stale value served during a refresh is a hit.</p>
+ */
+public class InstrumentedCacheManager implements CacheManager, DisposableBean {
+
+    private final CacheManager delegate;
+    private final MeterRegistry meterRegistry;
+    private final CacheKeySampler keySampler;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public InstrumentedCacheManager(CacheManager delegate, MeterRegistry meterRegistry, CacheKeySampler keySampler) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.keySampler = keySampler;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /** The wrapped managers are not beans themselves, so pass shutdown on */
+    @Override
+    public void destroy() throws Exception {
+        if (delegate instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+
+    private Cache createCache(String name) {
+        Cache cache = delegate.getCache(name);
+        return cache != null ? new InstrumentedCache(cache, meterRegistry, keySampler) : null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.eventra.infrastructure;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Records the encoded size of every value a cache writes to or reads from Redis,
+ * as {@code eventra.cache.value.bytes{cache, op=write|read}}.
+ *
+ * <p>One instance per cache, since the serializer does not know which cache it is
+ * encoding for. Near-cache hits never reach it.</p>
+ */
+public class MeteredRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> delegate;
+    private final DistributionSummary writeBytes;
+    private final DistributionSummary readBytes;
+
+    public MeteredRedisSerializer(RedisSerializer<Object> delegate, String cacheName, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.writeBytes = summary(cacheName, "write", meterRegistry);
+        this.readBytes = summary(cacheName, "read", meterRegistry);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] bytes = delegate.serialize(value);
+        if (bytes != null) {
+            writeBytes.record(bytes.length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes != null) {
+            readBytes.record(bytes.length);
+        }
+        return delegate.deserialize(bytes);
+    }
+
+    private static DistributionSummary summary(String cacheName, String op, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder("eventra.cache.value.bytes")
+                .description("Encoded size of cache values in Redis")
+                .baseUnit("bytes")
+                .tag("cache", cacheName)
+                .tag("op", op)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,98 @@
+package com.eventra.infrastructure;
+
+import com.eventra.config.RateLimitProperties;
+import com.eventra.entity.Company;
+import com.eventra.entity.Organizer;
+import com.eventra.entity.Role;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitContext;
+import com.eventra.repository.CompanyRepository;
+import com.eventra.repository.OrganizerRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Maps a rate limit caller to the account whose {@link RateLimitProperties.Scope#ACCOUNT}
+ * buckets it draws from.
+ *
+ * <ul>
+ *   <li>User with a company profile → {@code company:{companyId}}</li>
+ *   <li>User with an organizer profile → {@code organizer:{organizerId}}</li>
+ *   <li>Any other authenticated user (e.g. admin) → {@code user:{userId}}</li>
+ *   <li>Anonymous (IP-keyed) caller → {@code null}; account levels are skipped</li>
+ * </ul>
+ *
+ * <p>The role claim from the token ({@link RateLimitContext#role()}) picks the single
+ * repository to ask: admins resolve without any query, company and organizer users
+ * with one. Results are cached per user, including the user-scope fallback for users
+ * without a profile (profiles never change owner), so only the first account-scoped
+ * request of a user within the cache TTL reaches Mongo. The account id itself is not
+ * a token claim: profiles are created after registration, so a claim would be stale.</p>
+ */
+@Component
+@Slf4j
+public class RateLimitAccountResolver {
+
+    private static final String USER_KEY_PREFIX = "user:";
+
+    private final CompanyRepository companyRepository;
+    private final OrganizerRepository organizerRepository;
+    private final Cache<String, String> accountsByUser;
+
+    public RateLimitAccountResolver(CompanyRepository companyRepository,
+                                    OrganizerRepository organizerRepository,
+                                    RateLimitProperties properties) {
+        this.companyRepository = companyRepository;
+        this.organizerRepository = organizerRepository;
+        this.accountsByUser = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalCache().getMaximumSize())
+                .expireAfterWrite(Duration.ofMinutes(30))
+                .build();
+    }
+
+    /**
+     * @return account key for the caller, or null if the caller is anonymous
+     */
+    public String resolve(RateLimitContext context) {
+        if (!context.key().startsWith(USER_KEY_PREFIX)) {
+            return null;
+        }
+        String userId = context.key().substring(USER_KEY_PREFIX.length());
+        String cached = accountsByUser.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (context.role() == Role.ADMIN) {
+            return context.key(); // admins own no profile; nothing to look up
+        }
+
+        try {
+            Optional<String> profile = switch (context.role()) {
+                case COMPANY -> findCompany(userId);
+                case ORGANIZER -> findOrganizer(userId);
+                case null, default -> findCompany(userId).or(() -> findOrganizer(userId));
+            };
+            // Users without a profile are cached too, as their own user-scope account
+            String account = profile.orElse(context.key());
+            accountsByUser.put(userId, account);
+            return account;
+        } catch (Exception e) {
+            // Not cached: the next request retries the lookup
+            log.warn("Rate limit account lookup failed for userId={}, using user scope: {}", userId, e.getMessage());
+            return context.key();
+        }
+    }
+
+    private Optional<String> findCompany(String userId) {
+        return companyRepository.findByUserId(userId).map(Company::getId).map(id -> "company:" + id);
+    }
+
+    private Optional<String> findOrganizer(String userId) {
+        return organizerRepository.findByUserId(userId).map(Organizer::getId).map(id -> "organizer:" + id);
+    }
+}
@@ -0,0 +1,234 @@
+package com.eventra.infrastructure;
+
+import com.eventra.config.RateLimitProperties;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitDecision;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local-first admission with batched global reconciliation for
+ * {@link RateLimitProperties.SyncMode#ASYNC} tiers.
+ *
+ * <h3>How it works:</h3>
+ * <pre>
+ * Request → local bucket → WindowState (this JVM's view of the fixed window)
+ *                              │  admit iff global + inFlight + pending &lt; capacity
+ *                              ▼
+ *            every flush-interval: INCRBY eventra:ratelimit:async:{tier:key}:{windowStart} pending
+ *                                  (one pipelined round trip for all active keys)
+ *                              ▼
+ *            reply = global count across all JVMs → becomes the new baseline
+ * </pre>
+ *
+ * <h3>Over-admission bound:</h3>
+ * <p>Another instance's admissions become visible after at most one flush interval
+ * {@code T} plus one Redis round trip. With {@code N} instances serving the same key at
+ * a per-instance admit rate {@code r}, the worst case per window is
+ * {@code capacity + (N - 1) * min(capacity, r * T)}; the absolute ceiling is
+ * {@code N * capacity} because each instance's local bucket still caps its own burst.
+ * A client pinned to one instance is never over-admitted.</p>
+ *
+ * <h3>Failure mode: fail-open</h3>
+ * <p>If a flush fails the drained deltas are returned to the pending counters and
+ * admission continues on local state, exactly as synchronous mode fails open.</p>
+ */
+@Component
+@Slf4j
+public class RateLimitSynchronizer {
+
+    private static final String ASYNC_KEY_PREFIX = "eventra:ratelimit:async:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<String, WindowState> states;
+    private final Timer flushTimer;
+    private final Counter flushFailures;
+
+    public RateLimitSynchronizer(StringRedisTemplate redisTemplate,
+                                 RateLimitProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.states = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalCache().getMaximumSize())
+                .expireAfterAccess(properties.getLocalCache().getExpireAfterAccess())
+                .build();
+        this.flushTimer = Timer.builder("eventra.ratelimit.async.flush.duration")
+                .description("Batched rate limit delta flush to Redis")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("eventra.ratelimit.async.flush.failed")
+                .description("Rate limit delta flushes that failed and were re-queued")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admit against the last known global count plus this JVM's unflushed admissions.
+     * No network I/O happens on this path.
+     *
+     * @param tierKey  "{tier}:{key}" identifier
+     * @param capacity requests allowed per window
+     * @param windowMs fixed window length in milliseconds
+     * @param now      current epoch millis
+     * @param cost     tokens to consume
+     */
+    RateLimitDecision tryAcquire(String tierKey, int capacity, long windowMs, long now, int cost) {
+        long windowStart = now - (now % windowMs);
+        long resetAt = windowStart + windowMs;
+
+        WindowState state = states.get(tierKey, k -> new WindowState(k, windowMs, windowStart));
+        state.rollTo(windowStart);
+
+        while (true) {
+            // Read in the reverse of the order flush() moves admissions (pending → inFlight →
+            // globalCount), so a concurrent flush makes us over-count, never under-count
+            long pending = state.pending.get();
+            long inFlight = state.inFlight;
+            long used = state.globalCount + inFlight + pending;
+            if (used + cost > capacity) {
+                return RateLimitDecision.rejected(capacity, resetAt, bucketLabel(tierKey));
+            }
+            if (state.pending.compareAndSet(pending, pending + cost)) {
+                return new RateLimitDecision(true, capacity, capacity - used - cost, resetAt, bucketLabel(tierKey));
+            }
+        }
+    }
+
+    /**
+     * Push pending deltas for every active key in one pipelined round trip and
+     * adopt the returned global counts as the new local baselines.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.async.flush-interval:250ms}")
+    public void flush() {
+        List<WindowState> batch = new ArrayList<>(states.asMap().values());
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<Drained> drained = new ArrayList<>(batch.size());
+        for (WindowState state : batch) {
+            long windowStart = now - (now % state.windowMs);
+            long delta = state.drain(windowStart);
+            if (delta < 0) {
+                continue; // idle since its window ended — nothing worth reporting
+            }
+            drained.add(new Drained(state, windowStart, delta));
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        flushTimer.record(() -> {
+            try {
+                List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (Drained d : drained) {
+                        byte[] key = (ASYNC_KEY_PREFIX + d.state.tierKey + ":" + d.windowStart)
+                                .getBytes(StandardCharsets.UTF_8);
+                        connection.stringCommands().incrBy(key, d.delta);
+                        connection.keyCommands().pExpire(key, d.state.windowMs * 2);
+                    }
+                    return null;
+                });
+
+                for (int i = 0; i < drained.size(); i++) {
+                    Drained d = drained.get(i);
+                    Object total = replies.get(i * 2);
+                    d.state.applyGlobal(d.windowStart, total instanceof Long l ? l : d.state.globalCount + d.delta);
+                }
+            } catch (Exception e) {
+                flushFailures.increment();
+                log.warn("Rate limit delta flush failed for {} keys, re-queuing: {}", drained.size(), e.getMessage());
+                for (Drained d : drained) {
+                    d.state.requeue(d.windowStart, d.delta);
+                }
+            }
+        });
+    }
+
+    private static String bucketLabel(String tierKey) {
+        int colon = tierKey.indexOf(':');
+        return colon > 0 ? tierKey.substring(0, colon) : tierKey;
+    }
+
+    private record Drained(WindowState state, long windowStart, long delta) {}
+
+    /**
+     * This JVM's view of one key's current fixed window.
+     * {@code globalCount} already includes every delta this JVM has flushed.
+     */
+    static final class WindowState {
+        final String tierKey;
+        final long windowMs;
+        final AtomicLong pending = new AtomicLong();
+        volatile long windowStart;
+        volatile long inFlight;
+        volatile long globalCount;
+
+        WindowState(String tierKey, long windowMs, long windowStart) {
+            this.tierKey = tierKey;
+            this.windowMs = windowMs;
+            this.windowStart = windowStart;
+        }
+
+        /** Start a fresh window; unflushed admissions from the old one are dropped. */
+        void rollTo(long newWindowStart) {
+            if (newWindowStart <= windowStart) {
+                return; // hot path: same window, no lock
+            }
+            synchronized (this) {
+                if (newWindowStart > windowStart) {
+                    windowStart = newWindowStart;
+                    pending.set(0);
+                    inFlight = 0;
+                    globalCount = 0;
+                }
+            }
+        }
+
+        /**
+         * Move pending admissions to in flight for a flush of the given window, or return
+         * -1 if the window has rolled. Holds the monitor so {@link #rollTo} cannot reset
+         * between the two steps and leave the new window with a negative pending count.
+         */
+        synchronized long drain(long expectedWindowStart) {
+            if (windowStart != expectedWindowStart) {
+                return -1;
+            }
+            // Publish as in flight before removing from pending, so admission never sees neither
+            long delta = pending.get();
+            inFlight = delta;
+            pending.addAndGet(-delta);
+            return delta;
+        }
+
+        /**
+         * Return a failed flush's delta to pending. If the window rolled meanwhile the delta
+         * is dropped, like any other unflushed admission of an ended window, rather than
+         * being counted (and flushed) against the new one.
+         */
+        synchronized void requeue(long drainedWindowStart, long delta) {
+            if (drainedWindowStart == windowStart) {
+                pending.addAndGet(delta);
+                inFlight = 0;
+            }
+        }
+
+        synchronized void applyGlobal(long flushedWindowStart, long total) {
+            if (flushedWindowStart == windowStart) {
+                globalCount = total;
+                inFlight = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.eventra.infrastructure;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Executes preloaded Lua scripts by SHA instead of shipping the source on every call.
+ *
+ * <h3>Lifecycle:</h3>
+ * <ol>
+ *   <li>Owners {@link #register} their scripts once at construction time
+ *       (SHA1 is computed locally, no network call)</li>
+ *   <li>On {@link ApplicationReadyEvent} every registered script is sent via
+ *       {@code SCRIPT LOAD} so the first real request already hits the script cache</li>
+ *   <li>Calls use {@code EVALSHA}. If Redis answers {@code NOSCRIPT} (failover,
+ *       restart, {@code SCRIPT FLUSH}) the script is reloaded and the call retried once</li>
+ * </ol>
+ *
+ * <h3>Metrics:</h3>
+ * <ul>
+ *   <li>{@code eventra.redis.script.reloads{script}} — NOSCRIPT-triggered reloads</li>
+ * </ul>
+ *
+ * <p>Error handling is left to callers: rate limiting fails open,
+ * idempotency/locking fails closed.</p>
+ */
+@Component
+@Slf4j
+public class RedisScriptExecutor {
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, RegisteredScript> scriptsBySha = new ConcurrentHashMap<>();
+
+    public RedisScriptExecutor(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Register a script for preloading and SHA-based execution.
+     *
+     * @param name       short name used in logs and metric tags
+     * @param source     Lua source
+     * @param resultType Long, Boolean, String or List
+     * @return script handle to pass to {@link #execute}
+     */
+    public <T> RedisScript<T> register(String name, String source, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>(source, resultType);
+        Counter reloads = Counter.builder("eventra.redis.script.reloads")
+                .description("Lua scripts reloaded after a NOSCRIPT reply")
+                .tag("script", name)
+                .register(meterRegistry);
+        scriptsBySha.putIfAbsent(script.getSha1(), new RegisteredScript(name, script, reloads));
+        return script;
+    }
+
+    /**
+     * SCRIPT LOAD every registered script. Failures are logged, not thrown —
+     * an unreachable Redis at startup is recovered by the NOSCRIPT path later.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadScripts() {
+        for (RegisteredScript registered : scriptsBySha.values()) {
+            try {
+                load(registered.script());
+                log.info("Lua script preloaded: name={}, sha={}", registered.name(), registered.script().getSha1());
+            } catch (Exception e) {
+                log.warn("Lua script preload failed: name={}, error={}", registered.name(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Run a registered script via EVALSHA, reloading it once on NOSCRIPT.
+     *
+     * @param script handle returned by {@link #register}
+     * @param keys   KEYS[] passed to the script
+     * @param args   ARGV[] passed to the script
+     * @return deserialized script result (strings for bulk replies, Long for integers)
+     */
+    public <T> T execute(RedisScript<T> script, List<String> keys, String... args) {
+        List<byte[]> encoded = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            encoded.add(key.getBytes(StandardCharsets.UTF_8));
+        }
+        return executeEncoded(script, encoded, args);
+    }
+
+    /**
+     * Same as {@link #execute}, for callers that hold their keys already UTF-8 encoded
+     * (e.g. rate limit keys precomputed once per request).
+     */
+    public <T> T executeEncoded(RedisScript<T> script, List<byte[]> keys, String... args) {
+        try {
+            return evalSha(script, keys, args);
+        } catch (RuntimeException e) {
+            if (!isNoScriptError(e)) {
+                throw e;
+            }
+            RegisteredScript registered = scriptsBySha.get(script.getSha1());
+            if (registered != null) {
+                registered.reloads().increment();
+                log.warn("NOSCRIPT for Lua script name={}, reloading", registered.name());
+            }
+            load(script);
+            return evalSha(script, keys, args);
+        }
+    }
+
+    private void load(RedisScript<?> script) {
+        redisTemplate.execute((RedisCallback<String>) connection ->
+                connection.scriptingCommands().scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T evalSha(RedisScript<T> script, List<byte[]> keys, String... args) {
+        byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+        int i = 0;
+        for (byte[] key : keys) {
+            keysAndArgs[i++] = key;
+        }
+        for (String arg : args) {
+            keysAndArgs[i++] = arg.getBytes(StandardCharsets.UTF_8);
+        }
+
+        ReturnType returnType = ReturnType.fromJavaType(script.getResultType());
+        Object raw = redisTemplate.execute((RedisCallback<Object>) connection ->
+                connection.scriptingCommands().evalSha(script.getSha1(), returnType, keys.size(), keysAndArgs));
+        return (T) deserialize(raw);
+    }
+
+    private static Object deserialize(Object raw) {
+        if (raw instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (raw instanceof List<?> list) {
+            List<Object> result = new ArrayList<>(list.size());
+            for (Object element : list) {
+                result.add(deserialize(element));
+            }
+            return result;
+        }
+        return raw;
+    }
+
+    private static boolean isNoScriptError(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record RegisteredScript(String name, RedisScript<?> script, Counter reloads) {}
+}
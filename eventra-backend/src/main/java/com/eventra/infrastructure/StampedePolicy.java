@@ -0,0 +1,28 @@
+package com.eventra.infrastructure;
+
+import java.time.Duration;
+
+/**
+ * Stampede protection settings for one cache; see {@link StampedeProtectedCache}.
+ *
+ * @param freshFor      how long an entry is served without triggering a refresh
+ * @param serveStaleFor extra time an expired entry is still served while one caller refreshes it;
+ *                      the Redis TTL of the cache is {@code freshFor + serveStaleFor}
+ * @param beta          early refresh aggressiveness ({@code 1.0} is the usual choice, {@code 0} disables it)
+ * @param lockLease     lease of the cross-node recompute lock; renewed while the computation runs
+ * @param lockWait      how long a caller with nothing cached waits for another node's recompute
+ */
+public record StampedePolicy(Duration freshFor, Duration serveStaleFor, double beta,
+                             Duration lockLease, Duration lockWait) {
+
+    public StampedePolicy {
+        if (beta < 0) {
+            throw new IllegalArgumentException("beta must not be negative: " + beta);
+        }
+    }
+
+    /** Redis TTL that keeps entries around for the whole stale window */
+    public Duration entryTtl() {
+        return freshFor.plus(serveStaleFor);
+    }
+}
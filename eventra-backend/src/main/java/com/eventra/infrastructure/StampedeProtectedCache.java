@@ -0,0 +1,345 @@
+package com.eventra.infrastructure;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Clock;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Spring {@link Cache} decorator that keeps an expensive entry from being recomputed
+ * by every caller at once when it expires.
+ *
+ * <h3>Read path ({@code @Cacheable(sync = true)}):</h3>
+ * <pre>
+ * fresh                      → return it
+ * fresh, early refresh drawn → return it, refresh in background
+ * stale (within stale window)→ return it, refresh in background
+ * missing                    → one caller per JVM loads, under a cross-node lock;
+ *                              the others in this JVM share its result
+ * </pre>
+ *
+ * <p>Background refreshes take the recompute lock without waiting: if another node
+ * already holds it, this node keeps serving the stale value. A caller with nothing
+ * cached waits up to {@link StampedePolicy#lockWait()} for the holder, then re-reads
+ * the cache, and only computes itself if the holder produced nothing.</p>
+ *
+ * <h3>Early refresh:</h3>
+ * <p>Each fresh hit refreshes with probability rising toward expiry
+ * ({@code now - computeTime * beta * ln(rand) >= freshUntil}), so a hot key is usually
+ * recomputed by one request shortly before it goes stale. Slow computations start
+ * earlier.</p>
+ *
+ * <p>Values are stored wrapped in {@link Stamped}. The loader of a background refresh
+ * runs on the refresh executor, so it must not depend on request- or thread-bound
+ * state. Lock failures fail open: the caller computes the value itself.</p>
+ */
+@Slf4j
+public class StampedeProtectedCache implements Cache {
+
+    private static final String LOCK_PREFIX = "cache:";
+
+    private final Cache delegate;
+    private final StampedePolicy policy;
+    private final IdempotencyService lockService;
+    private final Executor refreshExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final DoubleSupplier random;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    StampedeProtectedCache(Cache delegate, StampedePolicy policy, IdempotencyService lockService,
+                           Executor refreshExecutor, MeterRegistry meterRegistry,
+                           Clock clock, DoubleSupplier random) {
+        this.delegate = delegate;
+        this.policy = policy;
+        this.lockService = lockService;
+        this.refreshExecutor = refreshExecutor;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.random = random;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    /** Plain lookup: returns fresh and stale values alike, never refreshes */
+    @Override
+    public ValueWrapper get(Object key) {
+        Stamped stamped = read(key);
+        return stamped != null ? new SimpleValueWrapper(stamped.getValue()) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Stamped stamped = read(key);
+        if (stamped != null) {
+            long now = clock.millis();
+            if (now < stamped.getFreshUntil()) {
+                if (!refreshEarly(stamped, now)) {
+                    count("fresh");
+                    return (T) stamped.getValue();
+                }
+                count("early_refresh");
+            } else {
+                count("stale");
+            }
+            refreshInBackground(key, valueLoader, stamped.getComputedAt());
+            return (T) stamped.getValue();
+        }
+
+        count("miss");
+        try {
+            return (T) loadCoalesced(key, valueLoader);
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value != null) {
+            delegate.put(key, stamp(value, 0));
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value != null ? stamp(value, 0) : null);
+        if (existing == null) {
+            return null;
+        }
+        return new SimpleValueWrapper(existing.get() instanceof Stamped s ? s.getValue() : existing.get());
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    /**
+     * Load through the in-flight future for this key, or start one.
+     * A refresh that was skipped completes its future with null; waiters then load themselves.
+     */
+    private Object loadCoalesced(Object key, Callable<?> loader) throws Exception {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            count("coalesced");
+            Object shared = await(existing);
+            return shared != null ? shared : loadAcrossNodes(key, loader);
+        }
+        try {
+            Object value = loadAcrossNodes(key, loader);
+            mine.complete(value);
+            return value;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Object loadAcrossNodes(Object key, Callable<?> loader) throws Exception {
+        Optional<DistributedLock> lock;
+        try {
+            lock = lockService.tryLock(lockKey(key), policy.lockLease(), policy.lockWait());
+        } catch (Exception e) {
+            log.warn("Cache recompute lock unavailable, computing without it: cache={}, key={}, error={}",
+                    getName(), key, e.getMessage());
+            return compute(key, loader);
+        }
+
+        if (lock.isEmpty()) {
+            // The holder is still computing after our wait; use its result if it landed meanwhile
+            Stamped stamped = read(key);
+            return stamped != null ? stamped.getValue() : compute(key, loader);
+        }
+        try (DistributedLock held = lock.get()) {
+            Stamped stamped = read(key);
+            if (stamped != null && clock.millis() < stamped.getFreshUntil()) {
+                return stamped.getValue();
+            }
+            return compute(key, loader);
+        }
+    }
+
+    private void refreshInBackground(Object key, Callable<?> loader, long seenComputedAt) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, mine) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                Object value = null;
+                try {
+                    value = refresh(key, loader, seenComputedAt);
+                } catch (Exception e) {
+                    log.warn("Cache refresh failed, serving stale value: cache={}, key={}, error={}",
+                            getName(), key, e.getMessage());
+                } finally {
+                    inFlight.remove(key, mine);
+                    mine.complete(value);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, mine);
+            mine.complete(null);
+        }
+    }
+
+    /** @return the refreshed value, or null if another node holds the recompute lock */
+    private Object refresh(Object key, Callable<?> loader, long seenComputedAt) throws Exception {
+        Optional<DistributedLock> lock = lockService.tryLock(lockKey(key), policy.lockLease());
+        if (lock.isEmpty()) {
+            return null;
+        }
+        try (DistributedLock held = lock.get()) {
+            Stamped stamped = read(key);
+            // Another node refreshed between our read and the lock
+            if (stamped != null && stamped.getComputedAt() > seenComputedAt) {
+                return stamped.getValue();
+            }
+            return compute(key, loader);
+        }
+    }
+
+    private Object compute(Object key, Callable<?> loader) throws Exception {
+        long start = clock.millis();
+        Object value = loader.call();
+        if (value != null) {
+            delegate.put(key, stamp(value, clock.millis() - start));
+        }
+        return value;
+    }
+
+    private boolean refreshEarly(Stamped stamped, long now) {
+        if (policy.beta() <= 0 || stamped.getComputeMillis() <= 0) {
+            return false;
+        }
+        // 1 - nextDouble() is in (0, 1], so the log is finite and <= 0
+        double gap = -stamped.getComputeMillis() * policy.beta() * Math.log(1.0 - random.getAsDouble());
+        return now + gap >= stamped.getFreshUntil();
+    }
+
+    private Stamped stamp(Object value, long computeMillis) {
+        long now = clock.millis();
+        return new Stamped(value, now, computeMillis, now + policy.freshFor().toMillis());
+    }
+
+    private Stamped read(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        Object stored = wrapper != null ? wrapper.get() : null;
+        if (stored == null) {
+            return null;
+        }
+        if (stored instanceof Stamped stamped) {
+            return stamped;
+        }
+        // Written before this cache was protected: serve it, but treat it as stale
+        return new Stamped(stored, 0, 0, 0);
+    }
+
+    private String lockKey(Object key) {
+        return LOCK_PREFIX + getName() + ":" + key;
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("eventra.cache.stampede", "cache", getName(), "outcome", outcome).increment();
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException | CompletionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * Stored form of a protected entry. Not final so the Redis JSON serializer
+     * records its type.
+     */
+    public static class Stamped {
+        private Object value;
+        private long computedAt;
+        private long computeMillis;
+        private long freshUntil;
+
+        public Stamped() {
+        }
+
+        public Stamped(Object value, long computedAt, long computeMillis, long freshUntil) {
+            this.value = value;
+            this.computedAt = computedAt;
+            this.computeMillis = computeMillis;
+            this.freshUntil = freshUntil;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public long getComputedAt() {
+            return computedAt;
+        }
+
+        /** How long the value took to compute; scales the early refresh window */
+        public long getComputeMillis() {
+            return computeMillis;
+        }
+
+        public long getFreshUntil() {
+            return freshUntil;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.eventra.infrastructure;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link CacheManager} that wraps the caches with a {@link StampedePolicy} in a
+ * {@link StampedeProtectedCache}; all other caches are returned unchanged.
+ *
+ * <p>Background refreshes run on a small bounded pool shared by all protected caches.
+ * When the queue is full the refresh is dropped and the stale value keeps being
+ * served; the next read past expiry tries again.</p>
+ */
+public class StampedeProtectedCacheManager implements CacheManager, DisposableBean {
+
+    private static final int REFRESH_THREADS = 2;
+    private static final int REFRESH_QUEUE = 64;
+
+    private final CacheManager delegate;
+    private final Map<String, StampedePolicy> policies;
+    private final IdempotencyService lockService;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public StampedeProtectedCacheManager(CacheManager delegate, Map<String, StampedePolicy> policies,
+                                         IdempotencyService lockService, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.policies = Map.copyOf(policies);
+        this.lockService = lockService;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(REFRESH_QUEUE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private Cache createCache(String name) {
+        Cache cache = delegate.getCache(name);
+        StampedePolicy policy = policies.get(name);
+        if (cache == null || policy == null) {
+            return cache;
+        }
+        return new StampedeProtectedCache(cache, policy, lockService, refreshExecutor, meterRegistry,
+                Clock.systemUTC(), () -> ThreadLocalRandom.current().nextDouble());
+    }
+}
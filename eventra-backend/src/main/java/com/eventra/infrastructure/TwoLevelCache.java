@@ -0,0 +1,164 @@
+package com.eventra.infrastructure;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} with a per-JVM Caffeine L1 in
+ * front of a Redis L2.
+ *
+ * <p>Reads try L1, then L2 (promoting the hit into L1). Writes and evictions go
+ * to L2 first, then L1, then publish an invalidation so other nodes drop their
+ * L1 copy. L1 is keyed by {@code String.valueOf(key)}, matching how the Redis
+ * cache renders keys, so an invalidation received as text hits the same entry.</p>
+ *
+ * <p>Every read is reported to the access recorder (rendered key), which feeds
+ * {@link CacheAccessStats} for warmup and refresh-ahead.</p>
+ *
+ * <p>Null values are never cached at either level.</p>
+ */
+public class TwoLevelCache implements org.springframework.cache.Cache {
+
+    /** Invalidation key meaning "all entries of this cache" */
+    static final String ALL_KEYS = "*";
+
+    private final String name;
+    private final org.springframework.cache.Cache remote;
+    private final Cache<String, Object> local;
+    private final Consumer<String> invalidationPublisher;
+    private final Consumer<String> accessRecorder;
+
+    /**
+     * @param invalidationPublisher called with the rendered key (or {@link #ALL_KEYS})
+     *                              after every write or eviction
+     * @param accessRecorder        called with the rendered key on every read
+     */
+    TwoLevelCache(String name, org.springframework.cache.Cache remote, Cache<String, Object> local,
+                  Consumer<String> invalidationPublisher, Consumer<String> accessRecorder) {
+        this.name = name;
+        this.remote = remote;
+        this.local = local;
+        this.invalidationPublisher = invalidationPublisher;
+        this.accessRecorder = accessRecorder;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        accessRecorder.accept(localKey);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            local.put(localKey, wrapper.get());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        accessRecorder.accept(localKey);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            return (T) value;
+        }
+        T loaded = remote.get(key, valueLoader);
+        if (loaded != null) {
+            local.put(localKey, loaded);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        if (value != null) {
+            local.put(localKey(key), value);
+        }
+        invalidationPublisher.accept(localKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        Object current = existing != null ? existing.get() : value;
+        if (current != null) {
+            local.put(localKey(key), current);
+        }
+        if (existing == null) {
+            invalidationPublisher.accept(localKey(key));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        invalidationPublisher.accept(localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        local.invalidate(localKey(key));
+        invalidationPublisher.accept(localKey(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.accept(ALL_KEYS);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        local.invalidateAll();
+        invalidationPublisher.accept(ALL_KEYS);
+        return invalidated;
+    }
+
+    /** Apply an invalidation published by another node; L2 is already up to date */
+    void invalidateLocal(String renderedKey) {
+        if (ALL_KEYS.equals(renderedKey)) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(renderedKey);
+        }
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,104 @@
+package com.eventra.infrastructure;
+
+import com.eventra.config.NearCacheProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link CacheManager} that puts a Caffeine L1 in front of the Redis cache manager
+ * for the caches configured under {@code cache.near.caches}.
+ *
+ * <h3>Cross-node invalidation:</h3>
+ * <pre>
+ * node A: @CacheEvict → L2 evict → L1 evict → PUBLISH eventra:cache:invalidate "{origin}|{cache}|{key}"
+ * node B: message → drop L1 entry (or all entries for key "*")
+ * </pre>
+ *
+ * <p>Messages from this node are ignored; its L1 is already current. Pub/sub is
+ * fire-and-forget, so a node that misses a message (e.g. during a reconnect)
+ * serves the old value for at most its L1 TTL.</p>
+ *
+ * <p>Reads of two-level caches are counted in {@link CacheAccessStats}, so the
+ * near-cached profiles are also the ones warmed on startup.</p>
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    private static final String ORIGIN_ID = UUID.randomUUID().toString().substring(0, 8);
+
+    private final CacheManager remote;
+    private final NearCacheProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final CacheAccessStats accessStats;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remote, NearCacheProperties properties,
+                                StringRedisTemplate redisTemplate, CacheAccessStats accessStats) {
+        this.remote = remote;
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.accessStats = accessStats;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    /** Receives invalidations published by other nodes */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || ORIGIN_ID.equals(parts[0])) {
+            return;
+        }
+        if (caches.get(parts[1]) instanceof TwoLevelCache cache) {
+            cache.invalidateLocal(parts[2]);
+        }
+    }
+
+    private Cache createCache(String name) {
+        Cache l2 = remote.getCache(name);
+        NearCacheProperties.Spec spec = properties.getCaches().get(name);
+        if (l2 == null || spec == null) {
+            return l2;
+        }
+        return new TwoLevelCache(name, l2,
+                Caffeine.newBuilder()
+                        .maximumSize(spec.getMaximumSize())
+                        .expireAfterWrite(spec.getTtl())
+                        .build(),
+                key -> publishInvalidation(name, key),
+                key -> accessStats.record(name, key));
+    }
+
+    private void publishInvalidation(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(properties.getInvalidationChannel(),
+                    ORIGIN_ID + "|" + cacheName + "|" + key);
+        } catch (Exception e) {
+            // L2 is already updated; other nodes catch up within their L1 TTL
+            log.warn("Cache invalidation publish failed: cache={}, key={}, error={}", cacheName, key, e.getMessage());
+        }
+    }
+}
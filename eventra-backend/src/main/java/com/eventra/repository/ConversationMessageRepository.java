@@ -15,8 +15,6 @@ public interface ConversationMessageRepository extends MongoRepository<Conversat
 
     Page<ConversationMessage> findByConversationIdOrderByCreatedAtDesc(String conversationId, Pageable pageable);
 
-    List<ConversationMessage> findByConversationIdOrderByCreatedAtAsc(String conversationId);
-
     @Query(value = "{'conversationId': ?0, 'senderId': {'$ne': ?1}, 'status': {'$ne': 'READ'}}", count = true)
     int countUnreadInConversation(String conversationId, String userId);
 
@@ -0,0 +1,201 @@
+package com.eventra.scheduler;
+
+import com.eventra.config.CacheConfig;
+import com.eventra.config.CacheWarmupProperties;
+import com.eventra.infrastructure.CacheAccessStats;
+import com.eventra.infrastructure.DistributedLock;
+import com.eventra.infrastructure.IdempotencyService;
+import com.eventra.service.CompanyService;
+import com.eventra.service.OrganizerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Startup cache warmup and refresh-ahead for hot profiles and listings.
+ *
+ * <h3>Jobs:</h3>
+ * <ul>
+ *   <li><b>Warmup</b>: before readiness, loads the most-read sponsor and organizer profiles
+ *       and first listing pages per {@link CacheAccessStats}. Runs as an
+ *       {@link ApplicationRunner}, which Spring Boot completes before publishing
+ *       {@code ReadinessState.ACCEPTING_TRAFFIC}. Bounded by {@code cache.warmup.concurrency}
+ *       parallel loads and {@code cache.warmup.timeout}; loads still running at the deadline
+ *       are cancelled and startup continues.</li>
+ *   <li><b>Refresh-ahead</b>: every {@code cache.warmup.refresh-ahead-interval}, reloads hot
+ *       profiles whose Redis entry expires within {@code cache.warmup.refresh-ahead-window}.</li>
+ * </ul>
+ *
+ * <h3>Concurrency safety:</h3>
+ * Refresh-ahead runs on one instance per interval, under a Redis distributed lock.
+ * Warmup needs no lock: profiles already in Redis only fill this node's near cache.
+ * Both are best-effort; failures are logged and never block startup.
+ */
+@Component
+@Order(2)
+@Slf4j
+public class CacheWarmupScheduler implements ApplicationRunner {
+
+    static final String SPONSOR_DETAIL = "sponsor-detail";
+    static final String ORGANIZER_DETAIL = "organizer-detail";
+    static final String SPONSORS = "sponsors";
+    private static final String REFRESH_LOCK = "cache-warmup:refresh-ahead";
+
+    private final CacheWarmupProperties properties;
+    private final CacheAccessStats accessStats;
+    private final CompanyService companyService;
+    private final OrganizerService organizerService;
+    private final StringRedisTemplate redisTemplate;
+    private final IdempotencyService idempotencyService;
+
+    public CacheWarmupScheduler(CacheWarmupProperties properties, CacheAccessStats accessStats,
+                                CompanyService companyService, OrganizerService organizerService,
+                                StringRedisTemplate redisTemplate, IdempotencyService idempotencyService) {
+        this.properties = properties;
+        this.accessStats = accessStats;
+        this.companyService = companyService;
+        this.organizerService = organizerService;
+        this.redisTemplate = redisTemplate;
+        this.idempotencyService = idempotencyService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.isEnabled()) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Load the hottest entries with bounded concurrency and time.
+     *
+     * @return number of entries loaded
+     */
+    int warmUp() {
+        long start = System.currentTimeMillis();
+        List<Callable<Object>> loads = new ArrayList<>();
+        try {
+            accessStats.top(SPONSOR_DETAIL, properties.getTopProfiles())
+                    .forEach(id -> loads.add(() -> companyService.getCompanyById(id)));
+            accessStats.top(ORGANIZER_DETAIL, properties.getTopProfiles())
+                    .forEach(id -> loads.add(() -> organizerService.getOrganizerById(id)));
+            accessStats.top(SPONSORS, properties.getTopListings())
+                    .forEach(descriptor -> loads.add(() -> {
+                        companyService.warmListing(descriptor);
+                        return null;
+                    }));
+        } catch (Exception e) {
+            log.warn("Cache warmup skipped, access stats unavailable: {}", e.getMessage());
+            return 0;
+        }
+        if (loads.isEmpty()) {
+            log.info("Cache warmup: no access stats yet, starting cold");
+            return 0;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, properties.getConcurrency()), runnable -> {
+            Thread thread = new Thread(runnable, "cache-warmup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int loaded = 0;
+        int failed = 0;
+        int timedOut = 0;
+        try {
+            for (Future<Object> load : pool.invokeAll(loads, properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                if (load.isCancelled()) {
+                    timedOut++;
+                    continue;
+                }
+                try {
+                    load.get();
+                    loaded++;
+                } catch (ExecutionException e) {
+                    failed++;
+                    log.debug("Cache warmup load failed: {}", e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        log.info("Cache warmup: {} loaded, {} failed, {} timed out in {}ms",
+                loaded, failed, timedOut, System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    /**
+     * Reload hot profiles whose Redis entry is about to expire, so their next
+     * read does not miss. One instance per interval.
+     */
+    @Scheduled(fixedDelayString = "${cache.warmup.refresh-ahead-interval:60s}",
+            initialDelayString = "${cache.warmup.refresh-ahead-interval:60s}")
+    public void refreshAhead() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            Optional<DistributedLock> lock = idempotencyService.tryLock(REFRESH_LOCK, properties.getRefreshAheadInterval());
+            if (lock.isEmpty()) {
+                return;
+            }
+            try (DistributedLock held = lock.get()) {
+                int refreshed = refreshExpiring(SPONSOR_DETAIL, companyService::refreshCompany)
+                        + refreshExpiring(ORGANIZER_DETAIL, organizerService::refreshOrganizer);
+                if (refreshed > 0) {
+                    log.debug("Cache refresh-ahead: {} profiles reloaded", refreshed);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Cache refresh-ahead failed: {}", e.getMessage());
+        }
+    }
+
+    int refreshExpiring(String cacheName, Consumer<String> refresh) {
+        List<String> ids = accessStats.top(cacheName, properties.getTopProfiles());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // PTTL of every hot entry in one round trip: -2 missing, -1 no TTL, else millis left
+        List<Object> ttls = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String id : ids) {
+                connection.keyCommands().pTtl(CacheConfig.redisKey(cacheName, id).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+
+        long window = properties.getRefreshAheadWindow().toMillis();
+        int refreshed = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            if (ttls.get(i) instanceof Long ttl && ttl >= 0 && ttl < window) {
+                try {
+                    refresh.accept(ids.get(i));
+                    refreshed++;
+                } catch (Exception e) {
+                    log.debug("Cache refresh-ahead skipped: cache={}, key={}, error={}", cacheName, ids.get(i), e.getMessage());
+                }
+            }
+        }
+        return refreshed;
+    }
+}
@@ -3,11 +3,21 @@ package com.eventra.service;
 import com.eventra.dto.CompanyDTO;
 import com.eventra.dto.CompanyRequest;
 import com.eventra.entity.Company;
+import com.eventra.infrastructure.CacheAccessStats;
+import com.eventra.infrastructure.CacheGenerations;
 import com.eventra.mapper.CompanyMapper;
 import com.eventra.repository.CompanyRepository;
 import com.eventra.repository.UserRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -17,11 +27,20 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 
 import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 /**
@@ -29,12 +48,26 @@ import java.util.stream.Collectors;
  *
  * <h3>Caching strategy:</h3>
  * <ul>
- *   <li>{@code sponsors} cache: All verified companies listing (10 min TTL)</li>
+ *   <li>{@code sponsors} cache: verified listing and search pages plus their total counts (10 min TTL)</li>
  *   <li>{@code sponsor-detail} cache: Individual company by ID (5 min TTL)</li>
- *   <li>Eviction: On create, update, approve, reject — cascading evict both caches</li>
+ *   <li>Eviction: {@code sponsor-detail} by key on update, approve, reject</li>
  * </ul>
+ *
+ * <h3>Listing invalidation (tags):</h3>
+ * <p>{@code sponsors} entries are never evicted in bulk. Their keys carry the
+ * {@link CacheGenerations} stamp of the tag they depend on: {@code industry:{x}},
+ * else {@code location:{y}}, else {@code all} for unfiltered listings. A write that
+ * changes what verified listings show bumps {@code all} plus the industry and
+ * location tags of the company before and after the write. Listings for other
+ * industries and locations stay warm.</p>
+ *
+ * <h3>Warmup:</h3>
+ * <p>First-page listing requests are counted in {@link CacheAccessStats} as replayable
+ * descriptors ({@code "search|industry=Tech|s=20"}); {@link #warmListing} and
+ * {@link #refreshCompany} let the startup warmup reload them.</p>
  */
 @Service
+@Slf4j
 @RequiredArgsConstructor
 @Transactional
 public class CompanyService {
@@ -42,10 +75,13 @@ public class CompanyService {
     private final UserRepository userRepository;
     private final CompanyMapper companyMapper;
     private final MongoTemplate mongoTemplate;
+    private final CacheGenerations cacheGenerations;
+    private final CacheManager cacheManager;
+    private final CacheAccessStats cacheAccessStats;
+
+    static final String SPONSORS_NAMESPACE = "sponsors";
+    static final String ALL_SPONSORS_TAG = "all";
 
-    @Caching(evict = {
-        @CacheEvict(value = "sponsors", allEntries = true)
-    })
     public CompanyDTO createCompany(String userId, CompanyRequest request) {
         userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -58,6 +94,7 @@ public class CompanyService {
         company.setUserId(userId);
         company.setVerified(false);
 
+        // New profiles start unverified, so no listing changes until approval
         Company saved = companyRepository.save(company);
         return companyMapper.toDTO(saved);
     }
@@ -69,10 +106,15 @@ public class CompanyService {
         return companyMapper.toDTO(company);
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "sponsor-detail", key = "#companyId"),
-        @CacheEvict(value = "sponsors", allEntries = true)
-    })
+    /** Reload a profile into {@code sponsor-detail} ahead of its TTL */
+    @CachePut(value = "sponsor-detail", key = "#companyId")
+    public CompanyDTO refreshCompany(String companyId) {
+        Company company = companyRepository.findById(companyId)
+                .orElseThrow(() -> new RuntimeException("Company not found"));
+        return companyMapper.toDTO(company);
+    }
+
+    @CacheEvict(value = "sponsor-detail", key = "#companyId")
     public CompanyDTO updateCompany(String companyId, String userId, CompanyRequest request) {
         Company company = companyRepository.findById(companyId)
                 .orElseThrow(() -> new RuntimeException("Company not found"));
@@ -81,28 +123,34 @@ public class CompanyService {
             throw new RuntimeException("Unauthorized: You can only update your own company profile");
         }
 
+        ListingSnapshot before = ListingSnapshot.of(company);
         companyMapper.updateEntityFromRequest(request, company);
         Company updated = companyRepository.save(company);
+        invalidateListings(before, ListingSnapshot.of(updated));
         return companyMapper.toDTO(updated);
     }
 
     public Page<CompanyDTO> searchCompanies(String location, String industry, String eventType, Pageable pageable) {
+        location = normalize(location);
+        industry = normalize(industry);
+        eventType = normalize(eventType);
+
         Criteria criteria = Criteria.where("verified").is(true);
 
         if (location != null) criteria.and("location").is(location);
         if (industry != null) criteria.and("industry").is(industry);
         if (eventType != null) criteria.and("preferredEventTypes").in(eventType);
 
-        Query query = new Query(criteria).with(pageable);
-        List<Company> companies = mongoTemplate.find(query, Company.class);
-        long count = mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Company.class);
-
-        return PageableExecutionUtils.getPage(companies, pageable, () -> count)
-                .map(companyMapper::toDTO);
+        String filters = filterKey("search", "location", location, "industry", industry, "eventType", eventType);
+        return cachedListing(filters, listingTag(location, industry), new Query(criteria), pageable);
     }
 
     public Page<CompanyDTO> searchCompaniesByFilters(String location, String industry, String sponsorshipType,
                                                       BigDecimal budgetMin, BigDecimal budgetMax, Pageable pageable) {
+        location = normalize(location);
+        industry = normalize(industry);
+        sponsorshipType = normalize(sponsorshipType);
+
         Criteria criteria = Criteria.where("verified").is(true);
 
         if (location != null) criteria.and("location").is(location);
@@ -111,17 +159,45 @@ public class CompanyService {
         if (budgetMin != null) criteria.and("budgetMax").gte(budgetMin);
         if (budgetMax != null) criteria.and("budgetMin").lte(budgetMax);
 
-        Query query = new Query(criteria).with(pageable);
-        List<Company> companies = mongoTemplate.find(query, Company.class);
-        long count = mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Company.class);
-
-        return PageableExecutionUtils.getPage(companies, pageable, () -> count)
-                .map(companyMapper::toDTO);
+        String filters = filterKey("filter", "location", location, "industry", industry,
+                "sponsorshipType", sponsorshipType,
+                "budgetMin", budgetMin != null ? budgetMin.toPlainString() : null,
+                "budgetMax", budgetMax != null ? budgetMax.toPlainString() : null);
+        return cachedListing(filters, listingTag(location, industry), new Query(criteria), pageable);
     }
 
     public Page<CompanyDTO> getAllVerifiedCompanies(Pageable pageable) {
-        Page<Company> companies = companyRepository.findByVerifiedTrue(pageable);
-        return companies.map(companyMapper::toDTO);
+        Query query = new Query(Criteria.where("verified").is(true));
+        return cachedListing("verified", ALL_SPONSORS_TAG, query, pageable);
+    }
+
+    /**
+     * Load the first page of a listing recorded by {@link #cachedListing} into the
+     * {@code sponsors} cache. Unknown descriptors are ignored.
+     */
+    public void warmListing(String descriptor) {
+        String[] parts = descriptor.split("\\|");
+        Map<String, String> params = new HashMap<>();
+        for (int i = 1; i < parts.length; i++) {
+            int eq = parts[i].indexOf('=');
+            if (eq > 0) {
+                params.put(parts[i].substring(0, eq),
+                        URLDecoder.decode(parts[i].substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        if (!params.containsKey("s")) {
+            return;
+        }
+        Pageable firstPage = PageRequest.of(0, Integer.parseInt(params.get("s")));
+        switch (parts[0]) {
+            case "verified" -> getAllVerifiedCompanies(firstPage);
+            case "search" -> searchCompanies(params.get("location"), params.get("industry"),
+                    params.get("eventType"), firstPage);
+            case "filter" -> searchCompaniesByFilters(params.get("location"), params.get("industry"),
+                    params.get("sponsorshipType"), decimal(params.get("budgetMin")),
+                    decimal(params.get("budgetMax")), firstPage);
+            default -> log.debug("Unknown sponsor listing descriptor: {}", descriptor);
+        }
     }
 
     public List<CompanyDTO> getPendingCompanies() {
@@ -130,25 +206,178 @@ public class CompanyService {
                 .collect(Collectors.toList());
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "sponsor-detail", key = "#companyId"),
-        @CacheEvict(value = "sponsors", allEntries = true)
-    })
+    @CacheEvict(value = "sponsor-detail", key = "#companyId")
     public CompanyDTO approveCompany(String companyId) {
         Company company = companyRepository.findById(companyId)
                 .orElseThrow(() -> new RuntimeException("Company not found"));
+        ListingSnapshot before = ListingSnapshot.of(company);
         company.setVerified(true);
-        return companyMapper.toDTO(companyRepository.save(company));
+        Company saved = companyRepository.save(company);
+        invalidateListings(before, ListingSnapshot.of(saved));
+        return companyMapper.toDTO(saved);
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "sponsor-detail", key = "#companyId"),
-        @CacheEvict(value = "sponsors", allEntries = true)
-    })
+    @CacheEvict(value = "sponsor-detail", key = "#companyId")
     public CompanyDTO rejectCompany(String companyId) {
         Company company = companyRepository.findById(companyId)
                 .orElseThrow(() -> new RuntimeException("Company not found"));
+        ListingSnapshot before = ListingSnapshot.of(company);
         company.setVerified(false);
-        return companyMapper.toDTO(companyRepository.save(company));
+        Company saved = companyRepository.save(company);
+        invalidateListings(before, ListingSnapshot.of(saved));
+        return companyMapper.toDTO(saved);
+    }
+
+    // ─── Listing cache ──────────────────────────────
+
+    /**
+     * Serve a page of verified companies from the {@code sponsors} cache.
+     *
+     * <p>Page entries are keyed by the canonical filters, page and sort; the total
+     * count is cached separately per filters, so paging through a result set counts
+     * once. Both keys carry the generation stamp of {@code tag}. Cache failures fall
+     * back to Mongo — listings stay available without Redis.</p>
+     *
+     * @param filters canonical filter key from {@link #filterKey}
+     * @param tag     the single tag this listing depends on, see {@link #listingTag}
+     * @param query   filter criteria without paging
+     */
+    private Page<CompanyDTO> cachedListing(String filters, String tag, Query query, Pageable pageable) {
+        if (pageable.isPaged() && pageable.getPageNumber() == 0 && pageable.getSort().isUnsorted()) {
+            cacheAccessStats.record(SPONSORS_NAMESPACE, filters + "|s=" + pageable.getPageSize());
+        }
+        Cache cache = cacheManager.getCache(SPONSORS_NAMESPACE);
+        String stamp;
+        try {
+            stamp = cacheGenerations.stamp(SPONSORS_NAMESPACE, List.of(tag));
+        } catch (Exception e) {
+            log.warn("Sponsor listing cache unavailable, querying Mongo: {}", e.getMessage());
+            return findPage(query, pageable, () -> countVerified(query));
+        }
+        String countKey = "count|" + filters + "|g" + stamp;
+        String pageKey = "page|" + filters + "|" + pageKey(pageable) + "|g" + stamp;
+
+        CachedPage cached = cacheGet(cache, pageKey, CachedPage.class);
+        if (cached != null) {
+            return new PageImpl<>(cached.getContent(), pageable, cached.getTotalElements());
+        }
+
+        Page<CompanyDTO> page = findPage(query, pageable, () -> {
+            Number count = cacheGet(cache, countKey, Number.class);
+            return count != null ? count.longValue() : countVerified(query);
+        });
+        cachePut(cache, countKey, page.getTotalElements());
+        cachePut(cache, pageKey, new CachedPage(new ArrayList<>(page.getContent()), page.getTotalElements()));
+        return page;
+    }
+
+    private Page<CompanyDTO> findPage(Query query, Pageable pageable, LongSupplier count) {
+        List<Company> companies = mongoTemplate.find(Query.of(query).with(pageable), Company.class);
+        return PageableExecutionUtils.getPage(companies, pageable, count)
+                .map(companyMapper::toDTO);
+    }
+
+    private long countVerified(Query query) {
+        return mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Company.class);
+    }
+
+    /**
+     * Tag a filtered listing depends on. Writes bump both the industry and location
+     * tags of a company, so a listing filtered by both needs only one of them.
+     */
+    private static String listingTag(String location, String industry) {
+        if (industry != null) return "industry:" + industry;
+        if (location != null) return "location:" + location;
+        return ALL_SPONSORS_TAG;
+    }
+
+    /** Trimmed value, or null for blank — blank and absent filters share a cache entry */
+    private static String normalize(String filter) {
+        if (filter == null) return null;
+        String trimmed = filter.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * Canonical "kind|name=value|..." key in a fixed name order, skipping absent
+     * filters. Values are URL-encoded so they cannot collide with the separators.
+     */
+    private static String filterKey(String kind, String... namesAndValues) {
+        StringBuilder key = new StringBuilder(kind);
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (namesAndValues[i + 1] != null) {
+                key.append('|').append(namesAndValues[i]).append('=')
+                        .append(URLEncoder.encode(namesAndValues[i + 1], StandardCharsets.UTF_8));
+            }
+        }
+        return key.toString();
+    }
+
+    private static BigDecimal decimal(String value) {
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    private static String pageKey(Pageable pageable) {
+        if (pageable.isUnpaged()) return "unpaged";
+        return "p=" + pageable.getPageNumber() + "|s=" + pageable.getPageSize()
+                + (pageable.getSort().isSorted() ? "|sort=" + pageable.getSort() : "");
+    }
+
+    private static <T> T cacheGet(Cache cache, String key, Class<T> type) {
+        if (cache == null) return null;
+        try {
+            Cache.ValueWrapper wrapper = cache.get(key);
+            return wrapper != null && type.isInstance(wrapper.get()) ? type.cast(wrapper.get()) : null;
+        } catch (Exception e) {
+            log.warn("Sponsor listing cache read failed: key={}, error={}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void cachePut(Cache cache, String key, Object value) {
+        if (cache == null) return;
+        try {
+            cache.put(key, value);
+        } catch (Exception e) {
+            log.warn("Sponsor listing cache write failed: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Cached form of a listing page. A plain class rather than a record or
+     * {@link PageImpl}: the Redis JSON serializer only writes type info for non-final
+     * types, and PageImpl cannot be deserialized.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CachedPage {
+        private List<CompanyDTO> content;
+        private long totalElements;
+    }
+
+    /**
+     * Bump the listing tags a write can have changed. Skipped when the company is
+     * unverified both before and after, since listings only show verified companies.
+     */
+    private void invalidateListings(ListingSnapshot before, ListingSnapshot after) {
+        if (!before.verified() && !after.verified()) {
+            return;
+        }
+        Set<String> tags = new LinkedHashSet<>();
+        tags.add(ALL_SPONSORS_TAG);
+        for (ListingSnapshot snapshot : List.of(before, after)) {
+            if (snapshot.industry() != null) tags.add("industry:" + snapshot.industry());
+            if (snapshot.location() != null) tags.add("location:" + snapshot.location());
+        }
+        cacheGenerations.bump(SPONSORS_NAMESPACE, tags);
+    }
+
+    /** Fields of a company that decide which listings it appears in */
+    private record ListingSnapshot(boolean verified, String industry, String location) {
+        static ListingSnapshot of(Company company) {
+            return new ListingSnapshot(Boolean.TRUE.equals(company.getVerified()),
+                    company.getIndustry(), company.getLocation());
+        }
     }
 }
@@ -0,0 +1,178 @@
+package com.eventra.service;
+
+import com.eventra.entity.Conversation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Conversation metadata updates for sent and read messages.
+ *
+ * <h3>How it works:</h3>
+ * <pre>
+ * sendMessage → messageSent(): $inc the recipient's unread counter now (single field update),
+ *                              merge preview + time into this JVM's pending update (no I/O)
+ * every flush-interval: one ordered bulk write, per pending conversation
+ *     updateOne {_id}                          $max lastMessageAt  $set updatedAt
+ *     updateOne {_id, lastMessageAt ≤ at}      $set lastMessagePreview
+ * markRead    → $set the reader's unread counter to 0
+ * </pre>
+ *
+ * <p>A burst of N messages in one conversation costs N counter increments and one
+ * preview write instead of N full-document replaces. Field-level operators mean the two
+ * participants (and several nodes) never overwrite each other's fields, and the preview
+ * only moves forward: a node flushing an older message after a newer one matches nothing.</p>
+ *
+ * <h3>Why counters are not written behind:</h3>
+ * <p>An increment must be ordered before the recipient can see (and mark read) the
+ * message it counts. A buffered {@code $inc} in flight, or pending on another node, would
+ * land after the reader's reset and leave unread messages that never clear; and a retried
+ * {@code $inc} after an ambiguous failure (timeout once the server applied it) would count
+ * twice. The increment is therefore done before the message is broadcast. What stays
+ * behind ({@code $max} and the guarded {@code $set}) is idempotent, so it is always safe
+ * to retry.</p>
+ *
+ * <h3>Consistency:</h3>
+ * <p>Conversation previews and ordering lag sent messages by up to one flush interval;
+ * the message and the unread count are written synchronously. A failed flush is re-queued
+ * whole; pending updates are flushed on shutdown.</p>
+ */
+@Component
+@Slf4j
+public class ConversationMetadataWriter {
+
+    private final MongoTemplate mongoTemplate;
+    private final ConcurrentMap<String, PendingUpdate> pending = new ConcurrentHashMap<>();
+    private final Timer flushTimer;
+    private final Counter flushFailures;
+
+    public ConversationMetadataWriter(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.flushTimer = Timer.builder("eventra.conversation.metadata.flush.duration")
+                .description("Batched conversation metadata write")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("eventra.conversation.metadata.flush.failed")
+                .description("Conversation metadata flushes that failed and were re-queued")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record a sent message: one more unread for the recipient (written now), new preview
+     * and time (written by the next flush). Call before the message is broadcast.
+     */
+    public void messageSent(Conversation conversation, String senderId, String preview, LocalDateTime sentAt) {
+        boolean recipientIsCompany = !conversation.getCompanyId().equals(senderId);
+        mongoTemplate.updateFirst(byId(conversation.getId()),
+                new Update().inc(recipientIsCompany ? "unreadCompany" : "unreadOrganizer", 1),
+                Conversation.class);
+
+        LocalDateTime at = sentAt != null ? sentAt : LocalDateTime.now();
+        pending.compute(conversation.getId(), (id, update) -> {
+            PendingUpdate next = update != null ? update : new PendingUpdate();
+            if (next.lastMessageAt == null || !at.isBefore(next.lastMessageAt)) {
+                next.preview = preview;
+                next.lastMessageAt = at;
+            }
+            return next;
+        });
+    }
+
+    /** Zero the reader's unread counter */
+    public void markRead(Conversation conversation, String userId) {
+        boolean company = conversation.getCompanyId().equals(userId);
+        if (!company && !conversation.getOrganizerId().equals(userId)) {
+            return;
+        }
+        mongoTemplate.updateFirst(byId(conversation.getId()),
+                new Update().set(company ? "unreadCompany" : "unreadOrganizer", 0)
+                        .set("updatedAt", LocalDateTime.now()),
+                Conversation.class);
+    }
+
+    /** Write all pending previews in one ordered bulk operation */
+    @Scheduled(fixedDelayString = "${conversation.metadata.flush-interval:500ms}")
+    public void flush() {
+        List<String> ids = new ArrayList<>();
+        List<PendingUpdate> updates = new ArrayList<>();
+        for (String id : List.copyOf(pending.keySet())) {
+            PendingUpdate update = pending.remove(id);
+            if (update != null) {
+                ids.add(id);
+                updates.add(update);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        flushTimer.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Conversation.class);
+            for (int i = 0; i < ids.size(); i++) {
+                PendingUpdate update = updates.get(i);
+                bulk.updateOne(byId(ids.get(i)), new Update()
+                        .max("lastMessageAt", update.lastMessageAt)
+                        .set("updatedAt", now));
+                bulk.updateOne(new Query(Criteria.where("id").is(ids.get(i))
+                                .and("lastMessageAt").lte(update.lastMessageAt)),
+                        new Update().set("lastMessagePreview", update.preview));
+            }
+            try {
+                bulk.execute();
+            } catch (Exception e) {
+                // Every operation is idempotent, so retrying what did apply is harmless
+                for (int i = 0; i < ids.size(); i++) {
+                    pending.merge(ids.get(i), updates.get(i), PendingUpdate::combine);
+                }
+                flushFailures.increment();
+                log.warn("Conversation metadata flush failed, re-queued {} conversations: {}", ids.size(), e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("Shutting down with {} conversations' metadata unwritten", pending.size());
+        }
+    }
+
+    /** Number of conversations with unwritten metadata */
+    int pendingCount() {
+        return pending.size();
+    }
+
+    private static Query byId(String conversationId) {
+        return new Query(Criteria.where("id").is(conversationId));
+    }
+
+    /** Mutated only inside map compute functions, or after removal from the map */
+    static final class PendingUpdate {
+        private String preview;
+        private LocalDateTime lastMessageAt;
+
+        private static PendingUpdate combine(PendingUpdate current, PendingUpdate requeued) {
+            if (requeued.lastMessageAt.isAfter(current.lastMessageAt)) {
+                current.preview = requeued.preview;
+                current.lastMessageAt = requeued.lastMessageAt;
+            }
+            return current;
+        }
+    }
+}
@@ -2,9 +2,13 @@ package com.eventra.service;
 
 import com.eventra.dto.*;
 import com.eventra.entity.*;
+import com.eventra.exception.BadRequestException;
+import com.eventra.exception.ResourceNotFoundException;
 import com.eventra.repository.*;
+import com.eventra.service.ParticipantDirectory.Participant;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -13,13 +17,23 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Core service for the real-time messaging system.
  * Handles conversation lifecycle, message CRUD, and WebSocket broadcasts.
+ *
+ * <p>Participant names and roles come from the {@link ParticipantDirectory}, not
+ * from {@code users}, so sending and listing messages read no users from Mongo
+ * once the participants are cached.</p>
+ *
+ * <p>Sending a message inserts it and bumps the recipient's unread counter
+ * synchronously; the conversation's preview and last message time follow through the
+ * {@link ConversationMetadataWriter} within one flush interval.</p>
  */
 @Service
 @RequiredArgsConstructor
@@ -29,9 +43,13 @@ public class ConversationService {
     private final ConversationRepository conversationRepository;
     private final ConversationMessageRepository messageRepository;
     private final NotificationRepository notificationRepository;
-    private final UserRepository userRepository;
+    private final ParticipantDirectory participantDirectory;
     private final SimpMessagingTemplate messagingTemplate;
     private final MongoTemplate mongoTemplate;
+    private final ConversationMetadataWriter conversationMetadataWriter;
+
+    static final int MAX_MESSAGE_PAGE = 200;
+    static final int TRANSCRIPT_BATCH_SIZE = 500;
 
     // ── Conversation Management ──────────────────────────────────
 
@@ -40,14 +58,13 @@ public class ConversationService {
         List<Conversation> conversations = conversationRepository
                 .findByUserIdOrderByLastMessageAtDesc(userId);
 
-        // Batch fetch all user participants
+        // Batch fetch all participants
         Set<String> userIds = new HashSet<>();
         conversations.forEach(c -> {
             userIds.add(c.getCompanyId());
             userIds.add(c.getOrganizerId());
         });
-        Map<String, User> userMap = userRepository.findAllById(userIds).stream()
-                .collect(Collectors.toMap(User::getId, u -> u));
+        Map<String, Participant> userMap = participantDirectory.findAll(userIds);
 
         return conversations.stream()
                 .map(c -> toConversationDTO(c, userId, userMap))
@@ -56,10 +73,11 @@ public class ConversationService {
 
     @Transactional
     public ConversationDTO getOrCreateConversation(String userId, CreateConversationRequest request) {
-        User currentUser = userRepository.findById(userId)
+        Map<String, Participant> participants = participantDirectory.findAll(
+                List.of(userId, request.getParticipantId()));
+        Participant currentUser = Optional.ofNullable(participants.get(userId))
                 .orElseThrow(() -> new RuntimeException("User not found: " + userId));
-
-        User participant = userRepository.findById(request.getParticipantId())
+        Participant participant = Optional.ofNullable(participants.get(request.getParticipantId()))
                 .orElseThrow(() -> new RuntimeException("Participant not found: " + request.getParticipantId()));
 
         // Determine who is company vs organizer
@@ -77,10 +95,7 @@ public class ConversationService {
                 companyUserId, organizerUserId, request.getEventName());
 
         if (existing.isPresent()) {
-            Map<String, User> userMap = Map.of(
-                    currentUser.getId(), currentUser,
-                    participant.getId(), participant);
-            return toConversationDTO(existing.get(), userId, userMap);
+            return toConversationDTO(existing.get(), userId, participants);
         }
 
         // Create new conversation
@@ -106,10 +121,7 @@ public class ConversationService {
         log.info("Created conversation {} between user {} and user {} for event {}",
                 conversation.getId(), companyUserId, organizerUserId, request.getEventName());
 
-        Map<String, User> userMap = Map.of(
-                currentUser.getId(), currentUser,
-                participant.getId(), participant);
-        return toConversationDTO(conversation, userId, userMap);
+        return toConversationDTO(conversation, userId, participants);
     }
 
     @Transactional(readOnly = true)
@@ -119,9 +131,8 @@ public class ConversationService {
 
         validateAccess(conversation, userId);
 
-        Map<String, User> userMap = userRepository.findAllById(
-                        List.of(conversation.getCompanyId(), conversation.getOrganizerId())).stream()
-                .collect(Collectors.toMap(User::getId, u -> u));
+        Map<String, Participant> userMap = participantDirectory.findAll(
+                List.of(conversation.getCompanyId(), conversation.getOrganizerId()));
 
         return toConversationDTO(conversation, userId, userMap);
     }
@@ -135,7 +146,7 @@ public class ConversationService {
 
         validateAccess(conversation, senderId);
 
-        User sender = userRepository.findById(senderId)
+        Participant sender = participantDirectory.find(senderId)
                 .orElseThrow(() -> new RuntimeException("User not found: " + senderId));
 
         MessageType messageType = MessageType.TEXT;
@@ -165,14 +176,11 @@ public class ConversationService {
 
         message = messageRepository.save(message);
 
-        // Update conversation metadata
+        // Unread count now, before the broadcast; preview written behind, coalesced per conversation
         String preview = request.getContent().length() > 100
                 ? request.getContent().substring(0, 100) + "..."
                 : request.getContent();
-        conversation.setLastMessagePreview(preview);
-        conversation.setLastMessageAt(message.getCreatedAt());
-        conversation.incrementUnreadForRecipient(senderId);
-        conversationRepository.save(conversation);
+        conversationMetadataWriter.messageSent(conversation, senderId, preview, message.getCreatedAt());
 
         ConversationMessageDTO dto = toMessageDTO(message, sender);
 
@@ -188,26 +196,97 @@ public class ConversationService {
         return dto;
     }
 
+    /**
+     * One page of messages, oldest first, by keyset on {@code (createdAt, _id)}.
+     *
+     * <p>Without cursors returns the latest {@code limit} messages. {@code before} pages
+     * back through history ("load older"); {@code after} returns messages newer than
+     * the cursor, e.g. to catch up after a reconnect. Each page is a single range scan
+     * of {@code idx_cmsg_conv_created_id}, however long the thread.</p>
+     *
+     * @param before cursor from a previous page's {@code olderCursor}, or null
+     * @param after  cursor from a previous page's {@code newerCursor}, or null
+     * @param limit  page size, clamped to 1..{@value #MAX_MESSAGE_PAGE}
+     * @throws BadRequestException if both cursors are given or a cursor is malformed
+     */
     @Transactional(readOnly = true)
-    public List<ConversationMessageDTO> getMessages(String conversationId, String userId) {
+    public ConversationMessagePage getMessages(String conversationId, String userId,
+                                               String before, String after, int limit) {
+        if (before != null && after != null) {
+            throw new BadRequestException("Use either 'before' or 'after', not both");
+        }
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new RuntimeException("Conversation not found: " + conversationId));
 
         validateAccess(conversation, userId);
 
-        List<ConversationMessage> messages = messageRepository
-                .findByConversationIdOrderByCreatedAtAsc(conversationId);
+        int pageSize = Math.max(1, Math.min(limit, MAX_MESSAGE_PAGE));
+        boolean forward = after != null;
+        Criteria criteria = Criteria.where("conversationId").is(conversationId);
+        if (before != null) {
+            criteria = keysetCriteria(criteria, decodeCursor(before), false);
+        } else if (forward) {
+            criteria = keysetCriteria(criteria, decodeCursor(after), true);
+        }
+        Sort.Direction direction = forward ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Query query = new Query(criteria)
+                .with(Sort.by(direction, "createdAt", "id"))
+                .limit(pageSize + 1);
+
+        List<ConversationMessage> messages = new ArrayList<>(mongoTemplate.find(query, ConversationMessage.class));
+        boolean more = messages.size() > pageSize;
+        if (more) {
+            messages.remove(pageSize);
+        }
+        if (!forward) {
+            Collections.reverse(messages);
+        }
 
         // Batch fetch all senders
         Set<String> senderIds = messages.stream()
                 .map(ConversationMessage::getSenderId)
                 .collect(Collectors.toSet());
-        Map<String, User> userMap = userRepository.findAllById(senderIds).stream()
-                .collect(Collectors.toMap(User::getId, u -> u));
+        Map<String, Participant> userMap = participantDirectory.findAll(senderIds);
 
-        return messages.stream()
+        List<ConversationMessageDTO> dtos = messages.stream()
                 .map(m -> toMessageDTO(m, userMap.get(m.getSenderId())))
                 .collect(Collectors.toList());
+        if (messages.isEmpty()) {
+            return ConversationMessagePage.builder().messages(dtos).build();
+        }
+        return ConversationMessagePage.builder()
+                .messages(dtos)
+                // A forward page always has its own cursor message behind it
+                .olderCursor(forward || more ? encodeCursor(messages.get(0)) : null)
+                .newerCursor(encodeCursor(messages.get(messages.size() - 1)))
+                .build();
+    }
+
+    /**
+     * Every message of a conversation, oldest first, read through a Mongo cursor.
+     *
+     * <p>Documents are fetched {@value #TRANSCRIPT_BATCH_SIZE} at a time and mapped as the
+     * stream is consumed, so memory stays flat however long the thread. Sender names come
+     * from a per-export map seeded with the two participants. The caller must close the
+     * stream to release the cursor. No access check: this is the admin export.</p>
+     *
+     * @throws ResourceNotFoundException if the conversation does not exist
+     */
+    public Stream<ConversationMessageDTO> streamTranscript(String conversationId) {
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation", "id", conversationId));
+
+        // Optional so senders without a user are looked up once, not per message
+        Map<String, Optional<Participant>> senders = new HashMap<>();
+        participantDirectory.findAll(List.of(conversation.getCompanyId(), conversation.getOrganizerId()))
+                .forEach((id, participant) -> senders.put(id, Optional.of(participant)));
+        Query query = new Query(Criteria.where("conversationId").is(conversationId))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt", "id"))
+                .cursorBatchSize(TRANSCRIPT_BATCH_SIZE);
+        return mongoTemplate.stream(query, ConversationMessage.class)
+                .map(m -> toMessageDTO(m, senders
+                        .computeIfAbsent(m.getSenderId(), participantDirectory::find)
+                        .orElse(null)));
     }
 
     @Transactional
@@ -227,8 +306,7 @@ public class ConversationService {
         var result = mongoTemplate.updateMulti(query, update, ConversationMessage.class);
         int updated = (int) result.getModifiedCount();
 
-        conversation.markReadForUser(userId);
-        conversationRepository.save(conversation);
+        conversationMetadataWriter.markRead(conversation, userId);
 
         messagingTemplate.convertAndSend(
                 "/topic/conversation/" + conversationId + "/read",
@@ -272,7 +350,7 @@ public class ConversationService {
                 dto);
     }
 
-    private void createMessageNotification(Conversation conversation, User sender, ConversationMessage message) {
+    private void createMessageNotification(Conversation conversation, Participant sender, ConversationMessage message) {
         String recipientId = conversation.getCompanyId().equals(sender.getId())
                 ? conversation.getOrganizerId()
                 : conversation.getCompanyId();
@@ -320,6 +398,36 @@ public class ConversationService {
 
     // ── Helper Methods ───────────────────────────────────────────
 
+    /** Messages strictly older (or newer) than the cursor, in {@code (createdAt, _id)} order */
+    private static Criteria keysetCriteria(Criteria criteria, ConversationMessage cursor, boolean newer) {
+        return newer
+                ? criteria.orOperator(
+                        Criteria.where("createdAt").gt(cursor.getCreatedAt()),
+                        Criteria.where("createdAt").is(cursor.getCreatedAt()).and("id").gt(cursor.getId()))
+                : criteria.orOperator(
+                        Criteria.where("createdAt").lt(cursor.getCreatedAt()),
+                        Criteria.where("createdAt").is(cursor.getCreatedAt()).and("id").lt(cursor.getId()));
+    }
+
+    /** Opaque cursor: base64url of {@code "{createdAt}|{id}"} */
+    private static String encodeCursor(ConversationMessage message) {
+        String raw = message.getCreatedAt() + "|" + message.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ConversationMessage decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return ConversationMessage.builder()
+                    .createdAt(LocalDateTime.parse(raw.substring(0, separator)))
+                    .id(raw.substring(separator + 1))
+                    .build();
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid message cursor");
+        }
+    }
+
     private void validateAccess(Conversation conversation, String userId) {
         boolean isCompany = conversation.getCompanyId().equals(userId);
         boolean isOrganizer = conversation.getOrganizerId().equals(userId);
@@ -328,13 +436,13 @@ public class ConversationService {
         }
     }
 
-    private ConversationDTO toConversationDTO(Conversation c, String userId, Map<String, User> userMap) {
+    private ConversationDTO toConversationDTO(Conversation c, String userId, Map<String, Participant> userMap) {
         String participantId;
         String participantName;
         String participantRole;
 
-        User companyUser = userMap.get(c.getCompanyId());
-        User organizerUser = userMap.get(c.getOrganizerId());
+        Participant companyUser = userMap.get(c.getCompanyId());
+        Participant organizerUser = userMap.get(c.getOrganizerId());
 
         if (c.getCompanyId().equals(userId)) {
             participantId = c.getOrganizerId();
@@ -365,7 +473,7 @@ public class ConversationService {
                 .build();
     }
 
-    private ConversationMessageDTO toMessageDTO(ConversationMessage m, User sender) {
+    private ConversationMessageDTO toMessageDTO(ConversationMessage m, Participant sender) {
         return ConversationMessageDTO.builder()
                 .id(m.getId())
                 .conversationId(m.getConversationId())
@@ -5,6 +5,7 @@ import com.eventra.entity.*;
 import com.eventra.entity.Transaction.TransactionType;
 import com.eventra.exception.PaymentException;
 import com.eventra.exception.ResourceNotFoundException;
+import com.eventra.infrastructure.DistributedLock;
 import com.eventra.infrastructure.IdempotencyService;
 import com.eventra.repository.PaymentRepository;
 import com.eventra.repository.TransactionRepository;
@@ -37,6 +38,12 @@ import java.util.List;
 @RequiredArgsConstructor
 public class EscrowService {
 
+    /** Lock lease; renewed by the lock watchdog for the whole release */
+    private static final Duration LOCK_LEASE = Duration.ofSeconds(30);
+
+    /** How long a release waits for a concurrent one (admin bulk ops, auto-release job) */
+    private static final Duration LOCK_WAIT = Duration.ofSeconds(10);
+
     private final PaymentRepository paymentRepository;
     private final TransactionRepository transactionRepository;
     private final IdempotencyService idempotencyService;
@@ -47,12 +54,8 @@ public class EscrowService {
      * Transitions: IN_ESCROW → RELEASED
      */
     public Payment releaseFromEscrow(String paymentId, String releasedBy) {
-        String lockKey = "escrow-release:" + paymentId;
-        String lockOwner = "release-" + Thread.currentThread().threadId();
-
-        if (!idempotencyService.acquireLock(lockKey, lockOwner, Duration.ofSeconds(30))) {
-            throw new PaymentException("Payment release already in progress", paymentId, "LOCK_CONFLICT");
-        }
+        DistributedLock lock = idempotencyService.tryLock("escrow-release:" + paymentId, LOCK_LEASE, LOCK_WAIT)
+                .orElseThrow(() -> new PaymentException("Payment release already in progress", paymentId, "LOCK_CONFLICT"));
 
         try {
             Payment payment = paymentRepository.findById(paymentId)
@@ -63,6 +66,10 @@ public class EscrowService {
                         paymentId, "INVALID_STATE");
             }
 
+            if (!lock.isHeld()) {
+                throw new PaymentException("Escrow release lock lost — retry", paymentId, "LOCK_LOST");
+            }
+
             payment.transitionTo(PaymentStatus.RELEASED, "Escrow hold released", releasedBy, "SYSTEM");
             payment = paymentRepository.save(payment);
 
@@ -77,7 +84,7 @@ public class EscrowService {
             log.warn("Optimistic lock failure during escrow release: paymentId={}", paymentId);
             throw new PaymentException("Concurrent modification — retry", paymentId, "CONCURRENT_MODIFICATION");
         } finally {
-            idempotencyService.releaseLock(lockKey, lockOwner);
+            lock.close();
         }
     }
 
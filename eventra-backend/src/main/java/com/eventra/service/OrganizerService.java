@@ -8,6 +8,7 @@ import com.eventra.repository.OrganizerRepository;
 import com.eventra.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
@@ -54,6 +55,14 @@ public class OrganizerService {
         return organizerMapper.toDTO(organizer);
     }
 
+    /** Reload a profile into {@code organizer-detail} ahead of its TTL */
+    @CachePut(value = "organizer-detail", key = "#organizerId")
+    public OrganizerDTO refreshOrganizer(String organizerId) {
+        Organizer organizer = organizerRepository.findById(organizerId)
+                .orElseThrow(() -> new RuntimeException("Organizer not found"));
+        return organizerMapper.toDTO(organizer);
+    }
+
     @CacheEvict(value = "organizer-detail", key = "#organizerId")
     public OrganizerDTO updateOrganizer(String organizerId, String userId, OrganizerRequest request, MultipartFile proposalFile) {
         Organizer organizer = organizerRepository.findById(organizerId)
@@ -0,0 +1,143 @@
+package com.eventra.service;
+
+import com.eventra.entity.Role;
+import com.eventra.entity.User;
+import com.eventra.repository.UserRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Display name and role of chat participants, by user id.
+ *
+ * <p>Backed by the {@code chat-participants} cache, which is near-cached per JVM, so
+ * building message and conversation DTOs reads no users from Mongo once a participant
+ * has been seen. Batch lookups load all missing ids with one {@code findAllById}.</p>
+ *
+ * <h3>Invalidation:</h3>
+ * <p>Saving or deleting a {@link User} through a repository or {@code MongoTemplate.save}
+ * evicts the entry on every node (via the near-cache invalidation channel). Partial
+ * updates ({@code updateFirst}) raise no mapping events; callers changing a name or
+ * role that way must call {@link #evict}.</p>
+ *
+ * <p>Cache failures fall back to Mongo; chat keeps working without Redis.</p>
+ */
+@Service
+@Slf4j
+public class ParticipantDirectory extends AbstractMongoEventListener<User> {
+
+    static final String CACHE_NAME = "chat-participants";
+
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+
+    public ParticipantDirectory(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /** The participant with this user id, if the user exists */
+    public Optional<Participant> find(String userId) {
+        return Optional.ofNullable(findAll(List.of(userId)).get(userId));
+    }
+
+    /**
+     * Participants for the given user ids; ids without a user are absent from the map.
+     */
+    public Map<String, Participant> findAll(Collection<String> userIds) {
+        Set<String> ids = new LinkedHashSet<>(userIds);
+        ids.remove(null);
+        Map<String, Participant> found = new HashMap<>();
+        Cache cache = cache();
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            Participant cached = cacheGet(cache, id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (User user : userRepository.findAllById(missing)) {
+                Participant participant = new Participant(user.getId(), user.getName(), user.getRole());
+                found.put(user.getId(), participant);
+                cachePut(cache, user.getId(), participant);
+            }
+        }
+        return found;
+    }
+
+    /** Drop a cached participant on all nodes */
+    public void evict(String userId) {
+        Cache cache = cache();
+        if (cache == null || userId == null) return;
+        try {
+            cache.evict(userId);
+        } catch (Exception e) {
+            log.warn("Participant cache evict failed: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        evict(event.getSource().getId());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        Object id = event.getSource().get("_id");
+        if (id != null) {
+            evict(id.toString());
+        }
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CACHE_NAME);
+    }
+
+    private static Participant cacheGet(Cache cache, String userId) {
+        if (cache == null) return null;
+        try {
+            return cache.get(userId, Participant.class);
+        } catch (Exception e) {
+            log.warn("Participant cache read failed: userId={}, error={}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void cachePut(Cache cache, String userId, Participant participant) {
+        if (cache == null) return;
+        try {
+            cache.put(userId, participant);
+        } catch (Exception e) {
+            log.warn("Participant cache write failed: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    /** Cached view of a {@link User}; non-final for the typed cache serializer */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Participant {
+        private String id;
+        private String name;
+        private Role role;
+    }
+}
@@ -11,6 +11,7 @@ import com.razorpay.Order;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -19,6 +20,8 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -64,7 +67,7 @@ public class PaymentService {
      *
      * <p>Financial flow:
      * 1. Validate request exists and is ACCEPTED
-     * 2. Check idempotency (prevent duplicate orders)
+     * 2. Check idempotency (company-scoped key; prevent duplicate orders)
      * 3. Validate amount against fraud limits
      * 4. Create Payment record (status=CREATED)
      * 5. Create Razorpay order
@@ -85,25 +88,22 @@ public class PaymentService {
                 .filter(c -> c.getUserId().equals(userId))
                 .orElseThrow(() -> new UnauthorizedException("Only the sponsoring company can initiate payment"));
 
-        // 2. Idempotency check
-        String idempotencyKey = request.getIdempotencyKey();
-        if (idempotencyKey == null || idempotencyKey.isBlank()) {
-            idempotencyKey = UUID.randomUUID().toString();
-        }
-
-        var existingPayment = paymentRepository.findByIdempotencyKey(idempotencyKey);
-        if (existingPayment.isPresent()) {
-            Payment existing = existingPayment.get();
-            log.warn("Duplicate order request detected: idempotencyKey={}, existingPaymentId={}",
-                    idempotencyKey, existing.getId());
-            return PaymentOrderResponse.builder()
-                    .paymentId(existing.getId())
-                    .razorpayOrderId(existing.getRazorpayOrderId())
-                    .razorpayKeyId(razorpayGateway.getKeyId())
-                    .amount(existing.getAmount())
-                    .currency(existing.getCurrency())
-                    .status(existing.getStatus().name())
-                    .build();
+        // 2. Idempotency check. Client keys are stored as "{companyId}:{key}", so a key chosen
+        //    by one company can never match another company's payment. Retries carrying the
+        //    Idempotency-Key header are usually answered earlier by IdempotencyFilter from Redis;
+        //    this read covers body-only keys and retries after the Redis entry is gone. It stays
+        //    even though the unique index also rejects duplicates: prod does not auto-create
+        //    indexes, so the index cannot be relied on alone.
+        String clientKey = request.getIdempotencyKey();
+        String idempotencyKey;
+        if (clientKey == null || clientKey.isBlank()) {
+            idempotencyKey = UUID.randomUUID().toString(); // fresh, cannot match an existing payment
+        } else {
+            idempotencyKey = sponsorshipRequest.getCompanyId() + ":" + clientKey;
+            var existingPayment = paymentRepository.findByIdempotencyKey(idempotencyKey);
+            if (existingPayment.isPresent()) {
+                return replayOrder(existingPayment.get(), request, clientKey);
+            }
         }
 
         // 3. Amount validation (fraud guard)
@@ -125,7 +125,14 @@ public class PaymentService {
                 .build();
 
         payment.calculateCommission(paymentProperties.getCommissionPercent());
-        payment = paymentRepository.save(payment);
+        try {
+            payment = paymentRepository.save(payment);
+        } catch (DuplicateKeyException e) {
+            // Concurrent duplicate that passed the check above; the unique index caught it
+            Payment existing = paymentRepository.findByIdempotencyKey(idempotencyKey)
+                    .orElseThrow(() -> e);
+            return replayOrder(existing, request, clientKey);
+        }
 
         // 5. Create Razorpay order
         long amountInPaise = RazorpayGatewayService.toPaise(request.getAmount());
@@ -145,14 +152,7 @@ public class PaymentService {
                 payment.getId(), payment.getRazorpayOrderId(), payment.getAmount());
 
         // 7. Return response
-        return PaymentOrderResponse.builder()
-                .paymentId(payment.getId())
-                .razorpayOrderId(payment.getRazorpayOrderId())
-                .razorpayKeyId(razorpayGateway.getKeyId())
-                .amount(payment.getAmount())
-                .currency(payment.getCurrency())
-                .status(payment.getStatus().name())
-                .build();
+        return toOrderResponse(payment);
     }
 
     // ═══════════════════════════════════════════════════
@@ -200,11 +200,40 @@ public class PaymentService {
     //  Webhook Processing (Source of Truth)
     // ═══════════════════════════════════════════════════
 
+    /**
+     * Claim a Razorpay webhook event for processing.
+     *
+     * <p>Dedups on the Razorpay event ID and on the entity the event acts on
+     * ({@code captured:}/{@code failed:} payment ID, {@code refund:} refund ID), so a
+     * retry and a re-sent event for the same payment are both rejected. All keys go
+     * to Redis in one call; a Redis failure propagates so the webhook is retried.</p>
+     *
+     * @return true if the event is new and should be passed to {@link #processWebhookEvent}
+     */
+    public boolean claimWebhookEvent(String eventType, JSONObject event) {
+        List<String> dedupKeys = new ArrayList<>(2);
+        String eventId = event.optString("id", "");
+        if (!eventId.isBlank()) {
+            dedupKeys.add("event:" + eventId);
+        }
+        String entityKey = switch (eventType) {
+            case "payment.captured" -> "captured:" + webhookEntityId(event, "payment");
+            case "payment.failed" -> "failed:" + webhookEntityId(event, "payment");
+            case "refund.created" -> "refund:" + webhookEntityId(event, "refund");
+            default -> null;
+        };
+        // A malformed entity is left to processWebhookEvent to reject and log
+        if (entityKey != null && !entityKey.endsWith(":")) {
+            dedupKeys.add(entityKey);
+        }
+        return dedupKeys.isEmpty() || idempotencyService.markWebhookProcessed(dedupKeys);
+    }
+
     /**
      * Process Razorpay webhook event.
      *
      * <p>The webhook is the canonical source of truth for payment status.
-     * This method is idempotent — processing the same event twice is a no-op.</p>
+     * Callers dedup first with {@link #claimWebhookEvent}; this method does not.</p>
      *
      * <h3>Events handled:</h3>
      * <ul>
@@ -223,18 +252,11 @@ public class PaymentService {
     }
 
     private void processPaymentCaptured(JSONObject payload) {
-        JSONObject paymentData = payload.getJSONObject("payload")
-                .getJSONObject("payment").getJSONObject("entity");
+        JSONObject paymentData = webhookEntity(payload, "payment");
 
         String razorpayPaymentId = paymentData.getString("id");
         String razorpayOrderId = paymentData.getString("order_id");
 
-        // Idempotency — skip if already processed
-        if (!idempotencyService.markWebhookProcessed("captured:" + razorpayPaymentId)) {
-            log.info("Webhook already processed: payment.captured, paymentId={}", razorpayPaymentId);
-            return;
-        }
-
         Payment payment = paymentRepository.findByRazorpayOrderId(razorpayOrderId)
                 .orElseThrow(() -> {
                     log.error("Payment not found for webhook: orderId={}", razorpayOrderId);
@@ -292,18 +314,13 @@ public class PaymentService {
     }
 
     private void processPaymentFailed(JSONObject payload) {
-        JSONObject paymentData = payload.getJSONObject("payload")
-                .getJSONObject("payment").getJSONObject("entity");
+        JSONObject paymentData = webhookEntity(payload, "payment");
 
         String razorpayOrderId = paymentData.getString("order_id");
         String razorpayPaymentId = paymentData.getString("id");
         String errorDescription = paymentData.has("error_description")
                 ? paymentData.getString("error_description") : "Payment failed";
 
-        if (!idempotencyService.markWebhookProcessed("failed:" + razorpayPaymentId)) {
-            return;
-        }
-
         paymentRepository.findByRazorpayOrderId(razorpayOrderId).ifPresent(payment -> {
             try {
                 payment.setRazorpayPaymentId(razorpayPaymentId);
@@ -318,17 +335,12 @@ public class PaymentService {
     }
 
     private void processRefundCreated(JSONObject payload) {
-        JSONObject refundData = payload.getJSONObject("payload")
-                .getJSONObject("refund").getJSONObject("entity");
+        JSONObject refundData = webhookEntity(payload, "refund");
 
         String razorpayPaymentId = refundData.getString("payment_id");
         String refundId = refundData.getString("id");
         long refundAmountPaise = refundData.getLong("amount");
 
-        if (!idempotencyService.markWebhookProcessed("refund:" + refundId)) {
-            return;
-        }
-
         paymentRepository.findByRazorpayPaymentId(razorpayPaymentId).ifPresent(payment -> {
             BigDecimal refundAmount = RazorpayGatewayService.fromPaise(refundAmountPaise);
             payment.addRefundAmount(refundAmount);
@@ -378,6 +390,18 @@ public class PaymentService {
     //  Helpers
     // ═══════════════════════════════════════════════════
 
+    /** payload.{type}.entity of a Razorpay webhook event */
+    private static JSONObject webhookEntity(JSONObject event, String type) {
+        return event.getJSONObject("payload").getJSONObject(type).getJSONObject("entity");
+    }
+
+    private static String webhookEntityId(JSONObject event, String type) {
+        JSONObject payload = event.optJSONObject("payload");
+        JSONObject wrapper = payload != null ? payload.optJSONObject(type) : null;
+        JSONObject entity = wrapper != null ? wrapper.optJSONObject("entity") : null;
+        return entity != null ? entity.optString("id", "") : "";
+    }
+
     private void createTransaction(com.eventra.entity.Payment payment, TransactionType type,
                                    BigDecimal amount, String description, String externalRef) {
         Transaction txn = Transaction.builder()
@@ -394,6 +418,30 @@ public class PaymentService {
         transactionRepository.save(txn);
     }
 
+    /**
+     * Answer a repeated order request with the payment created for its idempotency key.
+     * A key reused for a different sponsorship request is a conflict, not a replay.
+     */
+    private PaymentOrderResponse replayOrder(Payment existing, CreatePaymentOrderRequest request, String clientKey) {
+        if (!request.getRequestId().equals(existing.getRequestId())) {
+            throw new IdempotencyConflictException(clientKey, existing.getId());
+        }
+        log.warn("Duplicate order request detected: idempotencyKey={}, existingPaymentId={}",
+                existing.getIdempotencyKey(), existing.getId());
+        return toOrderResponse(existing);
+    }
+
+    private PaymentOrderResponse toOrderResponse(Payment payment) {
+        return PaymentOrderResponse.builder()
+                .paymentId(payment.getId())
+                .razorpayOrderId(payment.getRazorpayOrderId())
+                .razorpayKeyId(razorpayGateway.getKeyId())
+                .amount(payment.getAmount())
+                .currency(payment.getCurrency())
+                .status(payment.getStatus().name())
+                .build();
+    }
+
     private PaymentDTO toDTO(com.eventra.entity.Payment payment) {
         var builder = PaymentDTO.builder()
                 .id(payment.getId())
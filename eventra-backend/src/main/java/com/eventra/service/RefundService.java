@@ -7,6 +7,7 @@ import com.eventra.entity.Transaction.TransactionType;
 import com.eventra.exception.BadRequestException;
 import com.eventra.exception.PaymentException;
 import com.eventra.exception.ResourceNotFoundException;
+import com.eventra.infrastructure.DistributedLock;
 import com.eventra.infrastructure.IdempotencyService;
 import com.eventra.repository.PaymentRepository;
 import com.eventra.repository.TransactionRepository;
@@ -37,6 +38,12 @@ import java.time.Duration;
 @RequiredArgsConstructor
 public class RefundService {
 
+    /** Lock lease; renewed by the lock watchdog while Razorpay is slow */
+    private static final Duration LOCK_LEASE = Duration.ofSeconds(30);
+
+    /** How long a second refund waits for an in-flight one before reporting LOCK_CONFLICT */
+    private static final Duration LOCK_WAIT = Duration.ofSeconds(5);
+
     private final PaymentRepository paymentRepository;
     private final TransactionRepository transactionRepository;
     private final RazorpayGatewayService razorpayGateway;
@@ -49,12 +56,8 @@ public class RefundService {
      * @return updated Payment
      */
     public Payment initiateRefund(RefundRequest request, String initiatedBy) {
-        String lockKey = "refund:" + request.getPaymentId();
-        String lockOwner = "refund-" + Thread.currentThread().threadId();
-
-        if (!idempotencyService.acquireLock(lockKey, lockOwner, Duration.ofSeconds(30))) {
-            throw new PaymentException("Refund already in progress", request.getPaymentId(), "LOCK_CONFLICT");
-        }
+        DistributedLock lock = idempotencyService.tryLock("refund:" + request.getPaymentId(), LOCK_LEASE, LOCK_WAIT)
+                .orElseThrow(() -> new PaymentException("Refund already in progress", request.getPaymentId(), "LOCK_CONFLICT"));
 
         try {
             Payment payment = paymentRepository.findById(request.getPaymentId())
@@ -87,6 +90,11 @@ public class RefundService {
                 payment = paymentRepository.save(payment);
             }
 
+            // Last point where backing out is free — never call Razorpay without the lock
+            if (!lock.isHeld()) {
+                throw new PaymentException("Refund lock lost — retry", payment.getId(), "LOCK_LOST");
+            }
+
             // Call Razorpay refund API
             long refundAmountPaise = RazorpayGatewayService.toPaise(refundAmount);
             com.razorpay.Refund razorpayRefund = razorpayGateway.createRefund(
@@ -121,15 +129,15 @@ public class RefundService {
             createTransaction(payment, txnType, refundAmount,
                     "Refund via Razorpay: " + request.getReason(), refundId);
 
-            log.info("Refund processed: paymentId={}, refundId={}, amount={}, total_refunded={}",
-                    payment.getId(), refundId, refundAmount, payment.getRefundedAmount());
+            log.info("Refund processed: paymentId={}, refundId={}, amount={}, total_refunded={}, fencingToken={}",
+                    payment.getId(), refundId, refundAmount, payment.getRefundedAmount(), lock.fencingToken());
 
             return payment;
 
         } catch (OptimisticLockingFailureException e) {
             throw new PaymentException("Concurrent modification — retry", request.getPaymentId(), "CONCURRENT_MODIFICATION");
         } finally {
-            idempotencyService.releaseLock(lockKey, lockOwner);
+            lock.close();
         }
     }
 
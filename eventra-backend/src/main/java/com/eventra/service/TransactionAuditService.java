@@ -43,9 +43,11 @@ public class TransactionAuditService {
 
     /**
      * Get platform revenue statistics for a date range.
-     * Cached for 5 minutes to avoid heavy aggregation on every request.
+     * Cached for 5 minutes to avoid heavy aggregation on every request; {@code sync}
+     * lets the stampede-protected cache coalesce recomputes and serve the old value
+     * while one caller refreshes it.
      */
-    @Cacheable(value = "revenue-stats", key = "#from.toString() + '-' + #to.toString()")
+    @Cacheable(value = "revenue-stats", key = "#from.toString() + '-' + #to.toString()", sync = true)
     public RevenueStatsDTO getRevenueStats(LocalDateTime from, LocalDateTime to) {
         // Total GMV (all completed payments)
         List<Transaction> captures = transactionRepository.findByTypeAndCreatedAtBetween(
@@ -1,12 +1,14 @@
 package com.eventra.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.eventra.config.PaymentProperties;
 import com.eventra.dto.LoginRequest;
 import com.eventra.dto.LoginResponse;
 import com.eventra.dto.RegisterRequest;
 import com.eventra.dto.UserDTO;
 import com.eventra.filter.RateLimitFilter;
 import com.eventra.infrastructure.DistributedRateLimiter;
+import com.eventra.infrastructure.IdempotencyService;
 import com.eventra.security.CustomUserDetailsService;
 import com.eventra.security.JwtAuthenticationFilter;
 import com.eventra.security.JwtTokenProvider;
@@ -48,6 +50,12 @@ class AuthControllerTest {
     @MockBean
     private DistributedRateLimiter distributedRateLimiter;
 
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @MockBean
+    private PaymentProperties paymentProperties;
+
     private RegisterRequest registerRequest;
     private LoginRequest loginRequest;
     private LoginResponse registerResponse;
@@ -0,0 +1,164 @@
+package com.eventra.filter;
+
+import com.eventra.config.PaymentProperties;
+import com.eventra.infrastructure.DistributedLock;
+import com.eventra.infrastructure.IdempotencyService;
+import com.eventra.infrastructure.IdempotencyService.StoredResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyFilter")
+class IdempotencyFilterTest {
+
+    private static final String KEY = "user-1:POST:/api/payments/order:idem-1";
+
+    @Mock private IdempotencyService idempotencyService;
+    @Mock private DistributedLock lock;
+    @Mock private FilterChain chain;
+
+    private IdempotencyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        PaymentProperties properties = new PaymentProperties();
+        filter = new IdempotencyFilter(idempotencyService, properties, new ObjectMapper());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("user-1", null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("First request executes and its 2xx response is stored for the configured TTL")
+    void storesFirstResponse() throws Exception {
+        when(idempotencyService.findResponse(KEY)).thenReturn(Optional.empty());
+        when(idempotencyService.tryLock(eq("response:" + KEY), any(Duration.class), any(Duration.class)))
+                .thenReturn(Optional.of(lock));
+        doAnswer(inv -> {
+            HttpServletResponse response = inv.getArgument(1);
+            response.setStatus(201);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"paymentId\":\"pay-1\"}");
+            return null;
+        }).when(chain).doFilter(any(), any());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(orderRequest("idem-1"), response, chain);
+
+        ArgumentCaptor<StoredResponse> stored = ArgumentCaptor.forClass(StoredResponse.class);
+        verify(idempotencyService).storeResponse(eq(KEY), stored.capture(), eq(Duration.ofHours(48)));
+        assertEquals(201, stored.getValue().status());
+        assertEquals("{\"paymentId\":\"pay-1\"}", new String(stored.getValue().body(), StandardCharsets.UTF_8));
+        assertEquals("{\"paymentId\":\"pay-1\"}", response.getContentAsString());
+        verify(lock).close();
+    }
+
+    @Test
+    @DisplayName("Duplicate is replayed byte-for-byte without executing or locking")
+    void replaysStoredResponse() throws Exception {
+        byte[] body = "{\"paymentId\":\"pay-1\"}".getBytes(StandardCharsets.UTF_8);
+        when(idempotencyService.findResponse(KEY))
+                .thenReturn(Optional.of(new StoredResponse(201, "application/json", body)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(orderRequest("idem-1"), response, chain);
+
+        assertEquals(201, response.getStatus());
+        assertArrayEquals(body, response.getContentAsByteArray());
+        assertEquals("true", response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        verifyNoInteractions(chain);
+        verify(idempotencyService, never()).tryLock(anyString(), any(), any());
+    }
+
+    @Test
+    @DisplayName("In-flight duplicate replays the first response once the lock is released")
+    void waitsForInFlightRequest() throws Exception {
+        StoredResponse first = new StoredResponse(201, "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+        when(idempotencyService.findResponse(KEY)).thenReturn(Optional.empty(), Optional.of(first));
+        when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                .thenReturn(Optional.of(lock));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(orderRequest("idem-1"), response, chain);
+
+        assertEquals(201, response.getStatus());
+        verifyNoInteractions(chain);
+        verify(lock).close();
+    }
+
+    @Test
+    @DisplayName("Returns 409 when the first request is still running after the wait")
+    void conflictWhileInFlight() throws Exception {
+        when(idempotencyService.findResponse(KEY)).thenReturn(Optional.empty());
+        when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                .thenReturn(Optional.empty());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(orderRequest("idem-1"), response, chain);
+
+        assertEquals(409, response.getStatus());
+        verifyNoInteractions(chain);
+    }
+
+    @Test
+    @DisplayName("Error responses are not stored, so the client can retry with the same key")
+    void doesNotStoreErrors() throws Exception {
+        when(idempotencyService.findResponse(KEY)).thenReturn(Optional.empty());
+        when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                .thenReturn(Optional.of(lock));
+        doAnswer(inv -> {
+            ((HttpServletResponse) inv.getArgument(1)).setStatus(400);
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        filter.doFilter(orderRequest("idem-1"), new MockHttpServletResponse(), chain);
+
+        verify(idempotencyService, never()).storeResponse(anyString(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Requests without the header or on other routes pass through")
+    void passesThroughWithoutKey() throws Exception {
+        MockHttpServletRequest noHeader = new MockHttpServletRequest("POST", "/api/payments/order");
+        MockHttpServletRequest otherRoute = new MockHttpServletRequest("POST", "/api/payments/refund");
+        otherRoute.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "idem-1");
+
+        filter.doFilter(noHeader, new MockHttpServletResponse(), chain);
+        filter.doFilter(otherRoute, new MockHttpServletResponse(), chain);
+
+        verify(chain, times(2)).doFilter(any(), any());
+        verifyNoInteractions(idempotencyService);
+    }
+
+    private static MockHttpServletRequest orderRequest(String idempotencyKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/payments/order");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        return request;
+    }
+}
@@ -0,0 +1,76 @@
+package com.eventra.filter;
+
+import com.eventra.config.RateLimitProperties;
+import com.eventra.infrastructure.DistributedRateLimiter;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitContext;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitDecision;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitTier;
+import com.eventra.infrastructure.DistributedRateLimiter.RouteCost;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RateLimitFilter")
+class RateLimitFilterTest {
+
+    @Mock private DistributedRateLimiter rateLimiter;
+    @Mock private FilterChain chain;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RateLimitFilter(rateLimiter, objectMapper);
+    }
+
+    @Test
+    @DisplayName("429 message states the rejecting bucket's own limit and window")
+    void rejectionDescribesRejectingBucket() throws Exception {
+        RateLimitProperties.BucketSpec anonymous = new RateLimitProperties.BucketSpec(30, 30, 60);
+        RateLimitContext context = new RateLimitContext("ip:1.2.3.4", RateLimitTier.ANONYMOUS, anonymous);
+        RouteCost route = new RouteCost(1, List.of("ai"));
+        when(rateLimiter.resolveContext("ip:1.2.3.4", RateLimitTier.ANONYMOUS)).thenReturn(context);
+        when(rateLimiter.resolveRoute("POST", "/api/ai/match")).thenReturn(route);
+        when(rateLimiter.evaluate(context, route))
+                .thenReturn(new RateLimitDecision(false, 5, 0, System.currentTimeMillis() + 8_000, "ai"));
+        when(rateLimiter.bucketSpec(context, "ai")).thenReturn(new RateLimitProperties.BucketSpec(5, 5, 10));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/ai/match");
+        request.setRemoteAddr("1.2.3.4");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(429, response.getStatus());
+        JsonNode body = objectMapper.readTree(response.getContentAsString());
+        assertTrue(body.get("message").asText().startsWith("Rate limit exceeded: 5 requests per 10 seconds."),
+                body.get("message").asText());
+        assertEquals("ai", body.get("limitedBy").asText());
+        verifyNoInteractions(chain);
+    }
+
+    @Test
+    @DisplayName("Windows are described in the largest whole unit")
+    void windowWording() {
+        assertEquals("Rate limit exceeded: 100 requests per minute. Retry after 3 seconds.",
+                RateLimitFilter.rejectionMessage(new RateLimitProperties.BucketSpec(100, 100, 60), 3));
+        assertEquals("Rate limit exceeded: 50 requests per 5 minutes. Retry after 3 seconds.",
+                RateLimitFilter.rejectionMessage(new RateLimitProperties.BucketSpec(50, 50, 300), 3));
+        assertEquals("Rate limit exceeded. Retry after 3 seconds.", RateLimitFilter.rejectionMessage(null, 3));
+    }
+}
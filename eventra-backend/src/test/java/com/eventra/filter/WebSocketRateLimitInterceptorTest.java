@@ -0,0 +1,107 @@
+package com.eventra.filter;
+
+import com.eventra.config.RateLimitProperties;
+import com.eventra.infrastructure.DistributedRateLimiter;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitDecision;
+import com.eventra.infrastructure.DistributedRateLimiter.ScopedBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WebSocketRateLimitInterceptor")
+class WebSocketRateLimitInterceptorTest {
+
+    @Mock private DistributedRateLimiter rateLimiter;
+    @Mock private MessageChannel channel;
+
+    private RateLimitProperties properties;
+    private SimpleMeterRegistry registry;
+    private WebSocketRateLimitInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        registry = new SimpleMeterRegistry();
+        interceptor = new WebSocketRateLimitInterceptor(rateLimiter, properties, registry);
+    }
+
+    @Test
+    @DisplayName("chat.send charges session and user buckets in one evaluation")
+    void sendAllowed() {
+        when(rateLimiter.evaluateBuckets(anyString(), anyList()))
+                .thenReturn(new RateLimitDecision(true, 20, 19, System.currentTimeMillis() + 1_000, "ws-send-session"));
+        Message<?> message = frame("/app/chat.send");
+
+        assertSame(message, interceptor.preSend(message, channel));
+        verify(rateLimiter).evaluateBuckets("ws:user:u1", List.of(
+                new ScopedBucket("ws-send-session", "s1"), ScopedBucket.of("ws-send-user")));
+    }
+
+    @Test
+    @DisplayName("Rejected chat.send raises an ERROR frame and counts each rejection")
+    void sendRejectedWithError() {
+        when(rateLimiter.evaluateBuckets(anyString(), anyList()))
+                .thenReturn(new RateLimitDecision(false, 60, 0, System.currentTimeMillis() + 5_000, "ws-send-user"));
+
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(frame("/app/chat.send"), channel));
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(frame("/app/chat.send"), channel));
+        assertEquals(2.0, registry.get("eventra.ws.ratelimit.rejected")
+                .tag("bucket", "ws-send-user").tag("action", "error").counter().count());
+    }
+
+    @Test
+    @DisplayName("Rejected chat.send is dropped in DROP mode")
+    void sendRejectedWithDrop() {
+        properties.getWebsocket().setSendRejectMode(RateLimitProperties.RejectMode.DROP);
+        when(rateLimiter.evaluateBuckets(anyString(), anyList()))
+                .thenReturn(new RateLimitDecision(false, 20, 0, System.currentTimeMillis() + 5_000, "ws-send-session"));
+
+        assertNull(interceptor.preSend(frame("/app/chat.send"), channel));
+    }
+
+    @Test
+    @DisplayName("Typing indicators are throttled locally and dropped silently")
+    void typingThrottledLocally() {
+        when(rateLimiter.tryConsumeLocal(eq("ws:user:u1"), any())).thenReturn(true, false);
+
+        assertNotNull(interceptor.preSend(frame("/app/chat.typing"), channel));
+        assertNull(interceptor.preSend(frame("/app/chat.typing"), channel));
+        verify(rateLimiter, never()).evaluateBuckets(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("Other frames pass through untouched")
+    void otherDestinationsIgnored() {
+        Message<?> message = frame("/app/chat.read");
+
+        assertSame(message, interceptor.preSend(message, channel));
+        verifyNoInteractions(rateLimiter);
+    }
+
+    private static Message<?> frame(String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setDestination(destination);
+        accessor.setSessionId("s1");
+        accessor.setUser(new UsernamePasswordAuthenticationToken("u1", null, List.of()));
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
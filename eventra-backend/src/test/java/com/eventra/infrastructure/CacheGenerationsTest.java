@@ -0,0 +1,37 @@
+package com.eventra.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CacheGenerations")
+class CacheGenerationsTest {
+
+    @Mock private StringRedisTemplate redisTemplate;
+    @Mock private ValueOperations<String, String> valueOps;
+
+    @InjectMocks
+    private CacheGenerations cacheGenerations;
+
+    @Test
+    @DisplayName("stamp reads all tag generations in one MGET; missing counters are 0")
+    void stampJoinsGenerations() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(valueOps.multiGet(List.of("eventra:cache:gen:sponsors:industry:Tech", "eventra:cache:gen:sponsors:all")))
+                .thenReturn(Arrays.asList("7", null));
+
+        assertEquals("7.0", cacheGenerations.stamp("sponsors", List.of("industry:Tech", "all")));
+    }
+}
@@ -0,0 +1,184 @@
+package com.eventra.infrastructure;
+
+import com.eventra.config.CacheSerializationProperties;
+import com.eventra.config.RedisConfig;
+import com.eventra.dto.CompanyDTO;
+import com.eventra.dto.PaymentDTO;
+import com.eventra.dto.RevenueStatsDTO;
+import com.eventra.entity.PaymentStatus;
+import com.eventra.service.CompanyService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the default-typed JSON cache encoding against {@link CacheValueSerializer}
+ * (Smile, LZ4 above 1 KB) for the values the cache actually holds. {@link #main} prints
+ * the encoded size of each sample before the timing runs.
+ *
+ * <h3>Samples ({@code sample} param):</h3>
+ * <ul>
+ *   <li><b>company</b> — one sponsor-detail entry</li>
+ *   <li><b>payment</b> — one payment-detail entry</li>
+ *   <li><b>revenue</b> — one revenue-stats entry, wrapped as the stampede-protected cache stores it</li>
+ *   <li><b>companyPage</b> — a 20-item sponsor listing page; large enough to be compressed</li>
+ * </ul>
+ *
+ * <h3>Run:</h3>
+ * <pre>
+ *   mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *        com.eventra.infrastructure.CacheSerializerBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheSerializerBenchmark {
+
+    static final List<String> SAMPLES = List.of("company", "payment", "revenue", "companyPage");
+
+    @Param({"company", "payment", "revenue", "companyPage"})
+    private String sample;
+
+    private RedisSerializer<Object> json;
+    private RedisSerializer<Object> smile;
+    private Object value;
+    private byte[] jsonBytes;
+    private byte[] smileBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        json = jsonSerializer();
+        smile = smileSerializer();
+        value = sample(sample);
+        jsonBytes = json.serialize(value);
+        smileBytes = smile.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] json_serialize() {
+        return json.serialize(value);
+    }
+
+    @Benchmark
+    public Object json_deserialize() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public byte[] smile_serialize() {
+        return smile.serialize(value);
+    }
+
+    @Benchmark
+    public Object smile_deserialize() {
+        return smile.deserialize(smileBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        RedisSerializer<Object> json = jsonSerializer();
+        RedisSerializer<Object> smile = smileSerializer();
+        System.out.printf("%-12s %10s %10s %8s%n", "sample", "json B", "smile B", "ratio");
+        for (String name : SAMPLES) {
+            int jsonSize = json.serialize(sample(name)).length;
+            int smileSize = smile.serialize(sample(name)).length;
+            System.out.printf("%-12s %10d %10d %8.2f%n", name, jsonSize, smileSize, (double) smileSize / jsonSize);
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(CacheSerializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    static RedisSerializer<Object> jsonSerializer() {
+        return new RedisConfig().redisJsonSerializer();
+    }
+
+    static RedisSerializer<Object> smileSerializer() {
+        return new RedisConfig().cacheValueSerializer(new CacheSerializationProperties());
+    }
+
+    static Object sample(String name) {
+        return switch (name) {
+            case "company" -> company(1);
+            case "payment" -> payment();
+            case "revenue" -> new StampedeProtectedCache.Stamped(revenue(), 1_700_000_000_000L, 2_400, 1_700_000_300_000L);
+            case "companyPage" -> {
+                List<CompanyDTO> content = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    content.add(company(i));
+                }
+                yield new CompanyService.CachedPage(content, 137);
+            }
+            default -> throw new IllegalArgumentException(name);
+        };
+    }
+
+    private static CompanyDTO company(int i) {
+        return CompanyDTO.builder()
+                .id("65f1c0a2e4b0" + String.format("%012d", i))
+                .companyName("Tech Corp " + i)
+                .industry("Technology")
+                .location("Bengaluru")
+                .website("https://techcorp" + i + ".example.com")
+                .contactPerson("Priya Sharma")
+                .sponsorshipTypes(new String[]{"Title", "Gold", "Silver"})
+                .budgetMin(BigDecimal.valueOf(50_000))
+                .budgetMax(BigDecimal.valueOf(500_000))
+                .preferredEventTypes(new String[]{"Conference", "Hackathon", "Meetup"})
+                .companySize("100-500")
+                .pastSponsorships(new String[]{"DevFest 2024", "PyCon India 2024"})
+                .verified(true)
+                .build();
+    }
+
+    private static PaymentDTO payment() {
+        LocalDateTime captured = LocalDateTime.of(2025, 3, 14, 10, 30);
+        return PaymentDTO.builder()
+                .id("65f1c0a2e4b0000000000042")
+                .requestId("65f1c0a2e4b0000000000007")
+                .companyId("65f1c0a2e4b0000000000001")
+                .organizerId("65f1c0a2e4b0000000000003")
+                .amount(new BigDecimal("150000.00"))
+                .platformCommission(new BigDecimal("7500.00"))
+                .organizerPayout(new BigDecimal("142500.00"))
+                .refundedAmount(BigDecimal.ZERO)
+                .currency("INR")
+                .status(PaymentStatus.IN_ESCROW)
+                .razorpayOrderId("order_NhXk2fY8qkLm3P")
+                .description("Gold sponsorship — DevFest 2025")
+                .paymentMethod("upi")
+                .escrowStartedAt(captured)
+                .releaseEligibleAt(captured.plusDays(7))
+                .escrowHoldDays(7)
+                .capturedAt(captured)
+                .createdAt(captured.minusMinutes(3))
+                .build();
+    }
+
+    private static RevenueStatsDTO revenue() {
+        return RevenueStatsDTO.builder()
+                .gmv(new BigDecimal("12500000.00"))
+                .platformRevenue(new BigDecimal("625000.00"))
+                .escrowBalance(new BigDecimal("2100000.00"))
+                .totalRefunded(new BigDecimal("340000.00"))
+                .totalPayouts(new BigDecimal("9800000.00"))
+                .completedPayments(412)
+                .activeDisputes(3)
+                .refundRate(new BigDecimal("2.72"))
+                .failureRate(new BigDecimal("1.15"))
+                .build();
+    }
+}
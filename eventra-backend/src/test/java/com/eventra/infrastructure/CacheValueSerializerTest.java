@@ -0,0 +1,77 @@
+package com.eventra.infrastructure;
+
+import com.eventra.config.CacheSerializationProperties;
+import com.eventra.config.RedisConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CacheValueSerializer")
+class CacheValueSerializerTest {
+
+    private final RedisSerializer<Object> json = CacheSerializerBenchmark.jsonSerializer();
+    private final RedisSerializer<Object> smile = CacheSerializerBenchmark.smileSerializer();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"company", "payment", "revenue", "companyPage"})
+    @DisplayName("Cached values round-trip with their types and are smaller than JSON")
+    void roundTripsSmallerThanJson(String name) {
+        Object value = CacheSerializerBenchmark.sample(name);
+
+        byte[] bytes = smile.serialize(value);
+        Object restored = smile.deserialize(bytes);
+
+        assertEquals(CacheValueSerializer.MAGIC, bytes[0]);
+        assertEquals(value.getClass(), restored.getClass());
+        if (value instanceof StampedeProtectedCache.Stamped stamped) {
+            assertEquals(stamped.getValue(), ((StampedeProtectedCache.Stamped) restored).getValue());
+        } else {
+            assertEquals(value, restored);
+        }
+        assertTrue(bytes.length < json.serialize(value).length,
+                () -> name + ": smile " + bytes.length + " B >= json " + json.serialize(value).length + " B");
+    }
+
+    @Test
+    @DisplayName("Payloads above the threshold are LZ4-compressed; small ones are not")
+    void compressesAboveThreshold() {
+        byte[] page = smile.serialize(CacheSerializerBenchmark.sample("companyPage"));
+        byte[] single = smile.serialize(CacheSerializerBenchmark.sample("company"));
+
+        assertEquals(CacheValueSerializer.CODEC_LZ4, page[2]);
+        assertEquals(CacheValueSerializer.CODEC_PLAIN, single[2]);
+        assertEquals(CacheSerializerBenchmark.sample("companyPage"), smile.deserialize(page));
+    }
+
+    @Test
+    @DisplayName("Entries written as JSON stay readable, and JSON mode still reads Smile")
+    void readsBothFormats() {
+        Object value = CacheSerializerBenchmark.sample("payment");
+        CacheSerializationProperties jsonMode = new CacheSerializationProperties();
+        jsonMode.setFormat(CacheSerializationProperties.Format.JSON);
+        RedisSerializer<Object> jsonWriter = new RedisConfig().cacheValueSerializer(jsonMode);
+
+        assertEquals(value, smile.deserialize(json.serialize(value)));
+        assertArrayEquals(json.serialize(value), jsonWriter.serialize(value));
+        assertEquals(value, jsonWriter.deserialize(smile.serialize(value)));
+    }
+
+    @Test
+    @DisplayName("A threshold of 0 disables compression and an unknown version reads as a miss")
+    void disabledCompressionAndUnknownVersion() {
+        CacheSerializationProperties uncompressed = new CacheSerializationProperties();
+        uncompressed.setCompressionThreshold(DataSize.ofBytes(0));
+        byte[] page = new RedisConfig().cacheValueSerializer(uncompressed)
+                .serialize(CacheSerializerBenchmark.sample("companyPage"));
+        assertEquals(CacheValueSerializer.CODEC_PLAIN, page[2]);
+
+        page[1] = 99;
+        assertNull(smile.deserialize(page));
+        assertNull(smile.deserialize(new byte[0]));
+    }
+}
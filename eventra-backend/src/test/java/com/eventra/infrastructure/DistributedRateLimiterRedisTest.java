@@ -0,0 +1,83 @@
+package com.eventra.infrastructure;
+
+import com.eventra.config.RateLimitProperties;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitTier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.GenericContainer;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the rate limit scripts against a real Redis (skipped without Docker), for
+ * what mocks cannot show: the keys the scripts leave behind.
+ */
+@DisplayName("DistributedRateLimiter against Redis")
+class DistributedRateLimiterRedisTest {
+
+    private static GenericContainer<?> redis;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private RateLimitProperties properties;
+
+    @BeforeAll
+    static void startRedis() {
+        assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is not available");
+        redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+        redis.start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        if (connectionFactory != null) connectionFactory.destroy();
+        if (redis != null) redis.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+        properties = new RateLimitProperties();
+        properties.setAnonymous(new RateLimitProperties.BucketSpec(20, 20, 60));
+    }
+
+    @Test
+    @DisplayName("Sliding log: a key created by the evaluation expires after one window")
+    void slidingLogKeyGetsTtl() {
+        assertTrue(limiter().evaluate("ip:1.2.3.4", RateLimitTier.ANONYMOUS).allowed());
+
+        Set<String> keys = redisTemplate.keys("eventra:ratelimit:*");
+        assertEquals(1, keys.size());
+        Long pttl = redisTemplate.getExpire(keys.iterator().next(), TimeUnit.MILLISECONDS);
+        assertTrue(pttl > 0 && pttl <= 60_000, "PTTL was " + pttl);
+    }
+
+    private DistributedRateLimiter limiter() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new DistributedRateLimiter(
+                new RedisScriptExecutor(redisTemplate, registry),
+                new RateLimitSynchronizer(redisTemplate, properties, registry),
+                mock(RateLimitAccountResolver.class), properties, registry);
+    }
+}
@@ -0,0 +1,339 @@
+package com.eventra.infrastructure;
+
+import com.eventra.config.RateLimitProperties;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitDecision;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitTier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DistributedRateLimiter")
+class DistributedRateLimiterTest {
+
+    @Mock private RedisScriptExecutor scriptExecutor;
+    @Mock private StringRedisTemplate redisTemplate;
+    @Mock private RateLimitAccountResolver accountResolver;
+
+    private RateLimitProperties properties;
+    private RateLimitSynchronizer synchronizer;
+    private DistributedRateLimiter rateLimiter;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setAnonymous(new RateLimitProperties.BucketSpec(20, 20, 60));
+        registry = new SimpleMeterRegistry();
+        synchronizer = new RateLimitSynchronizer(redisTemplate, properties, registry);
+        rateLimiter = new DistributedRateLimiter(scriptExecutor, synchronizer, accountResolver, properties, registry);
+    }
+
+    @Test
+    @DisplayName("evaluate reports limit, remaining and reset from a single script call")
+    void evaluateUsesSingleRoundTrip() {
+        long resetAt = System.currentTimeMillis() + 42_000;
+        when(scriptExecutor.executeEncoded(any(), anyList(), any(String[].class)))
+                .thenReturn(List.of(1L, 17L, resetAt, 1L));
+
+        RateLimitDecision decision = rateLimiter.evaluate("ip:1.2.3.4", RateLimitTier.ANONYMOUS);
+
+        assertTrue(decision.allowed());
+        assertEquals(20, decision.limit());
+        assertEquals(17, decision.remaining());
+        assertEquals(resetAt, decision.resetAtMillis());
+        verify(scriptExecutor, times(1)).executeEncoded(any(), anyList(), any(String[].class));
+    }
+
+    @Test
+    @DisplayName("Resolved context carries the configured spec and precomputed keys")
+    void resolveContextUsesProperties() {
+        DistributedRateLimiter.RateLimitContext context =
+                rateLimiter.resolveContext("ip:1.2.3.4", RateLimitTier.ANONYMOUS);
+        when(scriptExecutor.executeEncoded(any(), anyList(), any(String[].class)))
+                .thenReturn(List.of(0L, 0L, System.currentTimeMillis() + 5_000, 1L));
+
+        RateLimitDecision decision = rateLimiter.evaluate(context, DistributedRateLimiter.RouteCost.DEFAULT);
+
+        assertEquals(20, context.spec().getCapacity());
+        assertEquals("anonymous:ip:1.2.3.4", context.tierKey());
+        assertEquals("eventra:ratelimit:{anonymous:ip:1.2.3.4}", new String(context.redisKey(), StandardCharsets.UTF_8));
+        assertEquals(20, decision.limit());
+        assertEquals("anonymous", decision.bucket());
+        verify(scriptExecutor).executeEncoded(any(), keys("eventra:ratelimit:{anonymous:ip:1.2.3.4}"),
+                any(String[].class));
+    }
+
+    @Test
+    @DisplayName("evaluate rejects when the script denies the request")
+    void evaluateRejected() {
+        when(scriptExecutor.executeEncoded(any(), anyList(), any(String[].class)))
+                .thenReturn(List.of(0L, 0L, System.currentTimeMillis() + 5_000, 1L));
+
+        rateLimiter.evaluate("ip:1.2.3.4", RateLimitTier.ANONYMOUS);
+        RateLimitDecision decision = rateLimiter.evaluate("ip:1.2.3.4", RateLimitTier.ANONYMOUS);
+
+        assertFalse(decision.allowed());
+        assertEquals(0, decision.remaining());
+        assertTrue(decision.resetSeconds() >= 1 && decision.resetSeconds() <= 5);
+        assertEquals(2.0, registry.get("eventra.ratelimit.rejected")
+                .tag("bucket", "anonymous").tag("scope", "caller").counter().count());
+    }
+
+    @Test
+    @DisplayName("evaluate fails open with full quota when Redis is unavailable")
+    void evaluateFailsOpen() {
+        when(scriptExecutor.executeEncoded(any(), anyList(), any(String[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        RateLimitDecision decision = rateLimiter.evaluate("user:u1", RateLimitTier.DEFAULT);
+
+        assertTrue(decision.allowed());
+        assertEquals(100, decision.remaining());
+    }
+
+    @Test
+    @DisplayName("GCRA algorithm uses its own key namespace and emission interval")
+    void gcraAlgorithm() {
+        properties.setAlgorithm(RateLimitProperties.Algorithm.GCRA);
+        when(scriptExecutor.executeEncoded(any(), anyList(), any(String[].class)))
+                .thenReturn(List.of(1L, 19L, System.currentTimeMillis() + 3_000, 1L));
+
+        RateLimitDecision decision = rateLimiter.evaluate("ip:1.2.3.4", RateLimitTier.ANONYMOUS);
+
+        assertTrue(decision.allowed());
+        assertEquals(19, decision.remaining());
+        // 60s window / 20 tokens → one token every 3000 ms
+        verify(scriptExecutor).executeEncoded(any(),
+                keys("eventra:ratelimit:gcra:{anonymous:ip:1.2.3.4}"),
+                anyString(), eq("1"), eq("20"), eq("3000"));
+    }
+
+    @Test
+    @DisplayName("Sliding window counter appends the current and previous window to the encoded key")
+    void windowCounterKeys() {
+        properties.setAlgorithm(RateLimitProperties.Algorithm.SLIDING_WINDOW_COUNTER);
+        when(scriptExecutor.executeEncoded(any(), anyList(), any(String[].class)))
+                .thenReturn(List.of(1L, 19L, System.currentTimeMillis() + 3_000, 1L));
+        DistributedRateLimiter.RateLimitContext context = rateLimiter.resolveContext("ip:1.2.3.4", RateLimitTier.ANONYMOUS);
+
+        rateLimiter.evaluate(context, DistributedRateLimiter.RouteCost.DEFAULT);
+
+        ArgumentCaptor<List<byte[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(scriptExecutor).executeEncoded(any(), captor.capture(), any(String[].class));
+        List<String> keys = captor.getValue().stream().map(k -> new String(k, StandardCharsets.UTF_8)).toList();
+        long current = Long.parseLong(keys.get(0).substring(keys.get(0).lastIndexOf(':') + 1));
+        assertEquals(List.of("eventra:ratelimit:swc:{anonymous:ip:1.2.3.4}:" + current,
+                "eventra:ratelimit:swc:{anonymous:ip:1.2.3.4}:" + (current - 60_000)), keys);
+        assertEquals(0, current % 60_000);
+    }
+
+    @Test
+    @DisplayName("Costly route charges tier and dedicated bucket in one script call")
+    void routeCostWithDedicatedBucket() {
+        properties.setAlgorithm(RateLimitProperties.Algorithm.GCRA);
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setPattern("/api/ai/**");
+        route.setCost(5);
+        route.getBuckets().add("ai");
+        properties.getRoutes().add(route);
+        properties.getBuckets().put("ai", new RateLimitProperties.BucketSpec(10, 10, 60));
+        rateLimiter = new DistributedRateLimiter(scriptExecutor, synchronizer, accountResolver, properties, new SimpleMeterRegistry());
+        when(scriptExecutor.executeEncoded(any(), anyList(), any(String[].class)))
+                .thenReturn(List.of(0L, 0L, System.currentTimeMillis() + 30_000, 2L));
+
+        DistributedRateLimiter.RouteCost cost = rateLimiter.resolveRoute("POST", "/api/ai/chat");
+        RateLimitDecision decision = rateLimiter.evaluate("ip:1.2.3.4", RateLimitTier.ANONYMOUS, cost);
+
+        assertEquals(5, cost.cost());
+        assertEquals(DistributedRateLimiter.RouteCost.DEFAULT, rateLimiter.resolveRoute("GET", "/api/companies/1"));
+        assertFalse(decision.allowed());
+        assertEquals("ai", decision.bucket());
+        assertEquals(10, decision.limit());
+        verify(scriptExecutor).executeEncoded(any(),
+                keys("eventra:ratelimit:gcra:{anonymous:ip:1.2.3.4}",
+                        "eventra:ratelimit:gcra:{anonymous:ip:1.2.3.4}:ai"),
+                anyString(), eq("5"), eq("20"), eq("3000"), eq("10"), eq("6000"));
+    }
+
+    @Test
+    @DisplayName("User, account and global levels are checked in one call and the rejecting level is reported")
+    void hierarchicalChain() {
+        RateLimitProperties.BucketSpec account = new RateLimitProperties.BucketSpec(20, 20, 60);
+        account.setScope(RateLimitProperties.Scope.ACCOUNT);
+        RateLimitProperties.BucketSpec global = new RateLimitProperties.BucketSpec(50, 50, 1);
+        global.setScope(RateLimitProperties.Scope.GLOBAL);
+        properties.getBuckets().put("orders-account", account);
+        properties.getBuckets().put("orders-global", global);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        rateLimiter = new DistributedRateLimiter(scriptExecutor, synchronizer, accountResolver, properties, registry);
+        DistributedRateLimiter.RateLimitContext context = rateLimiter.resolveContext("user:u1", RateLimitTier.DEFAULT);
+        when(accountResolver.resolve(context)).thenReturn("company:c1");
+        when(scriptExecutor.executeEncoded(any(), anyList(), any(String[].class)))
+                .thenReturn(List.of(0L, 0L, System.currentTimeMillis() + 1_000, 3L));
+
+        RateLimitDecision decision = rateLimiter.evaluate(context,
+                new DistributedRateLimiter.RouteCost(1, List.of("orders-account", "orders-global")));
+
+        assertFalse(decision.allowed());
+        assertEquals("orders-global", decision.bucket());
+        assertEquals(50, decision.limit());
+        assertEquals(1.0, registry.get("eventra.ratelimit.rejected")
+                .tag("bucket", "orders-global").tag("scope", "global").counter().count());
+        verify(scriptExecutor).executeEncoded(any(), keys(
+                        "eventra:ratelimit:{default:user:u1}",
+                        "eventra:ratelimit:account:company:c1:orders-account",
+                        "eventra:ratelimit:global:orders-global"),
+                any(String[].class));
+    }
+
+    @Test
+    @DisplayName("Account level is skipped for anonymous callers")
+    void accountLevelSkippedForAnonymous() {
+        RateLimitProperties.BucketSpec account = new RateLimitProperties.BucketSpec(20, 20, 60);
+        account.setScope(RateLimitProperties.Scope.ACCOUNT);
+        properties.getBuckets().put("orders-account", account);
+        when(scriptExecutor.executeEncoded(any(), anyList(), any(String[].class)))
+                .thenReturn(List.of(1L, 19L, System.currentTimeMillis() + 1_000, 1L));
+
+        rateLimiter.evaluate("ip:1.2.3.4", RateLimitTier.ANONYMOUS,
+                new DistributedRateLimiter.RouteCost(1, List.of("orders-account")));
+
+        verify(scriptExecutor).executeEncoded(any(), keys("eventra:ratelimit:{anonymous:ip:1.2.3.4}"),
+                any(String[].class));
+    }
+
+    @Test
+    @DisplayName("Named buckets share the owner hash tag and skip unconfigured specs")
+    void evaluateNamedBuckets() {
+        properties.getBuckets().put("ws-send-session", new RateLimitProperties.BucketSpec(20, 20, 10));
+        when(scriptExecutor.executeEncoded(any(), anyList(), any(String[].class)))
+                .thenReturn(List.of(1L, 19L, System.currentTimeMillis() + 10_000, 1L));
+
+        RateLimitDecision decision = rateLimiter.evaluateBuckets("ws:user:u1", List.of(
+                new DistributedRateLimiter.ScopedBucket("ws-send-session", "s1"),
+                DistributedRateLimiter.ScopedBucket.of("ws-send-user")));
+
+        assertTrue(decision.allowed());
+        assertEquals("ws-send-session", decision.bucket());
+        verify(scriptExecutor).executeEncoded(any(),
+                keys("eventra:ratelimit:{ws:user:u1}:ws-send-session:s1"),
+                anyString(), eq("1"), anyString(), eq("20"), eq("10000"));
+    }
+
+    @Test
+    @DisplayName("Async tier admits without Redis and adopts the global count on flush")
+    void asyncModeReconcilesInBatches() {
+        properties.getAnonymous().setSyncMode(RateLimitProperties.SyncMode.ASYNC);
+
+        RateLimitDecision first = rateLimiter.evaluate("ip:1.2.3.4", RateLimitTier.ANONYMOUS);
+        rateLimiter.evaluate("ip:1.2.3.4", RateLimitTier.ANONYMOUS);
+
+        assertTrue(first.allowed());
+        assertEquals(19, first.remaining());
+        verify(scriptExecutor, never()).executeEncoded(any(), anyList(), any(String[].class));
+        verifyNoInteractions(redisTemplate);
+
+        // Other instances consumed 17 more → global total 19 after our delta of 2
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(19L, true));
+        synchronizer.flush();
+
+        assertTrue(rateLimiter.evaluate("ip:1.2.3.4", RateLimitTier.ANONYMOUS).allowed());
+        RateLimitDecision overLimit = rateLimiter.evaluate("ip:1.2.3.4", RateLimitTier.ANONYMOUS);
+        assertFalse(overLimit.allowed());
+        assertEquals(0, overLimit.remaining());
+    }
+
+    @Test
+    @DisplayName("Async tier drops a failed flush's delta once its window has rolled")
+    void asyncFailedFlushNotCarriedIntoNextWindow() {
+        long windowMs = 3_600_000L;
+        long now = System.currentTimeMillis();
+        long nextWindow = now - (now % windowMs) + windowMs;
+        for (int i = 0; i < 3; i++) {
+            synchronizer.tryAcquire("anonymous:ip:1.2.3.4", 20, windowMs, now, 1);
+        }
+        // The window rolls while the flush is on the wire, then the flush fails
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+            synchronizer.tryAcquire("anonymous:ip:1.2.3.4", 20, windowMs, nextWindow, 1);
+            throw new RedisConnectionFailureException("down");
+        });
+        synchronizer.flush();
+
+        RateLimitDecision decision = synchronizer.tryAcquire("anonymous:ip:1.2.3.4", 20, windowMs, nextWindow, 1);
+
+        assertEquals(18, decision.remaining(), "old window's 3 admissions must not count in the new window");
+    }
+
+    /** Matches the encoded script keys against their expected string form */
+    private static List<byte[]> keys(String... expected) {
+        return argThat(actual -> actual != null
+                && actual.stream().map(k -> new String(k, StandardCharsets.UTF_8)).toList().equals(List.of(expected)));
+    }
+
+    @Nested
+    @DisplayName("LocalTokenBucket")
+    class LocalBucket {
+
+        @Test
+        @DisplayName("Admits exactly capacity under heavy contention")
+        void neverOverAdmits() throws Exception {
+            DistributedRateLimiter.LocalTokenBucket bucket =
+                    new DistributedRateLimiter.LocalTokenBucket(1000, 1, 3600);
+            AtomicInteger admitted = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(64);
+            CountDownLatch start = new CountDownLatch(1);
+            for (int t = 0; t < 64; t++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 500; i++) {
+                        if (bucket.tryConsume()) admitted.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(1000, admitted.get());
+            assertTrue(bucket.nanosUntilNextToken() > 0);
+        }
+
+        @Test
+        @DisplayName("Refills continuously without losing fractional progress")
+        void refillsOverTime() throws Exception {
+            // 1 token every 10 ms, burst of 2
+            DistributedRateLimiter.LocalTokenBucket bucket =
+                    new DistributedRateLimiter.LocalTokenBucket(2, 100, 1);
+            assertTrue(bucket.tryConsume());
+            assertTrue(bucket.tryConsume());
+            assertFalse(bucket.tryConsume());
+
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(bucket.nanosUntilNextToken()) + 2);
+
+            assertTrue(bucket.tryConsume());
+        }
+    }
+}
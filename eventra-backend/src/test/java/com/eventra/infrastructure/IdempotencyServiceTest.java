@@ -0,0 +1,223 @@
+package com.eventra.infrastructure;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyService")
+class IdempotencyServiceTest {
+
+    @Mock private StringRedisTemplate redisTemplate;
+    @Mock private RedisScriptExecutor scriptExecutor;
+    @Mock private RedisMessageListenerContainer listenerContainer;
+
+    private final RedisScript<Long> acquire = new DefaultRedisScript<>("acquire", Long.class);
+    private final RedisScript<Long> release = new DefaultRedisScript<>("release", Long.class);
+    private final RedisScript<Long> renew = new DefaultRedisScript<>("renew", Long.class);
+    private final RedisScript<Long> webhookDedup = new DefaultRedisScript<>("webhook-dedup", Long.class);
+
+    private SimpleMeterRegistry registry;
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        when(scriptExecutor.register(eq("lock-acquire"), anyString(), eq(Long.class))).thenReturn(acquire);
+        when(scriptExecutor.register(eq("lock-release"), anyString(), eq(Long.class))).thenReturn(release);
+        when(scriptExecutor.register(eq("lock-renew"), anyString(), eq(Long.class))).thenReturn(renew);
+        when(scriptExecutor.register(eq("webhook-dedup"), anyString(), eq(Long.class))).thenReturn(webhookDedup);
+        registry = new SimpleMeterRegistry();
+        service = new IdempotencyService(redisTemplate, scriptExecutor, listenerContainer, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdownWatchdog();
+    }
+
+    @Test
+    @DisplayName("tryLock returns the fencing token and close releases by compare-and-delete")
+    void acquireAndRelease() {
+        when(scriptExecutor.execute(eq(acquire), eq(List.of("eventra:lock:refund:p1", "eventra:lock:fence:refund:p1")),
+                anyString(), eq("30000"), anyString())).thenReturn(7L);
+
+        DistributedLock lock = service.tryLock("refund:p1", Duration.ofSeconds(30)).orElseThrow();
+        lock.close();
+        lock.close();
+
+        assertEquals(7L, lock.fencingToken());
+        assertFalse(lock.isHeld());
+        verify(scriptExecutor, times(1)).execute(eq(release), eq(List.of("eventra:lock:refund:p1")),
+                eq(lock.ownerId()), eq("eventra:lock:released:refund:p1"));
+    }
+
+    @Test
+    @DisplayName("tryLock is empty when another holder owns the lock")
+    void contended() {
+        when(scriptExecutor.execute(eq(acquire), anyList(), any(String[].class))).thenReturn(0L);
+
+        assertEquals(Optional.empty(), service.tryLock("refund:p1", Duration.ofSeconds(30)));
+    }
+
+    @Test
+    @DisplayName("Blocking tryLock wakes on the release notification instead of polling")
+    void waitWakesOnRelease() throws Exception {
+        // Held with 60s left on the lease, then free on the next attempt
+        when(scriptExecutor.execute(eq(acquire), anyList(), any(String[].class))).thenReturn(-60_000L, 3L);
+        ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(listenerContainer).addMessageListener(listener.capture(), any(PatternTopic.class));
+
+        Thread releaser = new Thread(() -> {
+            sleepQuietly(100);
+            listener.getValue().onMessage(
+                    new DefaultMessage("eventra:lock:released:refund:p1".getBytes(), "1".getBytes()), null);
+        });
+        releaser.start();
+
+        long start = System.nanoTime();
+        Optional<DistributedLock> lock = service.tryLock("refund:p1", Duration.ofSeconds(30), Duration.ofSeconds(10));
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        releaser.join();
+
+        assertTrue(lock.isPresent());
+        assertEquals(3L, lock.get().fencingToken());
+        assertTrue(waitedMs < 5_000, "woken by release, not by lease expiry: " + waitedMs);
+        assertEquals(2.0, registry.get("eventra.lock.wait.attempts").summary().totalAmount());
+        assertEquals(1, registry.get("eventra.lock.wait").tag("outcome", "acquired").timer().count());
+        lock.get().close();
+    }
+
+    @Test
+    @DisplayName("Blocking tryLock gives up after the wait time")
+    void waitTimesOut() {
+        when(scriptExecutor.execute(eq(acquire), anyList(), any(String[].class))).thenReturn(-60_000L);
+
+        Optional<DistributedLock> lock = service.tryLock("refund:p1", Duration.ofSeconds(30), Duration.ofMillis(50));
+
+        assertTrue(lock.isEmpty());
+        assertEquals(1, registry.get("eventra.lock.wait").tag("outcome", "timeout").timer().count());
+        assertEquals(0.0, registry.get("eventra.lock.waiters").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Watchdog extends the lease while the critical section runs")
+    void watchdogRenews() throws Exception {
+        when(scriptExecutor.execute(eq(acquire), anyList(), any(String[].class))).thenReturn(1L);
+        when(scriptExecutor.execute(eq(renew), anyList(), any(String[].class))).thenReturn(1L);
+
+        try (DistributedLock lock = service.tryLock("escrow-release:p1", Duration.ofMillis(150)).orElseThrow()) {
+            Thread.sleep(400);
+
+            assertTrue(lock.isHeld());
+            verify(scriptExecutor, atLeast(3)).execute(eq(renew), eq(List.of("eventra:lock:escrow-release:p1")),
+                    eq(lock.ownerId()), eq("150"));
+        }
+    }
+
+    @Test
+    @DisplayName("Lost lease is detected and counted")
+    void leaseLost() throws Exception {
+        when(scriptExecutor.execute(eq(acquire), anyList(), any(String[].class))).thenReturn(1L);
+        when(scriptExecutor.execute(eq(renew), anyList(), any(String[].class))).thenReturn(0L);
+
+        DistributedLock lock = service.tryLock("refund:p1", Duration.ofMillis(90)).orElseThrow();
+        Thread.sleep(120);
+
+        assertFalse(lock.isHeld());
+        assertThrows(IllegalStateException.class, lock::assertHeld);
+        assertEquals(1.0, registry.get("eventra.lock.lost").counter().count());
+        lock.close();
+        verify(scriptExecutor, never()).execute(eq(release), anyList(), any(String[].class));
+    }
+
+    @Test
+    @DisplayName("Lease runs out locally when renewals cannot reach Redis")
+    void renewalFailuresExpireLease() throws Exception {
+        when(scriptExecutor.execute(eq(acquire), anyList(), any(String[].class))).thenReturn(1L);
+        when(scriptExecutor.execute(eq(renew), anyList(), any(String[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        try (DistributedLock lock = service.tryLock("refund:p1", Duration.ofMillis(90)).orElseThrow()) {
+            Thread.sleep(150);
+
+            assertFalse(lock.isHeld());
+        }
+    }
+
+    @Test
+    @DisplayName("markWebhookProcessed sets all keys in one call; repeats are rejected from the near-cache")
+    void webhookDedupNearCache() {
+        when(scriptExecutor.execute(eq(webhookDedup), eq(List.of("eventra:webhook:event:evt_1", "eventra:webhook:captured:pay_1")),
+                anyString(), eq(String.valueOf(Duration.ofDays(7).toMillis())))).thenReturn(0L);
+
+        assertTrue(service.markWebhookProcessed(List.of("event:evt_1", "captured:pay_1")));
+        assertFalse(service.markWebhookProcessed(List.of("event:evt_1", "captured:pay_1")));
+        assertFalse(service.markWebhookProcessed("captured:pay_1"));
+
+        verify(scriptExecutor, times(1)).execute(eq(webhookDedup), anyList(), any(), any());
+        assertEquals(2.0, registry.counter("eventra.webhook.dedup", "result", "duplicate_local").count());
+    }
+
+    @Test
+    @DisplayName("markWebhookProcessed reports a duplicate when any key already exists in Redis")
+    void webhookDedupRedisDuplicate() {
+        when(scriptExecutor.execute(eq(webhookDedup), anyList(), any(), any())).thenReturn(1L);
+
+        assertFalse(service.markWebhookProcessed(List.of("event:evt_2", "captured:pay_2")));
+        assertEquals(1.0, registry.counter("eventra.webhook.dedup", "result", "duplicate_redis").count());
+    }
+
+    @Test
+    @DisplayName("Stored responses round-trip through Redis byte-for-byte")
+    @SuppressWarnings("unchecked")
+    void storedResponseRoundTrip() {
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        byte[] body = "{\"amount\":5000,\"note\":\"caf\u00e9\\n\"}".getBytes(StandardCharsets.UTF_8);
+        IdempotencyService.StoredResponse response = new IdempotencyService.StoredResponse(201, "application/json", body);
+
+        service.storeResponse("u1:POST:/api/payments/order:k1", response, Duration.ofHours(48));
+        ArgumentCaptor<String> encoded = ArgumentCaptor.forClass(String.class);
+        verify(ops).set(eq("eventra:idempotency:response:u1:POST:/api/payments/order:k1"), encoded.capture(),
+                eq(Duration.ofHours(48)));
+        when(ops.get("eventra:idempotency:response:u1:POST:/api/payments/order:k1")).thenReturn(encoded.getValue());
+
+        IdempotencyService.StoredResponse replayed = service.findResponse("u1:POST:/api/payments/order:k1").orElseThrow();
+        assertEquals(201, replayed.status());
+        assertEquals("application/json", replayed.contentType());
+        assertArrayEquals(body, replayed.body());
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.eventra.infrastructure;
+
+import com.eventra.config.CacheMetricsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("InstrumentedCache")
+class InstrumentedCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private CacheKeySampler sampler;
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        CacheMetricsProperties properties = new CacheMetricsProperties();
+        properties.setKeySampleRate(1.0);
+        properties.setMaxSampledKeys(4);
+        sampler = new CacheKeySampler(properties);
+        cache = new InstrumentedCacheManager(new ConcurrentMapCacheManager("sponsors"), registry, sampler)
+                .getCache("sponsors");
+    }
+
+    @Test
+    @DisplayName("Hits and misses are counted per key class")
+    void countsHitsAndMissesPerKeyClass() {
+        cache.put("c1", "Acme");
+        cache.get("c1");
+        cache.get("c2");
+        cache.get("page|filter|industry=tech|p=0|s=20|g1");
+
+        assertEquals(1, gets("id", "hit"));
+        assertEquals(1, gets("id", "miss"));
+        assertEquals(1, gets("page:filter", "miss"));
+        assertEquals(1, registry.get("eventra.cache.puts").tag("cache", "sponsors").counter().count());
+    }
+
+    @Test
+    @DisplayName("A miss followed by a put of the same key on the same thread records load time")
+    void recordsLoadTimeFromMissToPut() {
+        cache.get("c1");
+        cache.put("c1", "Acme");
+        cache.put("c2", "Globex"); // no preceding miss
+
+        assertEquals(1, registry.get("eventra.cache.load").tag("cache", "sponsors").timer().count());
+    }
+
+    @Test
+    @DisplayName("Sync reads count a miss only when the caller ran the loader")
+    void syncReadsTimeTheLoader() {
+        assertEquals("Acme", cache.get("c1", () -> "Acme"));
+        assertEquals("Acme", cache.get("c1", () -> "Other"));
+
+        assertEquals(1, gets("id", "miss"));
+        assertEquals(1, gets("id", "hit"));
+        assertEquals(1, registry.get("eventra.cache.load").timer().count());
+    }
+
+    @Test
+    @DisplayName("Evictions and clears are counted separately")
+    void countsEvictions() {
+        cache.put("c1", "Acme");
+        cache.evict("c1");
+        cache.clear();
+
+        assertEquals(1, registry.get("eventra.cache.evictions").tag("op", "evict").counter().count());
+        assertEquals(1, registry.get("eventra.cache.evictions").tag("op", "clear").counter().count());
+    }
+
+    @Test
+    @DisplayName("Key classes stay low-cardinality")
+    void keyClasses() {
+        assertEquals("id", InstrumentedCache.keyClass("6650c0ffee"));
+        assertEquals("count:search", InstrumentedCache.keyClass("count|search|location=Pune|g3"));
+        assertEquals("page", InstrumentedCache.keyClass("page|location=Pune"));
+        assertEquals("other", InstrumentedCache.keyClass("2025-01-01T00:00|x"));
+    }
+
+    @Test
+    @DisplayName("Top keys rank sampled reads and drop the coldest half when full")
+    void topKeysKeepHotKeys() {
+        for (int i = 0; i < 3; i++) {
+            cache.get("hot");
+        }
+        cache.get("warm");
+        cache.get("warm");
+        List.of("a", "b", "c").forEach(cache::get);
+
+        List<CacheKeySampler.KeyCount> top = sampler.top("sponsors", 2).caches().get("sponsors");
+        assertEquals(List.of("hot", "warm"), top.stream().map(CacheKeySampler.KeyCount::key).toList());
+        assertEquals(3, top.get(0).estimated());
+        assertTrue(sampler.top(null, 10).caches().get("sponsors").size() <= 4);
+    }
+
+    private double gets(String keyClass, String result) {
+        return registry.get("eventra.cache.gets")
+                .tags("cache", "sponsors", "key_class", keyClass, "result", result)
+                .timer().count();
+    }
+}
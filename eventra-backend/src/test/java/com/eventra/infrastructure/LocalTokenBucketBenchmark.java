@@ -0,0 +1,134 @@
+package com.eventra.infrastructure;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JMH throughput comparison of the single-long GCRA {@link DistributedRateLimiter.LocalTokenBucket}
+ * against the previous two-AtomicLong refill/decrement implementation, at 1, 8 and 64 threads
+ * contending on one bucket.
+ *
+ * <h3>Scenarios ({@code capacity} param):</h3>
+ * <ul>
+ *   <li><b>100</b> — realistic tier limit; nearly every call is a rejection</li>
+ *   <li><b>1000000000</b> — effectively unlimited; every call is an admit (CAS path)</li>
+ * </ul>
+ *
+ * <h3>Run:</h3>
+ * <pre>
+ *   mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *        com.eventra.infrastructure.LocalTokenBucketBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocalTokenBucketBenchmark {
+
+    @Param({"100", "1000000000"})
+    private int capacity;
+
+    private DistributedRateLimiter.LocalTokenBucket gcraBucket;
+    private LegacyTokenBucket legacyBucket;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        gcraBucket = new DistributedRateLimiter.LocalTokenBucket(capacity, capacity, 60);
+        legacyBucket = new LegacyTokenBucket(capacity, capacity, 60);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean gcra_1thread() {
+        return gcraBucket.tryConsume();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean gcra_8threads() {
+        return gcraBucket.tryConsume();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean gcra_64threads() {
+        return gcraBucket.tryConsume();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean legacy_1thread() {
+        return legacyBucket.tryConsume();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean legacy_8threads() {
+        return legacyBucket.tryConsume();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean legacy_64threads() {
+        return legacyBucket.tryConsume();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LocalTokenBucketBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Previous implementation, kept verbatim for comparison only.
+     * Over-admits under contention (get() then decrementAndGet()) and loses
+     * fractional refill progress on every refill.
+     */
+    static class LegacyTokenBucket {
+        private final long capacity;
+        private final long refillTokens;
+        private final long refillIntervalNanos;
+        private final AtomicLong availableTokens;
+        private final AtomicLong lastRefillTimestamp;
+
+        LegacyTokenBucket(int capacity, int refillTokens, int refillDurationSeconds) {
+            this.capacity = capacity;
+            this.refillTokens = refillTokens;
+            this.refillIntervalNanos = refillDurationSeconds * 1_000_000_000L;
+            this.availableTokens = new AtomicLong(capacity);
+            this.lastRefillTimestamp = new AtomicLong(System.nanoTime());
+        }
+
+        boolean tryConsume() {
+            refill();
+            long current = availableTokens.get();
+            if (current <= 0) {
+                return false;
+            }
+            return availableTokens.decrementAndGet() >= 0;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            long lastRefill = lastRefillTimestamp.get();
+            long elapsed = now - lastRefill;
+
+            if (elapsed <= 0) return;
+
+            long tokensToAdd = (elapsed * refillTokens) / refillIntervalNanos;
+            if (tokensToAdd > 0 && lastRefillTimestamp.compareAndSet(lastRefill, now)) {
+                long newTokens = Math.min(capacity, availableTokens.get() + tokensToAdd);
+                availableTokens.set(newTokens);
+            }
+        }
+    }
+}
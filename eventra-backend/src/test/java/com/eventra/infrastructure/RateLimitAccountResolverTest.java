@@ -0,0 +1,85 @@
+package com.eventra.infrastructure;
+
+import com.eventra.config.RateLimitProperties;
+import com.eventra.entity.Company;
+import com.eventra.entity.Organizer;
+import com.eventra.entity.Role;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitContext;
+import com.eventra.infrastructure.DistributedRateLimiter.RateLimitTier;
+import com.eventra.repository.CompanyRepository;
+import com.eventra.repository.OrganizerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RateLimitAccountResolver")
+class RateLimitAccountResolverTest {
+
+    @Mock private CompanyRepository companyRepository;
+    @Mock private OrganizerRepository organizerRepository;
+
+    private RateLimitProperties properties;
+    private RateLimitAccountResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        resolver = new RateLimitAccountResolver(companyRepository, organizerRepository, properties);
+    }
+
+    @Test
+    @DisplayName("Admins resolve to their own user scope without a query")
+    void adminSkipsMongo() {
+        assertEquals("user:a1", resolver.resolve(context("user:a1", Role.ADMIN)));
+
+        verifyNoInteractions(companyRepository, organizerRepository);
+    }
+
+    @Test
+    @DisplayName("The role claim selects the one repository to ask, and the result is cached")
+    void roleSelectsRepository() {
+        when(organizerRepository.findByUserId("u1"))
+                .thenReturn(Optional.of(Organizer.builder().id("o1").userId("u1").build()));
+
+        assertEquals("organizer:o1", resolver.resolve(context("user:u1", Role.ORGANIZER)));
+        assertEquals("organizer:o1", resolver.resolve(context("user:u1", Role.ORGANIZER)));
+
+        verify(organizerRepository, times(1)).findByUserId("u1");
+        verifyNoInteractions(companyRepository);
+    }
+
+    @Test
+    @DisplayName("A user without a profile is cached as its own user scope")
+    void missingProfileIsCached() {
+        when(companyRepository.findByUserId("u2")).thenReturn(Optional.empty());
+
+        assertEquals("user:u2", resolver.resolve(context("user:u2", Role.COMPANY)));
+        assertEquals("user:u2", resolver.resolve(context("user:u2", Role.COMPANY)));
+
+        verify(companyRepository, times(1)).findByUserId("u2");
+    }
+
+    @Test
+    @DisplayName("Without a role both profiles are tried; anonymous callers have no account")
+    void unknownRoleAndAnonymous() {
+        when(companyRepository.findByUserId("u3"))
+                .thenReturn(Optional.of(Company.builder().id("c3").userId("u3").build()));
+
+        assertEquals("company:c3", resolver.resolve(context("user:u3", null)));
+        assertNull(resolver.resolve(context("ip:1.2.3.4", null)));
+        verifyNoInteractions(organizerRepository);
+    }
+
+    private RateLimitContext context(String key, Role role) {
+        return new RateLimitContext(key, RateLimitTier.DEFAULT, properties.getDefaultSpec(), role);
+    }
+}
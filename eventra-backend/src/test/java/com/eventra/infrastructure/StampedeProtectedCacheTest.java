@@ -0,0 +1,202 @@
+package com.eventra.infrastructure;
+
+import com.eventra.config.RedisConfig;
+import com.eventra.dto.RevenueStatsDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StampedeProtectedCache")
+class StampedeProtectedCacheTest {
+
+    private static final StampedePolicy POLICY = new StampedePolicy(
+            Duration.ofMinutes(5), Duration.ofMinutes(5), 1.0, Duration.ofSeconds(30), Duration.ofSeconds(10));
+
+    @Mock private IdempotencyService lockService;
+    @Mock private Clock clock;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicInteger loads = new AtomicInteger();
+    private ConcurrentMapCache redis;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        redis = new ConcurrentMapCache("revenue-stats");
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(clock.millis()).thenAnswer(inv -> now.get());
+        lenient().when(lockService.tryLock(anyString(), any(), any())).thenAnswer(inv -> Optional.of(lock()));
+        lenient().when(lockService.tryLock(anyString(), any())).thenAnswer(inv -> Optional.of(lock()));
+    }
+
+    @Test
+    @DisplayName("A miss loads once under the recompute lock; later reads are served fresh")
+    void missLoadsThenServesFresh() {
+        Cache cache = cache(0.0);
+
+        assertEquals("v1", cache.get("k", this::load));
+        assertEquals("v1", cache.get("k", this::load));
+
+        assertEquals(1, loads.get());
+        verify(lockService).tryLock("cache:revenue-stats:k", POLICY.lockLease(), POLICY.lockWait());
+        assertInstanceOf(StampedeProtectedCache.Stamped.class, redis.get("k").get());
+        assertEquals("v1", cache.get("k", String.class));
+    }
+
+    @Test
+    @DisplayName("An expired entry is served while a background refresh replaces it")
+    void staleServedWhileRefreshing() {
+        Cache cache = cache(0.0);
+        cache.get("k", this::load);
+        now.addAndGet(Duration.ofMinutes(6).toMillis());
+
+        assertEquals("v1", cache.get("k", this::load));
+
+        assertEquals(2, loads.get());
+        assertEquals("v2", cache.get("k", this::load));
+        assertEquals(1.0, meterRegistry.counter("eventra.cache.stampede", "cache", "revenue-stats", "outcome", "stale").count());
+    }
+
+    @Test
+    @DisplayName("Refresh is skipped when another node holds the recompute lock")
+    void refreshSkippedWhenLockHeldElsewhere() {
+        Cache cache = cache(0.0);
+        cache.get("k", this::load);
+        now.addAndGet(Duration.ofMinutes(6).toMillis());
+        when(lockService.tryLock(anyString(), any())).thenReturn(Optional.empty());
+
+        assertEquals("v1", cache.get("k", this::load));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Hits close to expiry refresh early in proportion to compute time")
+    void earlyRefreshNearExpiry() {
+        now.set(0);
+        Cache cache = cache(0.999); // ln(0.001) ≈ -6.9, so the window is ~7x compute time
+        cache.get("k", () -> {
+            now.addAndGet(10_000);
+            return load();
+        });
+
+        now.set(Duration.ofMinutes(2).toMillis());
+        cache.get("k", this::load);
+        assertEquals(1, loads.get(), "far from expiry");
+
+        now.set(Duration.ofMinutes(5).toMillis());
+        assertEquals("v1", cache.get("k", this::load));
+        assertEquals(2, loads.get(), "within ~70s of expiry");
+    }
+
+    @Test
+    @DisplayName("Concurrent misses in one JVM share a single load")
+    void concurrentMissesCoalesce() throws Exception {
+        Cache cache = new StampedeProtectedCache(redis, POLICY, lockService, Runnable::run, meterRegistry,
+                Clock.systemUTC(), () -> 0.0);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get("k", () -> {
+                loading.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return load();
+            })));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(pool.submit(() -> cache.get("k", this::load)));
+            }
+            Thread.sleep(50);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("v1", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A miss that times out on the lock uses the holder's result when it landed")
+    void missUsesOtherNodesResult() {
+        Cache cache = cache(0.0);
+        when(lockService.tryLock(anyString(), any(), any())).thenAnswer(inv -> {
+            redis.put("k", new StampedeProtectedCache.Stamped("from-other-node", now.get(), 100, now.get() + 300_000));
+            return Optional.empty();
+        });
+
+        assertEquals("from-other-node", cache.get("k", this::load));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    @DisplayName("Lock errors fail open and loader errors surface as ValueRetrievalException")
+    void failureHandling() {
+        Cache cache = cache(0.0);
+        when(lockService.tryLock(anyString(), any(), any())).thenThrow(new RuntimeException("redis down"));
+
+        assertEquals("v1", cache.get("k", this::load));
+
+        Cache.ValueRetrievalException e = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get("other", () -> { throw new IllegalStateException("boom"); }));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    @DisplayName("Stamped entries survive the Redis JSON serializer with their value type")
+    void stampedRoundTripsThroughRedisSerializer() {
+        RedisSerializer<Object> serializer = new RedisConfig().redisJsonSerializer();
+        RevenueStatsDTO stats = RevenueStatsDTO.builder().gmv(new BigDecimal("1500.00")).build();
+
+        Object restored = serializer.deserialize(serializer.serialize(
+                new StampedeProtectedCache.Stamped(stats, 1_000, 2_500, 301_000)));
+
+        StampedeProtectedCache.Stamped stamped = assertInstanceOf(StampedeProtectedCache.Stamped.class, restored);
+        assertEquals(stats, stamped.getValue());
+        assertEquals(2_500, stamped.getComputeMillis());
+        assertEquals(301_000, stamped.getFreshUntil());
+    }
+
+    private StampedeProtectedCache cache(double randomDraw) {
+        return new StampedeProtectedCache(redis, POLICY, lockService, Runnable::run, meterRegistry,
+                clock, () -> randomDraw);
+    }
+
+    private String load() {
+        return "v" + loads.incrementAndGet();
+    }
+
+    private DistributedLock lock() {
+        return new DistributedLock(lockService, "cache:revenue-stats:k", "owner", 1, Long.MAX_VALUE);
+    }
+}
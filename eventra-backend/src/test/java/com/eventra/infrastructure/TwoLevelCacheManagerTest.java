@@ -0,0 +1,120 @@
+package com.eventra.infrastructure;
+
+import com.eventra.config.NearCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TwoLevelCacheManager")
+class TwoLevelCacheManagerTest {
+
+    private static final String CHANNEL = "eventra:cache:invalidate";
+
+    @Mock private StringRedisTemplate redisTemplate;
+    @Mock private CacheAccessStats accessStats;
+
+    private ConcurrentMapCacheManager redis;
+    private TwoLevelCacheManager manager;
+
+    @BeforeEach
+    void setUp() {
+        redis = new ConcurrentMapCacheManager("sponsor-detail", "platform-stats");
+        NearCacheProperties properties = new NearCacheProperties();
+        properties.getCaches().put("sponsor-detail", new NearCacheProperties.Spec(100, Duration.ofMinutes(1)));
+        manager = new TwoLevelCacheManager(redis, properties, redisTemplate, accessStats);
+    }
+
+    @Test
+    @DisplayName("Configured caches are two-level; others are served by Redis alone")
+    void onlyConfiguredCachesGetL1() {
+        assertInstanceOf(TwoLevelCache.class, manager.getCache("sponsor-detail"));
+        assertSame(redis.getCache("platform-stats"), manager.getCache("platform-stats"));
+    }
+
+    @Test
+    @DisplayName("L2 hit is promoted to L1, so later reads survive an L2 miss")
+    void promotesL2HitsToL1() {
+        redis.getCache("sponsor-detail").put("c1", "Acme");
+        Cache cache = manager.getCache("sponsor-detail");
+
+        assertEquals("Acme", cache.get("c1", String.class));
+        redis.getCache("sponsor-detail").clear(); // L1 still holds it
+        assertEquals("Acme", cache.get("c1", String.class));
+        verify(accessStats, times(2)).record("sponsor-detail", "c1");
+    }
+
+    @Test
+    @DisplayName("Evict clears both levels and publishes the key to other nodes")
+    void evictPublishesInvalidation() {
+        Cache cache = manager.getCache("sponsor-detail");
+        cache.put("c1", "Acme");
+        clearInvocations(redisTemplate);
+
+        cache.evict("c1");
+
+        assertNull(cache.get("c1"));
+        assertNull(redis.getCache("sponsor-detail").get("c1"));
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), message.capture());
+        assertTrue(message.getValue().endsWith("|sponsor-detail|c1"));
+    }
+
+    @Test
+    @DisplayName("Invalidation from another node drops only the local L1 copy")
+    void remoteInvalidationDropsL1() {
+        Cache cache = manager.getCache("sponsor-detail");
+        cache.put("c1", "Acme");
+        cache.put("c2", "Globex");
+        redis.getCache("sponsor-detail").put("c1", "Acme v2"); // another node's write
+
+        manager.onMessage(message("other-node|sponsor-detail|c1"), null);
+
+        assertEquals("Acme v2", cache.get("c1", String.class));
+        assertEquals("Globex", cache.get("c2", String.class));
+    }
+
+    @Test
+    @DisplayName("Own invalidations are ignored and '*' clears the whole L1")
+    void ownMessagesIgnoredAndClearAll() {
+        Cache cache = manager.getCache("sponsor-detail");
+        cache.put("c1", "Acme");
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), published.capture());
+        redis.getCache("sponsor-detail").clear();
+
+        manager.onMessage(message(published.getValue()), null);
+        assertEquals("Acme", cache.get("c1", String.class));
+
+        manager.onMessage(message("other-node|sponsor-detail|*"), null);
+        assertNull(cache.get("c1"));
+    }
+
+    @Test
+    @DisplayName("A failed publish does not fail the eviction")
+    void publishFailureIsSwallowed() {
+        Cache cache = manager.getCache("sponsor-detail");
+        doThrow(new RuntimeException("redis down")).when(redisTemplate).convertAndSend(anyString(), anyString());
+
+        assertDoesNotThrow(() -> cache.evict("c1"));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,113 @@
+package com.eventra.scheduler;
+
+import com.eventra.config.CacheWarmupProperties;
+import com.eventra.dto.CompanyDTO;
+import com.eventra.infrastructure.CacheAccessStats;
+import com.eventra.infrastructure.IdempotencyService;
+import com.eventra.service.CompanyService;
+import com.eventra.service.OrganizerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CacheWarmupScheduler")
+class CacheWarmupSchedulerTest {
+
+    @Mock private CacheAccessStats accessStats;
+    @Mock private CompanyService companyService;
+    @Mock private OrganizerService organizerService;
+    @Mock private StringRedisTemplate redisTemplate;
+    @Mock private IdempotencyService idempotencyService;
+
+    private CacheWarmupProperties properties;
+    private CacheWarmupScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheWarmupProperties();
+        properties.setTopProfiles(3);
+        properties.setTopListings(2);
+        scheduler = new CacheWarmupScheduler(properties, accessStats, companyService, organizerService,
+                redisTemplate, idempotencyService);
+    }
+
+    @Test
+    @DisplayName("Warmup loads the hottest profiles and listings; a failed load does not stop the rest")
+    void warmsHotEntries() {
+        when(accessStats.top("sponsor-detail", 3)).thenReturn(List.of("c1", "c2"));
+        when(accessStats.top("organizer-detail", 3)).thenReturn(List.of("o1"));
+        when(accessStats.top("sponsors", 2)).thenReturn(List.of("verified|s=20"));
+        // Lenient: the other ids are loaded with unstubbed arguments on pool threads
+        lenient().when(companyService.getCompanyById("c2")).thenThrow(new RuntimeException("Company not found"));
+
+        assertEquals(3, scheduler.warmUp());
+
+        verify(companyService).getCompanyById("c1");
+        verify(organizerService).getOrganizerById("o1");
+        verify(companyService).warmListing("verified|s=20");
+    }
+
+    @Test
+    @DisplayName("Warmup stops at its timeout and lets startup continue")
+    void warmupIsBoundedInTime() {
+        properties.setConcurrency(1);
+        properties.setTimeout(Duration.ofMillis(200));
+        when(accessStats.top("sponsor-detail", 3)).thenReturn(List.of("slow", "c2"));
+        lenient().when(companyService.getCompanyById("slow")).thenAnswer(inv -> {
+            Thread.sleep(5_000);
+            return new CompanyDTO();
+        });
+
+        long start = System.currentTimeMillis();
+        assertEquals(0, scheduler.warmUp());
+        assertTrue(System.currentTimeMillis() - start < 2_000);
+    }
+
+    @Test
+    @DisplayName("Warmup is skipped when access stats are unavailable")
+    void warmupSkippedWithoutStats() {
+        when(accessStats.top(anyString(), anyInt())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertEquals(0, scheduler.warmUp());
+        verifyNoInteractions(companyService, organizerService);
+    }
+
+    @Test
+    @DisplayName("Refresh-ahead is skipped on instances that do not get the lock")
+    void refreshAheadRunsOnLockHolderOnly() {
+        when(idempotencyService.tryLock(eq("cache-warmup:refresh-ahead"), any())).thenReturn(Optional.empty());
+
+        scheduler.refreshAhead();
+
+        verifyNoInteractions(accessStats, redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Refresh-ahead reloads only hot entries close to expiry")
+    @SuppressWarnings("unchecked")
+    void refreshesEntriesNearExpiry() {
+        when(accessStats.top("sponsor-detail", 3)).thenReturn(List.of("expiring", "fresh", "missing"));
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(List.of(20_000L, 240_000L, -2L));
+
+        assertEquals(1, scheduler.refreshExpiring("sponsor-detail", companyService::refreshCompany));
+        verify(companyService).refreshCompany("expiring");
+        verify(companyService, never()).refreshCompany("fresh");
+        verify(companyService, never()).refreshCompany("missing");
+    }
+}
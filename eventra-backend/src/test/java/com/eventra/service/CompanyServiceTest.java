@@ -1,25 +1,32 @@
 package com.eventra.service;
 
+import com.eventra.config.RedisConfig;
 import com.eventra.dto.CompanyDTO;
 import com.eventra.dto.CompanyRequest;
 import com.eventra.entity.Company;
 import com.eventra.entity.Role;
 import com.eventra.entity.User;
+import com.eventra.infrastructure.CacheAccessStats;
+import com.eventra.infrastructure.CacheGenerations;
 import com.eventra.mapper.CompanyMapper;
 import com.eventra.repository.CompanyRepository;
 import com.eventra.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -27,6 +34,8 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -45,6 +54,17 @@ class CompanyServiceTest {
     @Mock
     private MongoTemplate mongoTemplate;
 
+    @Mock
+    private CacheGenerations cacheGenerations;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private CacheAccessStats cacheAccessStats;
+
+    private final ConcurrentMapCache sponsorsCache = new ConcurrentMapCache("sponsors");
+
     @InjectMocks
     private CompanyService companyService;
 
@@ -55,6 +75,7 @@ class CompanyServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(cacheManager.getCache("sponsors")).thenReturn(sponsorsCache);
         testUser = User.builder()
                 .id("1")
                 .email("company@example.com")
@@ -232,6 +253,33 @@ class CompanyServiceTest {
         // Assert
         assertTrue(result.getVerified());
         verify(companyRepository).save(testCompany);
+        verify(cacheGenerations).bump("sponsors",
+                Set.of("all", "industry:Technology", "location:San Francisco"));
+    }
+
+    @Test
+    void testUpdateVerifiedCompanyBumpsOldAndNewTags() {
+        testCompany.setVerified(true);
+        Company moved = Company.builder().id("1").userId("1")
+                .industry("Finance").location("San Francisco").verified(true).build();
+        when(companyRepository.findById("1")).thenReturn(Optional.of(testCompany));
+        when(companyRepository.save(any(Company.class))).thenReturn(moved);
+
+        companyService.updateCompany("1", "1", testCompanyRequest);
+
+        verify(cacheGenerations).bump("sponsors",
+                Set.of("all", "industry:Technology", "location:San Francisco", "industry:Finance"));
+    }
+
+    @Test
+    void testUnverifiedCompanyWritesLeaveListingsAlone() {
+        when(companyRepository.findById("1")).thenReturn(Optional.of(testCompany));
+        when(companyRepository.save(any(Company.class))).thenReturn(testCompany);
+
+        companyService.updateCompany("1", "1", testCompanyRequest);
+        companyService.rejectCompany("1");
+
+        verifyNoInteractions(cacheGenerations);
     }
 
     @Test
@@ -253,8 +301,8 @@ class CompanyServiceTest {
     void testSearchCompanies() {
         // Arrange
         Pageable pageable = PageRequest.of(0, 10);
+        when(cacheGenerations.stamp("sponsors", List.of("industry:Technology"))).thenReturn("3");
         when(mongoTemplate.find(any(Query.class), eq(Company.class))).thenReturn(Arrays.asList(testCompany));
-        when(mongoTemplate.count(any(Query.class), eq(Company.class))).thenReturn(1L);
         when(companyMapper.toDTO(testCompany)).thenReturn(testCompanyDTO);
 
         // Act
@@ -265,6 +313,94 @@ class CompanyServiceTest {
         assertEquals("Tech Corp", result.getContent().get(0).getCompanyName());
     }
 
+    @Test
+    void testSearchServedFromCacheWithCanonicalKey() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(cacheGenerations.stamp("sponsors", List.of("industry:Technology"))).thenReturn("3");
+        when(mongoTemplate.find(any(Query.class), eq(Company.class))).thenReturn(Arrays.asList(testCompany));
+        when(companyMapper.toDTO(testCompany)).thenReturn(testCompanyDTO);
+
+        companyService.searchCompanies(null, "Technology", null, pageable);
+        // Blank filters and surrounding whitespace canonicalize to the same entry
+        Page<CompanyDTO> cached = companyService.searchCompanies(" ", " Technology ", "", pageable);
+
+        assertEquals(1, cached.getTotalElements());
+        assertEquals("Tech Corp", cached.getContent().get(0).getCompanyName());
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Company.class));
+    }
+
+    @Test
+    void testCachedCountReusedAcrossPages() {
+        when(cacheGenerations.stamp("sponsors", List.of("all"))).thenReturn("0");
+        List<Company> fullPage = Collections.nCopies(10, testCompany);
+        when(mongoTemplate.find(any(Query.class), eq(Company.class))).thenReturn(fullPage);
+        when(mongoTemplate.count(any(Query.class), eq(Company.class))).thenReturn(25L);
+        when(companyMapper.toDTO(testCompany)).thenReturn(testCompanyDTO);
+
+        Page<CompanyDTO> first = companyService.getAllVerifiedCompanies(PageRequest.of(0, 10));
+        Page<CompanyDTO> second = companyService.getAllVerifiedCompanies(PageRequest.of(1, 10));
+
+        assertEquals(25, first.getTotalElements());
+        assertEquals(25, second.getTotalElements());
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(Company.class));
+        verify(mongoTemplate, times(1)).count(any(Query.class), eq(Company.class));
+    }
+
+    @Test
+    void testNewGenerationMissesOldEntries() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(cacheGenerations.stamp("sponsors", List.of("location:Pune"))).thenReturn("1", "2");
+        when(mongoTemplate.find(any(Query.class), eq(Company.class))).thenReturn(List.of());
+
+        companyService.searchCompaniesByFilters("Pune", null, null, null, null, pageable);
+        companyService.searchCompaniesByFilters("Pune", null, null, null, null, pageable);
+
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(Company.class));
+    }
+
+    @Test
+    void testListingFallsBackToMongoWhenRedisIsDown() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(cacheGenerations.stamp(anyString(), anyList())).thenThrow(new RuntimeException("redis down"));
+        when(mongoTemplate.find(any(Query.class), eq(Company.class))).thenReturn(List.of(testCompany));
+        when(companyMapper.toDTO(testCompany)).thenReturn(testCompanyDTO);
+
+        assertEquals(1, companyService.getAllVerifiedCompanies(pageable).getTotalElements());
+    }
+
+    @Test
+    void testFirstPageAccessRecordedAndReplayedByWarmup() {
+        when(cacheGenerations.stamp("sponsors", List.of("industry:Tech & Media"))).thenReturn("0");
+        when(mongoTemplate.find(any(Query.class), eq(Company.class))).thenReturn(List.of(testCompany));
+        when(companyMapper.toDTO(testCompany)).thenReturn(testCompanyDTO);
+
+        companyService.searchCompaniesByFilters("Pune", "Tech & Media", null, new BigDecimal("5000"), null, PageRequest.of(0, 10));
+        companyService.searchCompaniesByFilters("Pune", "Tech & Media", null, new BigDecimal("5000"), null, PageRequest.of(1, 10));
+        ArgumentCaptor<String> descriptor = ArgumentCaptor.forClass(String.class);
+        verify(cacheAccessStats, times(1)).record(eq("sponsors"), descriptor.capture());
+
+        sponsorsCache.clear();
+        companyService.warmListing(descriptor.getValue());
+        companyService.searchCompaniesByFilters("Pune", "Tech & Media", null, new BigDecimal("5000"), null, PageRequest.of(0, 10));
+
+        // page 0, page 1, warmup — the request after warmup is a cache hit
+        verify(mongoTemplate, times(3)).find(any(Query.class), eq(Company.class));
+    }
+
+    @Test
+    void testCachedPageSurvivesRedisJsonSerializer() {
+        RedisSerializer<Object> serializer = new RedisConfig().redisJsonSerializer();
+        CompanyService.CachedPage page = new CompanyService.CachedPage(
+                new ArrayList<>(List.of(testCompanyDTO)), 25);
+
+        Object restored = serializer.deserialize(serializer.serialize(page));
+
+        CompanyService.CachedPage cachedPage = assertInstanceOf(CompanyService.CachedPage.class, restored);
+        assertEquals(25, cachedPage.getTotalElements());
+        assertEquals("Tech Corp", cachedPage.getContent().get(0).getCompanyName());
+        assertInstanceOf(Number.class, serializer.deserialize(serializer.serialize(25L)));
+    }
+
     @Test
     void testBudgetRangesRoundTripCorrectly() {
         // Validates: Requirements 2.3 - Property 13
@@ -0,0 +1,140 @@
+package com.eventra.service;
+
+import com.eventra.entity.Conversation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ConversationMetadataWriter")
+class ConversationMetadataWriterTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private BulkOperations bulk;
+
+    private ConversationMetadataWriter writer;
+    private final Conversation conversation = Conversation.builder()
+            .id("conv1").companyId("company").organizerId("organizer").build();
+
+    @BeforeEach
+    void setUp() {
+        writer = new ConversationMetadataWriter(mongoTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Unread counts are incremented on send; a burst's previews coalesce into one write")
+    void countsNowCoalescesPreview() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Conversation.class)).thenReturn(bulk);
+        writer.messageSent(conversation, "company", "first", T0.plusSeconds(1));
+        writer.messageSent(conversation, "company", "third", T0.plusSeconds(3));
+        writer.messageSent(conversation, "company", "second", T0.plusSeconds(2)); // arrives late
+
+        List<Update> increments = capturedDirectUpdates(3);
+        assertTrue(increments.stream().allMatch(u ->
+                new Document("unreadOrganizer", 1).equals(u.getUpdateObject().get("$inc"))));
+
+        writer.flush();
+
+        List<Update> ops = capturedBulkOps(2);
+        assertNull(ops.get(0).getUpdateObject().get("$inc"), "counters are never written behind");
+        assertEquals(new Document("lastMessageAt", T0.plusSeconds(3)), ops.get(0).getUpdateObject().get("$max"));
+        assertEquals(new Document("lastMessagePreview", "third"), ops.get(1).getUpdateObject().get("$set"));
+        verify(bulk).execute();
+        assertEquals(0, writer.pendingCount());
+    }
+
+    @Test
+    @DisplayName("Nothing pending, nothing written")
+    void emptyFlushIsNoop() {
+        writer.flush();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Marking read while a flush is in flight: the flush cannot revive the counter")
+    void markReadDuringInFlightFlush() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Conversation.class)).thenReturn(bulk);
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bulk.execute()).thenAnswer(inv -> {
+            flushing.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return null;
+        });
+        writer.messageSent(conversation, "company", "hi", T0);
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(writer::flush);
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+        writer.markRead(conversation, "organizer");
+        release.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+
+        // Writes to the counter, in order: +1 on send, reset on read; the flush touches neither
+        List<Update> direct = capturedDirectUpdates(2);
+        assertEquals(new Document("unreadOrganizer", 1), direct.get(0).getUpdateObject().get("$inc"));
+        assertEquals(0, ((Document) direct.get(1).getUpdateObject().get("$set")).get("unreadOrganizer"));
+        capturedBulkOps(2).forEach(op -> {
+            assertNull(op.getUpdateObject().get("$inc"));
+            op.getUpdateObject().values().forEach(fields ->
+                    assertTrue(((Document) fields).keySet().stream().noneMatch(f -> f.startsWith("unread"))));
+        });
+    }
+
+    @Test
+    @DisplayName("A failed flush is re-queued without counters, so a retry cannot double-count")
+    void failedFlushIsRequeuedIdempotently() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Conversation.class)).thenReturn(bulk);
+        when(bulk.execute())
+                .thenThrow(new QueryTimeoutException("timed out after the server applied it"))
+                .thenReturn(null);
+        writer.messageSent(conversation, "company", "one", T0);
+        writer.flush();
+        assertEquals(1, writer.pendingCount());
+
+        writer.messageSent(conversation, "company", "two", T0.plusSeconds(1));
+        writer.flush();
+
+        List<Update> ops = capturedBulkOps(4);
+        assertNull(ops.get(2).getUpdateObject().get("$inc"));
+        assertEquals(new Document("lastMessageAt", T0.plusSeconds(1)), ops.get(2).getUpdateObject().get("$max"));
+        assertEquals(new Document("lastMessagePreview", "two"), ops.get(3).getUpdateObject().get("$set"));
+        assertEquals(0, writer.pendingCount());
+        capturedDirectUpdates(2); // one increment per message, none from the retry
+    }
+
+    private List<Update> capturedBulkOps(int count) {
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(count)).updateOne(any(Query.class), captor.capture());
+        return captor.getAllValues();
+    }
+
+    private List<Update> capturedDirectUpdates(int count) {
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(count)).updateFirst(any(Query.class), captor.capture(), eq(Conversation.class));
+        return captor.getAllValues();
+    }
+}
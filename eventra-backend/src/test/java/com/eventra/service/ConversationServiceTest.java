@@ -0,0 +1,184 @@
+package com.eventra.service;
+
+import com.eventra.dto.ConversationMessageDTO;
+import com.eventra.dto.ConversationMessagePage;
+import com.eventra.entity.Conversation;
+import com.eventra.entity.ConversationMessage;
+import com.eventra.entity.Role;
+import com.eventra.exception.BadRequestException;
+import com.eventra.exception.ResourceNotFoundException;
+import com.eventra.repository.ConversationMessageRepository;
+import com.eventra.repository.ConversationRepository;
+import com.eventra.repository.NotificationRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ConversationService message history")
+class ConversationServiceTest {
+
+    @Mock private ConversationRepository conversationRepository;
+    @Mock private ConversationMessageRepository messageRepository;
+    @Mock private NotificationRepository notificationRepository;
+    @Mock private ParticipantDirectory participantDirectory;
+    @Mock private SimpMessagingTemplate messagingTemplate;
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private ConversationMetadataWriter conversationMetadataWriter;
+    @InjectMocks private ConversationService conversationService;
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        Conversation conversation = Conversation.builder()
+                .id("conv1").companyId("u1").organizerId("u2").build();
+        lenient().when(conversationRepository.findById("conv1")).thenReturn(Optional.of(conversation));
+        lenient().when(participantDirectory.findAll(any())).thenReturn(Map.of());
+    }
+
+    @Test
+    @DisplayName("Latest page is returned oldest first, with a cursor to older history")
+    void latestPage() {
+        when(mongoTemplate.find(any(Query.class), eq(ConversationMessage.class)))
+                .thenReturn(List.of(message("m5", 5), message("m4", 4), message("m3", 3)));
+
+        ConversationMessagePage page = conversationService.getMessages("conv1", "u1", null, null, 2);
+
+        assertEquals(List.of("m4", "m5"), page.getMessages().stream().map(ConversationMessageDTO::getId).toList());
+        assertNotNull(page.getOlderCursor());
+        assertNotNull(page.getNewerCursor());
+
+        Query query = capturedQuery();
+        assertEquals(3, query.getLimit());
+        assertEquals(new Document("createdAt", -1).append("id", -1), query.getSortObject());
+    }
+
+    @Test
+    @DisplayName("Older cursor resumes strictly before the oldest message of the previous page")
+    void loadOlderUsesKeyset() {
+        when(mongoTemplate.find(any(Query.class), eq(ConversationMessage.class)))
+                .thenReturn(List.of(message("m5", 5), message("m4", 4), message("m3", 3)))
+                .thenReturn(List.of(message("m2", 4)));
+        String older = conversationService.getMessages("conv1", "u1", null, null, 2).getOlderCursor();
+
+        ConversationMessagePage page = conversationService.getMessages("conv1", "u1", older, null, 2);
+
+        assertNull(page.getOlderCursor(), "start of the conversation reached");
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(captor.capture(), eq(ConversationMessage.class));
+        List<?> or = (List<?>) captor.getValue().getQueryObject().get("$or");
+        assertEquals(new Document("createdAt", new Document("$lt", T0.plusSeconds(4))), or.get(0));
+        assertEquals(new Document("createdAt", T0.plusSeconds(4)).append("id", new Document("$lt", "m4")), or.get(1));
+    }
+
+    @Test
+    @DisplayName("After cursor pages forward in ascending order")
+    void catchUpPagesForward() {
+        String cursor = conversationService.getMessages("conv1", "u1", null, null, 2).getNewerCursor();
+        assertNull(cursor, "empty conversation has no cursors");
+        when(mongoTemplate.find(any(Query.class), eq(ConversationMessage.class)))
+                .thenReturn(List.of(message("m1", 1)))
+                .thenReturn(List.of(message("m2", 2), message("m3", 3)));
+        String newer = conversationService.getMessages("conv1", "u1", null, null, 2).getNewerCursor();
+
+        ConversationMessagePage page = conversationService.getMessages("conv1", "u1", null, newer, 2);
+
+        assertEquals(List.of("m2", "m3"), page.getMessages().stream().map(ConversationMessageDTO::getId).toList());
+        assertNotNull(page.getOlderCursor());
+        assertEquals(new Document("createdAt", 1).append("id", 1), capturedLastQuery(3).getSortObject());
+    }
+
+    @Test
+    @DisplayName("Both cursors, or a malformed cursor, is a bad request")
+    void rejectsBadCursors() {
+        assertThrows(BadRequestException.class,
+                () -> conversationService.getMessages("conv1", "u1", "a", "b", 20));
+        assertThrows(BadRequestException.class,
+                () -> conversationService.getMessages("conv1", "u1", "not-a-cursor", null, 20));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Non-participants cannot page through messages")
+    void checksAccess() {
+        assertThrows(RuntimeException.class,
+                () -> conversationService.getMessages("conv1", "intruder", null, null, 20));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Transcript streams through a batched cursor, looking each sender up once")
+    void transcriptStreamsWithSenderLookup() {
+        ParticipantDirectory.Participant acme = new ParticipantDirectory.Participant("u1", "Acme", Role.COMPANY);
+        when(participantDirectory.findAll(List.of("u1", "u2"))).thenReturn(Map.of("u1", acme));
+        when(participantDirectory.find("ghost")).thenReturn(Optional.empty());
+        ConversationMessage fromGhost = message("m3", 3);
+        fromGhost.setSenderId("ghost");
+        ConversationMessage fromGhostAgain = message("m4", 4);
+        fromGhostAgain.setSenderId("ghost");
+        when(mongoTemplate.stream(any(Query.class), eq(ConversationMessage.class)))
+                .thenReturn(Stream.of(message("m1", 1), message("m2", 2), fromGhost, fromGhostAgain));
+
+        List<ConversationMessageDTO> transcript;
+        try (Stream<ConversationMessageDTO> stream = conversationService.streamTranscript("conv1")) {
+            transcript = stream.toList();
+        }
+
+        assertEquals(List.of("Acme", "Acme"), transcript.subList(0, 2).stream()
+                .map(ConversationMessageDTO::getSenderName).toList());
+        assertNull(transcript.get(3).getSenderName());
+        verify(participantDirectory, times(1)).find("ghost");
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(captor.capture(), eq(ConversationMessage.class));
+        assertEquals(ConversationService.TRANSCRIPT_BATCH_SIZE, captor.getValue().getMeta().getCursorBatchSize());
+        assertEquals(new Document("createdAt", 1).append("id", 1), captor.getValue().getSortObject());
+    }
+
+    @Test
+    @DisplayName("Transcript of a missing conversation fails before streaming")
+    void transcriptOfMissingConversation() {
+        when(conversationRepository.findById("nope")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> conversationService.streamTranscript("nope"));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private Query capturedQuery() {
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(captor.capture(), eq(ConversationMessage.class));
+        return captor.getValue();
+    }
+
+    private Query capturedLastQuery(int calls) {
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(calls)).find(captor.capture(), eq(ConversationMessage.class));
+        return captor.getValue();
+    }
+
+    private static ConversationMessage message(String id, int second) {
+        return ConversationMessage.builder()
+                .id(id).conversationId("conv1").senderId("u1").content("hi")
+                .createdAt(T0.plusSeconds(second))
+                .build();
+    }
+}
@@ -4,6 +4,7 @@ import com.eventra.config.PaymentProperties;
 import com.eventra.entity.*;
 import com.eventra.exception.PaymentException;
 import com.eventra.exception.ResourceNotFoundException;
+import com.eventra.infrastructure.DistributedLock;
 import com.eventra.infrastructure.IdempotencyService;
 import com.eventra.repository.PaymentRepository;
 import com.eventra.repository.TransactionRepository;
@@ -33,6 +34,7 @@ class EscrowServiceTest {
     @Mock private PaymentRepository paymentRepository;
     @Mock private TransactionRepository transactionRepository;
     @Mock private IdempotencyService idempotencyService;
+    @Mock private DistributedLock lock;
     @Mock private PaymentProperties paymentProperties;
 
     @InjectMocks
@@ -42,6 +44,7 @@ class EscrowServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(lock.isHeld()).thenReturn(true);
         payment = Payment.builder()
                 .id("pay-1")
                 .requestId("req-1")
@@ -68,8 +71,8 @@ class EscrowServiceTest {
         @Test
         @DisplayName("Successfully releases payment from escrow")
         void success() {
-            when(idempotencyService.acquireLock(anyString(), anyString(), any(Duration.class)))
-                    .thenReturn(true);
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.of(lock));
             when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(payment));
             when(paymentRepository.save(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -78,15 +81,15 @@ class EscrowServiceTest {
             assertEquals(PaymentStatus.RELEASED, result.getStatus());
             assertNotNull(result.getReleasedAt());
             verify(transactionRepository).save(any());
-            verify(idempotencyService).releaseLock(anyString(), anyString());
+            verify(lock).close();
         }
 
         @Test
         @DisplayName("Throws when payment is not in escrow")
         void notInEscrow() {
             payment.setStatus(PaymentStatus.RELEASED);
-            when(idempotencyService.acquireLock(anyString(), anyString(), any(Duration.class)))
-                    .thenReturn(true);
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.of(lock));
             when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(payment));
 
             assertThrows(PaymentException.class,
@@ -96,8 +99,8 @@ class EscrowServiceTest {
         @Test
         @DisplayName("Throws when lock cannot be acquired")
         void lockConflict() {
-            when(idempotencyService.acquireLock(anyString(), anyString(), any(Duration.class)))
-                    .thenReturn(false);
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.empty());
 
             assertThrows(PaymentException.class,
                     () -> escrowService.releaseFromEscrow("pay-1", "admin-1"));
@@ -106,8 +109,8 @@ class EscrowServiceTest {
         @Test
         @DisplayName("Throws when payment not found")
         void notFound() {
-            when(idempotencyService.acquireLock(anyString(), anyString(), any(Duration.class)))
-                    .thenReturn(true);
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.of(lock));
             when(paymentRepository.findById("pay-1")).thenReturn(Optional.empty());
 
             assertThrows(ResourceNotFoundException.class,
@@ -177,8 +180,8 @@ class EscrowServiceTest {
         @DisplayName("Processes eligible payments and returns success count")
         void processesEligible() {
             when(paymentRepository.findEligibleForAutoRelease(any())).thenReturn(List.of(payment));
-            when(idempotencyService.acquireLock(anyString(), anyString(), any(Duration.class)))
-                    .thenReturn(true);
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.of(lock));
             when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(payment));
             when(paymentRepository.save(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -202,12 +205,12 @@ class EscrowServiceTest {
                     .thenReturn(List.of(payment, payment2));
 
             // First payment fails to acquire lock
-            when(idempotencyService.acquireLock(contains("pay-1"), anyString(), any(Duration.class)))
-                    .thenReturn(false);
+            when(idempotencyService.tryLock(contains("pay-1"), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.empty());
 
             // Second payment succeeds
-            when(idempotencyService.acquireLock(contains("pay-2"), anyString(), any(Duration.class)))
-                    .thenReturn(true);
+            when(idempotencyService.tryLock(contains("pay-2"), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.of(lock));
             when(paymentRepository.findById("pay-2")).thenReturn(Optional.of(payment2));
             when(paymentRepository.save(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
 
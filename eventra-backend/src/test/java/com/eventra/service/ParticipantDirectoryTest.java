@@ -0,0 +1,78 @@
+package com.eventra.service;
+
+import com.eventra.entity.Role;
+import com.eventra.entity.User;
+import com.eventra.repository.UserRepository;
+import com.eventra.service.ParticipantDirectory.Participant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ParticipantDirectory")
+class ParticipantDirectoryTest {
+
+    @Mock private UserRepository userRepository;
+
+    private CacheManager cacheManager;
+    private ParticipantDirectory directory;
+
+    private final User company = User.builder().id("u1").name("Acme").role(Role.COMPANY).build();
+    private final User organizer = User.builder().id("u2").name("TechFest").role(Role.ORGANIZER).build();
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(ParticipantDirectory.CACHE_NAME);
+        directory = new ParticipantDirectory(userRepository, cacheManager);
+    }
+
+    @Test
+    @DisplayName("Missing participants are loaded in one query, then served from cache")
+    void batchesMissesAndCaches() {
+        when(userRepository.findAllById(List.of("u1", "u2"))).thenReturn(List.of(company, organizer));
+
+        Map<String, Participant> first = directory.findAll(List.of("u1", "u2"));
+        Map<String, Participant> second = directory.findAll(List.of("u2", "u1"));
+
+        assertEquals(new Participant("u1", "Acme", Role.COMPANY), first.get("u1"));
+        assertEquals(first, second);
+        verify(userRepository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    @DisplayName("Only ids missing from the cache are queried; unknown ids are absent")
+    void queriesOnlyMisses() {
+        when(userRepository.findAllById(List.of("u1"))).thenReturn(List.of(company));
+        directory.find("u1");
+        when(userRepository.findAllById(List.of("ghost"))).thenReturn(List.of());
+
+        Map<String, Participant> found = directory.findAll(List.of("u1", "ghost"));
+
+        assertEquals(1, found.size());
+        assertTrue(directory.find("ghost").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Saving a user evicts the cached participant")
+    void userSaveEvicts() {
+        when(userRepository.findAllById(List.of("u1"))).thenReturn(List.of(company));
+        directory.find("u1");
+
+        directory.onAfterSave(new AfterSaveEvent<>(company, null, "users"));
+
+        assertNull(cacheManager.getCache(ParticipantDirectory.CACHE_NAME).get("u1"));
+    }
+}
@@ -7,6 +7,7 @@ import com.eventra.dto.PaymentOrderResponse;
 import com.eventra.dto.PaymentVerificationRequest;
 import com.eventra.entity.*;
 import com.eventra.exception.BadRequestException;
+import com.eventra.exception.IdempotencyConflictException;
 import com.eventra.exception.PaymentException;
 import com.eventra.exception.ResourceNotFoundException;
 import com.eventra.exception.UnauthorizedException;
@@ -22,6 +23,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -91,7 +93,6 @@ class PaymentServiceTest {
         void success() throws Exception {
             when(requestRepository.findById("req-1")).thenReturn(Optional.of(sponsorshipRequest));
             when(companyRepository.findById("company-1")).thenReturn(Optional.of(company));
-            when(paymentRepository.findByIdempotencyKey(any())).thenReturn(Optional.empty());
             when(paymentProperties.getMaxPaymentAmount()).thenReturn(BigDecimal.valueOf(10000000));
             when(paymentProperties.getCommissionPercent()).thenReturn(BigDecimal.valueOf(10));
 
@@ -115,6 +116,7 @@ class PaymentServiceTest {
             assertEquals("pay-1", response.getPaymentId());
             verify(paymentRepository, times(2)).save(any(Payment.class));
             verify(razorpayGateway).createOrder(eq(500000L), eq("INR"), eq("pay-1"), any(JSONObject.class));
+            verify(paymentRepository, never()).findByIdempotencyKey(any());
         }
 
         @Test
@@ -147,20 +149,34 @@ class PaymentServiceTest {
         }
 
         @Test
-        @DisplayName("Returns existing payment for duplicate idempotency key")
+        @DisplayName("Returns existing payment for a repeated company-scoped idempotency key")
         void idempotencyDuplicate() {
             createOrderRequest.setIdempotencyKey("idem-123");
             when(requestRepository.findById("req-1")).thenReturn(Optional.of(sponsorshipRequest));
             when(companyRepository.findById("company-1")).thenReturn(Optional.of(company));
+            when(paymentRepository.findByIdempotencyKey("company-1:idem-123"))
+                    .thenReturn(Optional.of(existingPayment("req-1")));
+            when(razorpayGateway.getKeyId()).thenReturn("rzp_test_key");
 
-            Payment existingPayment = Payment.builder()
-                    .id("pay-existing")
-                    .razorpayOrderId("order_rzp_existing")
-                    .amount(BigDecimal.valueOf(5000))
-                    .currency("INR")
-                    .status(PaymentStatus.CREATED)
-                    .build();
-            when(paymentRepository.findByIdempotencyKey("idem-123")).thenReturn(Optional.of(existingPayment));
+            PaymentOrderResponse response = paymentService.createOrder("user-1", createOrderRequest);
+
+            assertEquals("pay-existing", response.getPaymentId());
+            verify(paymentRepository, never()).save(any(Payment.class));
+            verify(razorpayGateway, never()).createOrder(anyLong(), anyString(), anyString(), any());
+        }
+
+        @Test
+        @DisplayName("Returns existing payment when a concurrent duplicate hits the idempotency key index")
+        void idempotencyDuplicateOnInsert() {
+            createOrderRequest.setIdempotencyKey("idem-123");
+            when(requestRepository.findById("req-1")).thenReturn(Optional.of(sponsorshipRequest));
+            when(companyRepository.findById("company-1")).thenReturn(Optional.of(company));
+            when(paymentProperties.getMaxPaymentAmount()).thenReturn(BigDecimal.valueOf(10000000));
+            when(paymentProperties.getCommissionPercent()).thenReturn(BigDecimal.valueOf(10));
+            when(paymentRepository.findByIdempotencyKey("company-1:idem-123"))
+                    .thenReturn(Optional.empty())
+                    .thenReturn(Optional.of(existingPayment("req-1")));
+            when(paymentRepository.save(any(Payment.class))).thenThrow(new DuplicateKeyException("idempotencyKey"));
             when(razorpayGateway.getKeyId()).thenReturn("rzp_test_key");
 
             PaymentOrderResponse response = paymentService.createOrder("user-1", createOrderRequest);
@@ -169,12 +185,38 @@ class PaymentServiceTest {
             verify(razorpayGateway, never()).createOrder(anyLong(), anyString(), anyString(), any());
         }
 
+        @Test
+        @DisplayName("Rejects an idempotency key reused for a different sponsorship request")
+        void idempotencyKeyReusedForOtherRequest() {
+            createOrderRequest.setIdempotencyKey("idem-123");
+            when(requestRepository.findById("req-1")).thenReturn(Optional.of(sponsorshipRequest));
+            when(companyRepository.findById("company-1")).thenReturn(Optional.of(company));
+            when(paymentRepository.findByIdempotencyKey("company-1:idem-123"))
+                    .thenReturn(Optional.of(existingPayment("req-other")));
+
+            assertThrows(IdempotencyConflictException.class,
+                    () -> paymentService.createOrder("user-1", createOrderRequest));
+            verify(paymentRepository, never()).save(any(Payment.class));
+        }
+
+        private Payment existingPayment(String requestId) {
+            return Payment.builder()
+                    .id("pay-existing")
+                    .requestId(requestId)
+                    .companyId("company-1")
+                    .idempotencyKey("company-1:idem-123")
+                    .razorpayOrderId("order_rzp_existing")
+                    .amount(BigDecimal.valueOf(5000))
+                    .currency("INR")
+                    .status(PaymentStatus.CREATED)
+                    .build();
+        }
+
         @Test
         @DisplayName("Rejects amount exceeding max limit (fraud guard)")
         void exceedsMaxAmount() {
             when(requestRepository.findById("req-1")).thenReturn(Optional.of(sponsorshipRequest));
             when(companyRepository.findById("company-1")).thenReturn(Optional.of(company));
-            when(paymentRepository.findByIdempotencyKey(any())).thenReturn(Optional.empty());
             when(paymentProperties.getMaxPaymentAmount()).thenReturn(BigDecimal.valueOf(100));
 
             createOrderRequest.setAmount(BigDecimal.valueOf(999999));
@@ -250,8 +292,6 @@ class PaymentServiceTest {
         void paymentCaptured() {
             JSONObject payload = createCapturedPayload("pay_rzp_1", "order_rzp_1", 500000L);
 
-            when(idempotencyService.markWebhookProcessed("captured:pay_rzp_1")).thenReturn(true);
-
             Payment payment = Payment.builder()
                     .id("pay-1")
                     .requestId("req-1")
@@ -280,8 +320,6 @@ class PaymentServiceTest {
             // Payload says 999999 paise but payment amount is 5000 rupees (500000 paise)
             JSONObject payload = createCapturedPayload("pay_rzp_1", "order_rzp_1", 999999L);
 
-            when(idempotencyService.markWebhookProcessed("captured:pay_rzp_1")).thenReturn(true);
-
             Payment payment = Payment.builder()
                     .id("pay-1")
                     .amount(BigDecimal.valueOf(5000))
@@ -296,14 +334,36 @@ class PaymentServiceTest {
         }
 
         @Test
-        @DisplayName("payment.captured: idempotent — skips duplicate event")
-        void capturedDuplicate() {
+        @DisplayName("claimWebhookEvent: dedups event ID and payment ID in one call")
+        void claimChecksAllKeysTogether() {
             JSONObject payload = createCapturedPayload("pay_rzp_1", "order_rzp_1", 500000L);
-            when(idempotencyService.markWebhookProcessed("captured:pay_rzp_1")).thenReturn(false);
+            payload.put("id", "evt_1");
+            when(idempotencyService.markWebhookProcessed(List.of("event:evt_1", "captured:pay_rzp_1")))
+                    .thenReturn(true);
 
-            paymentService.processWebhookEvent("payment.captured", payload);
+            assertTrue(paymentService.claimWebhookEvent("payment.captured", payload));
+            verify(idempotencyService, never()).markWebhookProcessed(anyString());
+        }
+
+        @Test
+        @DisplayName("claimWebhookEvent: rejects a duplicate event")
+        void claimDuplicate() {
+            JSONObject payload = createCapturedPayload("pay_rzp_1", "order_rzp_1", 500000L);
+            when(idempotencyService.markWebhookProcessed(List.of("captured:pay_rzp_1"))).thenReturn(false);
+
+            assertFalse(paymentService.claimWebhookEvent("payment.captured", payload));
+        }
 
-            verify(paymentRepository, never()).findByRazorpayOrderId(any());
+        @Test
+        @DisplayName("claimWebhookEvent: refund events dedup on the refund ID")
+        void claimRefund() {
+            JSONObject entity = new JSONObject().put("id", "rfnd_1").put("payment_id", "pay_rzp_1");
+            JSONObject payload = new JSONObject()
+                    .put("id", "evt_2")
+                    .put("payload", new JSONObject().put("refund", new JSONObject().put("entity", entity)));
+            when(idempotencyService.markWebhookProcessed(List.of("event:evt_2", "refund:rfnd_1"))).thenReturn(true);
+
+            assertTrue(paymentService.claimWebhookEvent("refund.created", payload));
         }
 
         @Test
@@ -311,8 +371,6 @@ class PaymentServiceTest {
         void paymentFailed() {
             JSONObject payload = createFailedPayload("pay_rzp_1", "order_rzp_1", "Card declined");
 
-            when(idempotencyService.markWebhookProcessed("failed:pay_rzp_1")).thenReturn(true);
-
             Payment payment = Payment.builder()
                     .id("pay-1")
                     .amount(BigDecimal.valueOf(5000))
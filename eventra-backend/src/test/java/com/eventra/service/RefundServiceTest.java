@@ -7,6 +7,7 @@ import com.eventra.entity.Transaction.TransactionType;
 import com.eventra.exception.BadRequestException;
 import com.eventra.exception.PaymentException;
 import com.eventra.exception.ResourceNotFoundException;
+import com.eventra.infrastructure.DistributedLock;
 import com.eventra.infrastructure.IdempotencyService;
 import com.eventra.repository.PaymentRepository;
 import com.eventra.repository.TransactionRepository;
@@ -36,6 +37,7 @@ class RefundServiceTest {
     @Mock private TransactionRepository transactionRepository;
     @Mock private RazorpayGatewayService razorpayGateway;
     @Mock private IdempotencyService idempotencyService;
+    @Mock private DistributedLock lock;
     @Mock private PaymentProperties paymentProperties;
 
     @InjectMocks
@@ -45,6 +47,7 @@ class RefundServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(lock.isHeld()).thenReturn(true);
         payment = Payment.builder()
                 .id("pay-1")
                 .requestId("req-1")
@@ -78,8 +81,8 @@ class RefundServiceTest {
                     .partial(false)
                     .build();
 
-            when(idempotencyService.acquireLock(anyString(), anyString(), any(Duration.class)))
-                    .thenReturn(true);
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.of(lock));
             when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(payment));
             when(paymentRepository.save(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -95,7 +98,7 @@ class RefundServiceTest {
             assertTrue(result.isFullyRefunded());
             // 2 transactions: COMMISSION_REVERSAL + REFUND
             verify(transactionRepository, times(2)).save(any());
-            verify(idempotencyService).releaseLock(anyString(), anyString());
+            verify(lock).close();
         }
 
         @Test
@@ -108,8 +111,8 @@ class RefundServiceTest {
                     .partial(false)
                     .build();
 
-            when(idempotencyService.acquireLock(anyString(), anyString(), any(Duration.class)))
-                    .thenReturn(true);
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.of(lock));
             when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(payment));
             when(paymentRepository.save(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -143,8 +146,8 @@ class RefundServiceTest {
                     .partial(true)
                     .build();
 
-            when(idempotencyService.acquireLock(anyString(), anyString(), any(Duration.class)))
-                    .thenReturn(true);
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.of(lock));
             when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(payment));
             when(paymentRepository.save(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -177,13 +180,36 @@ class RefundServiceTest {
                     .reason("test")
                     .build();
 
-            when(idempotencyService.acquireLock(anyString(), anyString(), any(Duration.class)))
-                    .thenReturn(false);
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.empty());
 
             assertThrows(PaymentException.class,
                     () -> refundService.initiateRefund(request, "user-1"));
         }
 
+        @Test
+        @DisplayName("Never calls Razorpay once the lock lease is lost")
+        void lockLost() throws Exception {
+            RefundRequest request = RefundRequest.builder()
+                    .paymentId("pay-1")
+                    .amount(BigDecimal.valueOf(5000))
+                    .reason("test")
+                    .build();
+
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.of(lock));
+            when(lock.isHeld()).thenReturn(false);
+            when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(payment));
+            when(paymentRepository.save(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            PaymentException ex = assertThrows(PaymentException.class,
+                    () -> refundService.initiateRefund(request, "user-1"));
+
+            assertEquals("LOCK_LOST", ex.getErrorCode());
+            verify(razorpayGateway, never()).createRefund(any(), anyLong(), anyString());
+            verify(lock).close();
+        }
+
         @Test
         @DisplayName("Throws when payment not found")
         void paymentNotFound() {
@@ -193,13 +219,13 @@ class RefundServiceTest {
                     .reason("test")
                     .build();
 
-            when(idempotencyService.acquireLock(anyString(), anyString(), any(Duration.class)))
-                    .thenReturn(true);
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.of(lock));
             when(paymentRepository.findById("missing")).thenReturn(Optional.empty());
 
             assertThrows(ResourceNotFoundException.class,
                     () -> refundService.initiateRefund(request, "user-1"));
-            verify(idempotencyService).releaseLock(anyString(), anyString());
+            verify(lock).close();
         }
 
         @Test
@@ -212,8 +238,8 @@ class RefundServiceTest {
                     .build();
 
             payment.setStatus(PaymentStatus.CREATED); // Not refundable
-            when(idempotencyService.acquireLock(anyString(), anyString(), any(Duration.class)))
-                    .thenReturn(true);
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.of(lock));
             when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(payment));
 
             assertThrows(PaymentException.class,
@@ -230,8 +256,8 @@ class RefundServiceTest {
                     .partial(true)
                     .build();
 
-            when(idempotencyService.acquireLock(anyString(), anyString(), any(Duration.class)))
-                    .thenReturn(true);
+            when(idempotencyService.tryLock(anyString(), any(Duration.class), any(Duration.class)))
+                    .thenReturn(Optional.of(lock));
             when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(payment));
 
             assertThrows(BadRequestException.class,